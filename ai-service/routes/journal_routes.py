@@ -6,14 +6,21 @@ FastAPI router exposing all AI-service endpoints.
 Endpoints:
     GET  /health        /ai/health        — liveness check
     POST /embed/entry   /ai/embed/entry   — embed a single journal entry into ChromaDB
+    POST /embed/batch   /ai/embed/batch   — embed many journal entries in one request
     POST /embed/all     /ai/embed/all     — bulk-embed all entries for a user from MongoDB
+    POST /embed/delete  /ai/embed/delete  — remove the vectors of deleted entries
     POST /query         /ai/query         — RAG: answer a question from journal context
 """
 
 from fastapi import APIRouter, HTTPException, Query, Depends, BackgroundTasks
 from pydantic import BaseModel, Field
 
-from services.embedding_service import embed_single_entry, embed_all_entries
+from services.embedding_service import (
+    embed_single_entry,
+    embed_entries_batch,
+    embed_all_entries,
+    delete_entries,
+)
 from dependencies import get_retrieval_gateway, get_cognitive_orchestrator
 from memory.retrieval.retrieval_gateway import RetrievalGateway
 from orchestration.cognitive_orchestrator import CognitiveOrchestrator
@@ -35,12 +42,25 @@ class EmbedEntryRequest(BaseModel):
     date: str     = Field("",  description="ISO-8601 date of the entry (e.g. 2026-06-20)")
 
 
+class EmbedBatchRequest(BaseModel):
+    """Payload for embedding several journal entries in one call."""
+
+    entries: list[EmbedEntryRequest] = Field(..., description="Entries to embed")
+
+
 class EmbedAllRequest(BaseModel):
     """Payload for bulk-embedding all entries for a user."""
 
     user_id: str = Field(..., description="MongoDB ObjectId string of the user")
 
 
+class DeleteEntriesRequest(BaseModel):
+    """Payload for removing the vectors of deleted entries."""
+
+    user_id: str         = Field(..., description="MongoDB ObjectId string of the owning user")
+    entry_ids: list[str] = Field(..., description="MongoDB ObjectId strings of the deleted entries")
+
+
 class QueryRequest(BaseModel):
     """Payload for a RAG query."""
 
@@ -102,6 +122,39 @@ def embed_entry(
     return result
 
 
+@router.post("/embed/batch")
+@router.post("/ai/embed/batch")
+def embed_batch(
+    req: EmbedBatchRequest,
+    background_tasks: BackgroundTasks,
+    orchestrator: CognitiveOrchestrator = Depends(get_cognitive_orchestrator)
+):
+    """
+    Embed several journal entries with batched model calls and upserts.
+
+    Used by the Spring backend's outbox dispatcher. Returns the ids that were
+    embedded; ids missing from the response should be retried. Triggers the
+    Cognitive Pipeline for each embedded entry, as /embed/entry does.
+    """
+    result = embed_entries_batch([e.model_dump() for e in req.entries])
+
+    if result.get("status") == "error" and not result.get("embedded"):
+        raise HTTPException(status_code=500, detail=result.get("detail", "Batch embedding failed"))
+
+    embedded = set(result.get("embedded", []))
+    for e in req.entries:
+        if e.entry_id in embedded:
+            background_tasks.add_task(
+                orchestrator.run_pipeline,
+                entry_id=e.entry_id,
+                text=e.text,
+                user_id=e.user_id,
+                date=e.date
+            )
+
+    return result
+
+
 @router.post("/embed/all")
 @router.post("/ai/embed/all")
 def embed_all(req: EmbedAllRequest):
@@ -122,6 +175,26 @@ def embed_all(req: EmbedAllRequest):
     return result
 
 
+@router.post("/embed/delete")
+@router.post("/ai/embed/delete")
+def embed_delete(req: DeleteEntriesRequest):
+    """
+    Delete the vectors of the given entries.
+
+    Called by the Spring backend (in batches) after a user deletes their account.
+    Idempotent — ids that are already gone are ignored.
+    """
+    if not req.user_id:
+        raise HTTPException(status_code=400, detail="user_id is required")
+
+    result = delete_entries(user_id=req.user_id, entry_ids=req.entry_ids)
+
+    if result.get("status") == "error":
+        raise HTTPException(status_code=500, detail=result.get("detail", "Vector delete failed"))
+
+    return result
+
+
 @router.post("/query")
 @router.post("/ai/query")
 def query(req: QueryRequest, gateway: RetrievalGateway = Depends(get_retrieval_gateway)):
@@ -112,10 +112,103 @@ def embed_single_entry(
         return {"status": "error", "entry_id": entry_id, "detail": str(exc)}
 
 
+# Entries per embedding-model call / Pinecone upsert in embed_entries_batch
+_EMBED_BATCH_SIZE = 100
+
+
+def embed_entries_batch(entries: list[dict]) -> dict:
+    """
+    Embed many journal entries with batched model calls and batched upserts.
+
+    The backend's outbox dispatcher sends its claimed jobs here in one request
+    instead of one POST /ai/embed/entry per entry; embed_all_entries uses it
+    for bulk re-sync. Entries are processed in chunks of _EMBED_BATCH_SIZE.
+
+    Args:
+        entries (list[dict]): Each with keys entry_id, text, user_id, date.
+
+    Returns:
+        dict: {"status": "embedded", "embedded": [entry_id, ...], "skipped": [entry_id, ...]}
+              {"status": "error", "embedded": [...], "detail": str}  — on a chunk failure;
+              chunks before the failing one stay embedded.
+    """
+    embedded: list[str] = []
+    skipped: list[str] = []
+
+    valid = []
+    for e in entries:
+        if e.get("text") and e["text"].strip():
+            valid.append(e)
+        else:
+            skipped.append(e.get("entry_id", ""))
+
+    try:
+        for start in range(0, len(valid), _EMBED_BATCH_SIZE):
+            chunk = valid[start:start + _EMBED_BATCH_SIZE]
+
+            # One model call for the whole chunk
+            vectors: list[list[float]] = embeddings.embed_documents([e["text"] for e in chunk])
+
+            index.upsert(
+                vectors=[
+                    {
+                        "id": e["entry_id"],
+                        "values": vector,
+                        "metadata": {
+                            "user_id": e["user_id"],
+                            "date": to_iso_utc(e["date"]) if e.get("date") else "",
+                            "text": e["text"],
+                        },
+                    }
+                    for e, vector in zip(chunk, vectors)
+                ]
+            )
+            embedded.extend(e["entry_id"] for e in chunk)
+
+        log.info("Batch embedded %d entr(ies), skipped %d.", len(embedded), len(skipped))
+        return {"status": "embedded", "embedded": embedded, "skipped": skipped}
+
+    except Exception as exc:  # noqa: BLE001
+        log.error("Batch embed failed after %d entr(ies): %s", len(embedded), exc, exc_info=True)
+        return {"status": "error", "embedded": embedded, "skipped": skipped, "detail": str(exc)}
+
+
+# Pinecone accepts at most 1000 ids per delete call
+_DELETE_BATCH_SIZE = 1000
+
+
+def delete_entries(user_id: str, entry_ids: list[str]) -> dict:
+    """
+    Delete the vectors of the given journal entries from Pinecone.
+
+    Called by the Spring backend after an account is deleted. Ids are removed
+    in chunks of _DELETE_BATCH_SIZE; deleting an id that was never embedded is
+    a no-op, so the call is safe to retry.
+
+    Args:
+        user_id   (str):       Owning user's ObjectId string (for logging only).
+        entry_ids (list[str]): MongoDB ObjectId strings of the deleted entries.
+
+    Returns:
+        dict: {"status": "deleted", "user_id": user_id, "deleted": int}
+              {"status": "error",   "user_id": user_id, "detail": str}
+    """
+    try:
+        for start in range(0, len(entry_ids), _DELETE_BATCH_SIZE):
+            index.delete(ids=entry_ids[start:start + _DELETE_BATCH_SIZE])
+
+        log.info("Deleted %d vector(s) for user_id=%s.", len(entry_ids), user_id)
+        return {"status": "deleted", "user_id": user_id, "deleted": len(entry_ids)}
+
+    except Exception as exc:  # noqa: BLE001
+        log.error("Failed to delete vectors for user_id=%s: %s", user_id, exc, exc_info=True)
+        return {"status": "error", "user_id": user_id, "detail": str(exc)}
+
+
 def embed_all_entries(user_id: str) -> dict:
     """
     Fetch every journal entry for *user_id* from MongoDB and embed them all
-    into Pinecone in one batch operation.
+    into Pinecone via embed_entries_batch.
 
     Entries that already exist in Pinecone are silently overwritten (upsert).
     Entries with empty content are skipped.
@@ -156,27 +249,25 @@ def embed_all_entries(user_id: str) -> dict:
 
         log.info("Found %d entries for user_id=%s.", len(entries), user_id)
 
-        for entry in entries:
-            eid     = str(entry.get("_id", ""))
-            content = entry.get("content", "")
-            date    = _extract_date(entry)
-
-            if not content or not content.strip():
-                log.debug("Skipping entry_id=%s — no content.", eid)
-                skipped_count += 1
-                continue
-
-            result = embed_single_entry(
-                entry_id=eid,
-                text=content,
-                user_id=user_id,
-                date=date,
-            )
-
-            if result["status"] == "embedded":
-                embedded_count += 1
-            else:
-                skipped_count += 1
+        result = embed_entries_batch([
+            {
+                "entry_id": str(entry.get("_id", "")),
+                "text":     entry.get("content", ""),
+                "user_id":  user_id,
+                "date":     _extract_date(entry),
+            }
+            for entry in entries
+        ])
+
+        embedded_count = len(result["embedded"])
+        skipped_count  = len(entries) - embedded_count
+
+        if result["status"] == "error":
+            return {
+                "status":         "error",
+                "embedded_count": embedded_count,
+                "detail":         result["detail"],
+            }
 
         log.info(
             "Bulk embed complete: embedded=%d, skipped=%d (user_id=%s).",
@@ -0,0 +1,214 @@
+package com.example.bench;
+
+import com.example.dto.JournalAnalysis;
+import com.example.dto.WeeklyAiReflection;
+import com.example.service.GeminiOutputParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gemini output parsing: the previous split / regex / JsonNode-tree parsers
+ * (copied below as the baseline) against GeminiOutputParser.
+ *
+ * Inputs mirror real answers: the line-format single analysis, a fenced weekly
+ * reflection and a fenced 20-entry batch. Run with the GC profiler so allocation
+ * per operation (gc.alloc.rate.norm) is reported next to the timings:
+ *   mvn -Pjmh test
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@DisplayName("Gemini parser benchmark")
+public class GeminiParserBenchmark {
+
+    private static final int BATCH_SIZE = 20;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private String analysisText;
+    private String weeklyText;
+    private String batchText;
+    private Set<String> batchIds;
+
+    @Setup
+    public void setUp() {
+        analysisText = """
+                Mood: Reflective
+                Emotions: Hope, Worry, Gratitude
+                Summary: The day started slowly but a long conversation with a friend turned it around. \
+                Work deadlines still feel heavy, yet there was a sense of progress by the evening.
+                Motivational Thought: Progress is rarely loud — the quiet steps you took today still count.
+                Sentiment Score: 0.35
+                """;
+
+        weeklyText = """
+                ```json
+                {
+                  "reflectionText": "The week moved between tiring workdays and calmer evenings. Entries mention sleep \
+                and friendships most often, with a lighter tone towards the weekend.",
+                  "trend": "IMPROVING",
+                  "suggestion": "Notice which evenings felt calm and what they had in common."
+                }
+                ```
+                """;
+
+        StringBuilder batch = new StringBuilder("```json\n[\n");
+        batchIds = new LinkedHashSet<>();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            String id = String.format("64a1b2c3d4e5f600123456%02d", i);
+            batchIds.add(id);
+            batch.append(i == 0 ? "" : ",\n").append("""
+                      {"id": "%s", "mood": "Calm", "emotions": "Relief, Hope", \
+                    "summary": "A steady day with a short walk and an early night. Nothing stood out, which felt good.", \
+                    "motivationalThought": "Quiet days are part of the story too.", "sentimentScore": 0.%d}""".formatted(id, i % 10));
+        }
+        batchText = batch.append("\n]\n```").toString();
+    }
+
+    @Benchmark
+    public JournalAnalysis analysisLegacySplit() {
+        return Legacy.parseAnalysis(analysisText);
+    }
+
+    @Benchmark
+    public JournalAnalysis analysisSinglePass() {
+        return GeminiOutputParser.parseAnalysis(analysisText);
+    }
+
+    @Benchmark
+    public WeeklyAiReflection weeklyLegacyRegexBind() throws Exception {
+        return Legacy.parseWeeklyReflection(objectMapper, weeklyText);
+    }
+
+    @Benchmark
+    public WeeklyAiReflection weeklyStreaming() throws Exception {
+        return GeminiOutputParser.parseWeeklyReflection(weeklyText);
+    }
+
+    @Benchmark
+    public Map<String, JournalAnalysis> batchLegacyTree() throws Exception {
+        return Legacy.parseBatchAnalysis(objectMapper, batchText, batchIds);
+    }
+
+    @Benchmark
+    public Map<String, JournalAnalysis> batchStreaming() throws Exception {
+        return GeminiOutputParser.parseBatchAnalysis(batchText, batchIds);
+    }
+
+    @Test
+    @DisplayName("run all parser benchmarks")
+    void run() throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(GeminiParserBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build())
+                .run();
+    }
+
+    /** The parsers GeminiService used before GeminiOutputParser, unchanged apart from being static. */
+    private static final class Legacy {
+
+        static JournalAnalysis parseAnalysis(String responseText) {
+            JournalAnalysis analysis = new JournalAnalysis();
+            String[] lines = responseText.split("\n");
+
+            for (String line : lines) {
+                if (line.startsWith("Mood:")) {
+                    analysis.setMood(extractValue(line));
+                } else if (line.startsWith("Emotions:")) {
+                    analysis.setEmotions(extractValue(line));
+                } else if (line.startsWith("Summary:")) {
+                    analysis.setSummary(extractValue(line));
+                } else if (line.startsWith("Motivational Thought:")) {
+                    analysis.setMotivationalThought(extractValue(line));
+                } else if (line.startsWith("Sentiment Score:")) {
+                    try {
+                        analysis.setSentimentScore(Double.parseDouble(extractValue(line).trim()));
+                    } catch (NumberFormatException e) {
+                        analysis.setSentimentScore(0.0);
+                    }
+                }
+            }
+            return analysis;
+        }
+
+        static WeeklyAiReflection parseWeeklyReflection(ObjectMapper objectMapper, String generatedText) throws Exception {
+            String cleaned = generatedText
+                    .replaceAll("(?s)```json\\s*", "")
+                    .replaceAll("(?s)```\\s*", "")
+                    .trim();
+            return objectMapper.readValue(cleaned, WeeklyAiReflection.class);
+        }
+
+        static Map<String, JournalAnalysis> parseBatchAnalysis(ObjectMapper objectMapper, String responseText,
+                                                               Set<String> expectedIds) throws Exception {
+            String cleaned = responseText
+                    .replaceAll("(?s)```json\\s*", "")
+                    .replaceAll("(?s)```\\s*", "")
+                    .trim();
+
+            JsonNode root = objectMapper.readTree(cleaned);
+            Map<String, JournalAnalysis> results = new HashMap<>();
+            for (JsonNode item : root) {
+                String id = item.path("id").asText(null);
+                if (id == null || !expectedIds.contains(id)) {
+                    continue;
+                }
+
+                JournalAnalysis analysis = new JournalAnalysis();
+                analysis.setMood(textOrNull(item, "mood"));
+                analysis.setEmotions(textOrNull(item, "emotions"));
+                analysis.setSummary(textOrNull(item, "summary"));
+                analysis.setMotivationalThought(textOrNull(item, "motivationalThought"));
+                JsonNode score = item.path("sentimentScore");
+                if (score.isNumber() || score.isTextual()) {
+                    try {
+                        analysis.setSentimentScore(Double.parseDouble(score.asText().trim()));
+                    } catch (NumberFormatException e) {
+                        analysis.setSentimentScore(0.0);
+                    }
+                }
+                results.put(id, analysis);
+            }
+            return results;
+        }
+
+        private static String textOrNull(JsonNode node, String field) {
+            JsonNode value = node.get(field);
+            return value == null || value.isNull() || value.asText().isBlank() ? null : value.asText().trim();
+        }
+
+        private static String extractValue(String line) {
+            int colonIndex = line.indexOf(":");
+            if (colonIndex != -1 && colonIndex < line.length() - 1) {
+                return line.substring(colonIndex + 1).trim();
+            }
+            return "";
+        }
+    }
+}
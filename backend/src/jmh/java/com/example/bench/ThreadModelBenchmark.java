@@ -0,0 +1,146 @@
+package com.example.bench;
+
+import com.example.config.RestTemplateConfig;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Platform vs virtual threads for our workload shape: callers that block on a
+ * slow remote API through the pooled RestTemplate from RestTemplateConfig.
+ *
+ * A local HTTP server answers every call after REMOTE_LATENCY_MS (stand-in for
+ * Gemini / the AI service). One operation is CALLERS concurrent calls; the score
+ * is the time until all of them have returned, so calls/s = CALLERS / score.
+ * "platform" runs the callers on 200 pooled threads (Tomcat's default),
+ * "virtual" on one virtual thread each.
+ *
+ * Virtual threads need Java 21; on an older runtime only the platform
+ * scenarios run. Full comparison:
+ *   mvn -Pjava21,jmh test -Dtest=ThreadModelBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+@DisplayName("Thread model benchmark")
+public class ThreadModelBenchmark {
+
+    private static final int CALLERS = 1_000;
+    private static final int REMOTE_LATENCY_MS = 50;
+    private static final int TOMCAT_DEFAULT_THREADS = 200;
+
+    @Param({"platform", "virtual"})
+    public String threadModel;
+
+    @Param({"20", "50", "200"})
+    public int maxPerRoute;
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private ExecutorService callers;
+    private RestTemplate restTemplate;
+    private String url;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), CALLERS);
+        // Enough server threads that the remote side is never the bottleneck
+        serverExecutor = Executors.newFixedThreadPool(CALLERS);
+        server.setExecutor(serverExecutor);
+        server.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(REMOTE_LATENCY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = "{\"ok\":true}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/slow";
+
+        callers = "virtual".equals(threadModel)
+                ? newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(TOMCAT_DEFAULT_THREADS);
+        // Generous pool wait: this measures throughput, not pool timeouts
+        restTemplate = new RestTemplateConfig().restTemplate(Math.max(50, maxPerRoute), maxPerRoute, 120_000);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        callers.shutdownNow();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public int concurrentCalls() throws Exception {
+        List<Future<String>> futures = new ArrayList<>(CALLERS);
+        for (int i = 0; i < CALLERS; i++) {
+            futures.add(callers.submit(() -> restTemplate.getForObject(url, String.class)));
+        }
+        int ok = 0;
+        for (Future<String> future : futures) {
+            if (future.get() != null) {
+                ok++;
+            }
+        }
+        return ok;
+    }
+
+    @Test
+    @DisplayName("run the thread model benchmark")
+    void run() throws RunnerException {
+        boolean virtualThreadsAvailable = Runtime.version().feature() >= 21;
+        new Runner(new OptionsBuilder()
+                .include(ThreadModelBenchmark.class.getSimpleName())
+                .param("threadModel", virtualThreadsAvailable
+                        ? new String[] {"platform", "virtual"}
+                        : new String[] {"platform"})
+                .build())
+                .run();
+    }
+
+    /** Executors.newVirtualThreadPerTaskExecutor() without requiring a Java 21 compile. */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual threads require Java 21", e);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.cache;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Small in-process cache: bounded size, per-entry expiry, least-recently-used eviction.
+ *
+ * Backed by an access-ordered LinkedHashMap guarded by a single lock — plenty for
+ * the few-thousand-entry caches this app needs, and no extra dependency.
+ * Expired entries are dropped lazily on read and evicted first when full.
+ */
+public class TtlLruCache<K, V> {
+
+    private final int maxSize;
+    private final Duration defaultTtl;
+    private final Clock clock;
+    private final LinkedHashMap<K, Entry<V>> map;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public TtlLruCache(int maxSize, Duration defaultTtl) {
+        this(maxSize, defaultTtl, Clock.systemUTC());
+    }
+
+    public TtlLruCache(int maxSize, Duration defaultTtl, Clock clock) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.maxSize = maxSize;
+        this.defaultTtl = defaultTtl;
+        this.clock = clock;
+        this.map = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > TtlLruCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /** @return the cached value, or null if absent or expired */
+    public V get(K key) {
+        synchronized (map) {
+            Entry<V> entry = map.get(key);
+            if (entry == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            if (entry.isExpired(clock.instant())) {
+                map.remove(key);
+                misses.incrementAndGet();
+                return null;
+            }
+            hits.incrementAndGet();
+            return entry.value;
+        }
+    }
+
+    public void put(K key, V value) {
+        put(key, value, clock.instant().plus(defaultTtl));
+    }
+
+    /** Store with an explicit expiry (e.g. a token's own exp claim). */
+    public void put(K key, V value, Instant expiresAt) {
+        synchronized (map) {
+            if (!map.containsKey(key) && map.size() >= maxSize) {
+                purgeExpired();
+            }
+            map.put(key, new Entry<>(value, expiresAt));
+        }
+    }
+
+    public void invalidate(K key) {
+        synchronized (map) {
+            map.remove(key);
+        }
+    }
+
+    /** Drop every entry whose value matches — used when one logical owner spans several keys. */
+    public void invalidateIf(Predicate<V> predicate) {
+        synchronized (map) {
+            map.values().removeIf(entry -> predicate.test(entry.value));
+        }
+    }
+
+    public void clear() {
+        synchronized (map) {
+            map.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (map) {
+            return map.size();
+        }
+    }
+
+    public long hitCount()      { return hits.get(); }
+    public long missCount()     { return misses.get(); }
+    public long evictionCount() { return evictions.get(); }
+
+    private void purgeExpired() {
+        Instant now = clock.instant();
+        Iterator<Entry<V>> it = map.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().isExpired(now)) {
+                it.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    private record Entry<V>(V value, Instant expiresAt) {
+        boolean isExpired(Instant now) {
+            return !now.isBefore(expiresAt);
+        }
+    }
+}
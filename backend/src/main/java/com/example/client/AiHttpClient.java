@@ -0,0 +1,35 @@
+package com.example.client;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Outbound JSON-over-HTTP transport shared by GeminiService and AiEmbeddingService.
+ *
+ * Calls return a CompletableFuture so AI work can be composed and fanned out
+ * without holding a thread per in-flight request. Failures complete the future
+ * with the same exceptions RestTemplate would throw — HttpClientErrorException /
+ * HttpServerErrorException for non-2xx answers, ResourceAccessException for I/O
+ * errors — so callers handle both implementations identically.
+ *
+ * Implementations (ai.http.client):
+ *  non-blocking (default) — NonBlockingAiHttpClient, JDK HttpClient sendAsync
+ *  blocking               — RestTemplateAiHttpClient, runs on the caller's thread
+ */
+public interface AiHttpClient {
+
+    /**
+     * POST {@code body} as JSON and map the response body onto {@code responseType}.
+     *
+     * @param headers extra request headers (Content-Type is always application/json)
+     */
+    <T> CompletableFuture<T> postJson(String url, Map<String, String> headers, Object body, Class<T> responseType);
+
+    /**
+     * POST {@code body} as JSON and consume a text/event-stream response,
+     * passing the data of each event to {@code onEvent} as it arrives.
+     * The future completes when the server closes the stream.
+     */
+    CompletableFuture<Void> postJsonStream(String url, Map<String, String> headers, Object body, Consumer<String> onEvent);
+}
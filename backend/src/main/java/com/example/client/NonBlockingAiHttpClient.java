@@ -0,0 +1,231 @@
+package com.example.client;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Non-blocking AiHttpClient on the JDK HttpClient.
+ *
+ * sendAsync hands the socket wait to the client's selector thread, so an in-flight
+ * Gemini or AI-service call costs no thread while it waits. Same timeouts as the
+ * RestTemplate: 10s to connect, 30s for the response headers. Streamed responses
+ * are parsed line by line as they arrive rather than buffered.
+ *
+ * The request timeout does not cover the body, so every exchange also has a
+ * total budget — total-timeout-ms, or stream-timeout-ms for event streams.
+ * A stalled body is cancelled and fails with ResourceAccessException, which
+ * releases the caller's GeminiGuard permits.
+ *
+ * Completions (and whatever callers chain onto them: Mongo saves, SSE sends)
+ * run on a fixed pool of executor-threads instead of the client's default
+ * unbounded cached pool.
+ */
+@Component
+@ConditionalOnProperty(name = "ai.http.client", havingValue = "non-blocking", matchIfMissing = true)
+public class NonBlockingAiHttpClient implements AiHttpClient {
+
+    private final HttpClient httpClient;
+    private final ExecutorService executor;
+    private final Duration requestTimeout;
+    private final Duration totalTimeout;
+    private final Duration streamTimeout;
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    public NonBlockingAiHttpClient(@Value("${http.client.connect-timeout-ms:10000}") long connectTimeoutMs,
+                                   @Value("${http.client.read-timeout-ms:30000}") long readTimeoutMs,
+                                   @Value("${http.client.total-timeout-ms:60000}") long totalTimeoutMs,
+                                   @Value("${http.client.stream-timeout-ms:180000}") long streamTimeoutMs,
+                                   @Value("${http.client.executor-threads:4}") int executorThreads) {
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        this.executor = Executors.newFixedThreadPool(Math.max(1, executorThreads), runnable -> {
+            Thread t = new Thread(runnable, "ai-http-" + threadNumber.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .executor(executor)
+                .build();
+        this.requestTimeout = Duration.ofMillis(readTimeoutMs);
+        this.totalTimeout = Duration.ofMillis(totalTimeoutMs);
+        this.streamTimeout = Duration.ofMillis(streamTimeoutMs);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public <T> CompletableFuture<T> postJson(String url, Map<String, String> headers, Object body, Class<T> responseType) {
+        HttpRequest request;
+        try {
+            request = jsonPost(url, headers, body).build();
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return withTimeout(httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()), totalTimeout)
+                .handle((response, error) -> {
+                    if (error != null) {
+                        throw ioError(url, error);
+                    }
+                    return read(response, responseType);
+                });
+    }
+
+    @Override
+    public CompletableFuture<Void> postJsonStream(String url, Map<String, String> headers, Object body,
+                                                  Consumer<String> onEvent) {
+        HttpRequest request;
+        try {
+            request = jsonPost(url, headers, body)
+                    .header(HttpHeaders.ACCEPT, "text/event-stream")
+                    .build();
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        // Lines are pushed to the parser as they arrive; an error body is not worth streaming
+        EventLineSubscriber events = new EventLineSubscriber(new ServerSentEventParser(onEvent));
+        return withTimeout(httpClient.sendAsync(request, info -> HttpStatusCode.valueOf(info.statusCode()).is2xxSuccessful()
+                        ? HttpResponse.BodySubscribers.fromLineSubscriber(events)
+                        : HttpResponse.BodySubscribers.discarding()), streamTimeout)
+                .handle((response, error) -> {
+                    if (error != null) {
+                        throw ioError(url, error);
+                    }
+                    HttpStatusCode status = HttpStatusCode.valueOf(response.statusCode());
+                    if (!status.is2xxSuccessful()) {
+                        throw statusError(status, new byte[0]);
+                    }
+                    if (events.failure != null) {
+                        throw events.failure;
+                    }
+                    return null;
+                });
+    }
+
+    private HttpRequest.Builder jsonPost(String url, Map<String, String> headers, Object body)
+            throws JsonProcessingException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url))
+                .timeout(requestTimeout)
+                .header(HttpHeaders.CONTENT_TYPE, "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+        headers.forEach(builder::header);
+        return builder;
+    }
+
+    /** The exchange, failed with TimeoutException (and cancelled) if it is not done within {@code budget}. */
+    private static <T> CompletableFuture<T> withTimeout(CompletableFuture<T> exchange, Duration budget) {
+        return exchange.copy()
+                .orTimeout(budget.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((response, error) -> {
+                    if (error instanceof TimeoutException) {
+                        exchange.cancel(true);   // closes the connection, stops the body subscriber
+                    }
+                });
+    }
+
+    private <T> T read(HttpResponse<byte[]> response, Class<T> responseType) {
+        HttpStatusCode status = HttpStatusCode.valueOf(response.statusCode());
+        if (!status.is2xxSuccessful()) {
+            throw statusError(status, response.body());
+        }
+        try {
+            return response.body().length == 0 ? null : objectMapper.readValue(response.body(), responseType);
+        } catch (IOException e) {
+            throw new ResourceAccessException("Unreadable response body: " + e.getMessage(), e);
+        }
+    }
+
+    private static RuntimeException statusError(HttpStatusCode status, byte[] body) {
+        return status.is4xxClientError()
+                ? HttpClientErrorException.create(status, "", null, body, StandardCharsets.UTF_8)
+                : HttpServerErrorException.create(status, "", null, body, StandardCharsets.UTF_8);
+    }
+
+    private static ResourceAccessException ioError(String url, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        String message = cause instanceof TimeoutException ? "response not complete in time" : cause.getMessage();
+        return new ResourceAccessException("I/O error on POST " + url + ": " + message,
+                cause instanceof IOException io ? io : new IOException(cause));
+    }
+
+    /**
+     * Feeds response lines to the SSE parser. A consumer failure is remembered and
+     * reported once the stream ends; later lines are drained and ignored.
+     */
+    private static final class EventLineSubscriber implements Flow.Subscriber<String> {
+
+        private final ServerSentEventParser parser;
+        private volatile RuntimeException failure;
+
+        private EventLineSubscriber(ServerSentEventParser parser) {
+            this.parser = parser;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(String line) {
+            if (failure == null) {
+                try {
+                    parser.line(line);
+                } catch (RuntimeException e) {
+                    failure = e;
+                }
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            // Surfaces through the response future
+        }
+
+        @Override
+        public void onComplete() {
+            if (failure == null) {
+                try {
+                    parser.finish();
+                } catch (RuntimeException e) {
+                    failure = e;
+                }
+            }
+        }
+    }
+}
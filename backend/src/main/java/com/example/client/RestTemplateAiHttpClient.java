@@ -0,0 +1,80 @@
+package com.example.client;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Blocking AiHttpClient on the pooled RestTemplate (ai.http.client=blocking).
+ *
+ * The call runs on the caller's thread and the returned future is already
+ * complete. Kept for environments where the JDK client is unsuitable (e.g. an
+ * outbound proxy configured only for Apache HttpClient), and pairs naturally
+ * with virtual-thread mode.
+ */
+@Component
+@ConditionalOnProperty(name = "ai.http.client", havingValue = "blocking")
+public class RestTemplateAiHttpClient implements AiHttpClient {
+
+    private final RestTemplate restTemplate;
+
+    public RestTemplateAiHttpClient(RestTemplate restTemplate) {
+        this.restTemplate = restTemplate;
+    }
+
+    @Override
+    public <T> CompletableFuture<T> postJson(String url, Map<String, String> headers, Object body, Class<T> responseType) {
+        try {
+            return CompletableFuture.completedFuture(
+                    restTemplate.postForObject(url, new HttpEntity<>(body, jsonHeaders(headers)), responseType));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> postJsonStream(String url, Map<String, String> headers, Object body,
+                                                  Consumer<String> onEvent) {
+        HttpHeaders httpHeaders = jsonHeaders(headers);
+        httpHeaders.setAccept(List.of(MediaType.TEXT_EVENT_STREAM));
+
+        try {
+            restTemplate.execute(url, HttpMethod.POST,
+                    restTemplate.httpEntityCallback(new HttpEntity<>(body, httpHeaders)),
+                    response -> {
+                        ServerSentEventParser parser = new ServerSentEventParser(onEvent);
+                        try (BufferedReader reader = new BufferedReader(
+                                new InputStreamReader(response.getBody(), StandardCharsets.UTF_8))) {
+                            String line;
+                            while ((line = reader.readLine()) != null) {
+                                parser.line(line);
+                            }
+                        }
+                        parser.finish();
+                        return null;
+                    });
+            return CompletableFuture.completedFuture(null);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static HttpHeaders jsonHeaders(Map<String, String> headers) {
+        HttpHeaders httpHeaders = new HttpHeaders();
+        httpHeaders.setContentType(MediaType.APPLICATION_JSON);
+        headers.forEach(httpHeaders::set);
+        return httpHeaders;
+    }
+}
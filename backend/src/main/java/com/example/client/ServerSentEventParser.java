@@ -0,0 +1,43 @@
+package com.example.client;
+
+import java.util.function.Consumer;
+
+/**
+ * Minimal text/event-stream reader: collects "data:" lines and hands each
+ * complete event's data to the consumer on the blank line that ends it.
+ * Comments, event names and ids are ignored — the AI endpoints only send data.
+ */
+class ServerSentEventParser {
+
+    private final Consumer<String> onEvent;
+    private final StringBuilder data = new StringBuilder();
+
+    ServerSentEventParser(Consumer<String> onEvent) {
+        this.onEvent = onEvent;
+    }
+
+    void line(String line) {
+        if (line.isEmpty()) {
+            dispatch();
+        } else if (line.startsWith("data:")) {
+            if (!data.isEmpty()) {
+                data.append('\n');
+            }
+            String value = line.substring(5);
+            data.append(value.startsWith(" ") ? value.substring(1) : value);
+        }
+    }
+
+    /** End of stream — a final event without a trailing blank line still counts. */
+    void finish() {
+        dispatch();
+    }
+
+    private void dispatch() {
+        if (!data.isEmpty()) {
+            String event = data.toString();
+            data.setLength(0);
+            onEvent.accept(event);
+        }
+    }
+}
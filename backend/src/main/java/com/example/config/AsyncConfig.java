@@ -0,0 +1,201 @@
+package com.example.config;
+
+import com.example.service.JournalAnalysisQueue;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.AsyncConfigurer;
+import org.springframework.scheduling.concurrent.SimpleAsyncTaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background executors, one per workload, all bounded.
+ *
+ *  emailExecutor     — SMTP sends for weekly summaries
+ *  weeklySummaryExecutor — per-user fan-out of the daily weekly summary run
+ *  taskExecutor      — default for any unqualified @Async (resolved by bean name)
+ *  taskScheduler     — @Scheduled jobs; more than one thread so the weekly summary
+ *                      run cannot stall the embedding dispatcher or recovery sweeps
+ *
+ * Journal analysis keeps its own worker pool inside JournalAnalysisQueue (long-lived
+ * batching loops); only its queue depth is exported from here.
+ *
+ * A full executor rejects with TaskRejectedException instead of growing without
+ * bound. Callers treat that as "leave it for the durable path": the summary stays
+ * EMAIL_PENDING, the entry stays PENDING. AI-service vector work (embedding and
+ * vector purge) has no executor at all: it is written to the EmbeddingOutbox and
+ * sent by its dispatcher over the non-blocking client.
+ *
+ * Metrics: Spring Boot binds executor.active / executor.queued / executor.pool.size
+ * for every thread-pool executor bean (tag name=bean name). On top of that each
+ * executor records async.task.wait (time in queue), async.task.duration and
+ * async.task.rejected, tagged executor=bean name.
+ *
+ * Virtual-thread mode (Java 21, opt-in via spring.threads.virtual.enabled=true —
+ * the same flag that moves Tomcat onto virtual threads): every task gets its own
+ * virtual thread instead of a pooled one, and the scheduler fires jobs on virtual
+ * threads too. The admission bound is kept — at most max-size + queue-capacity
+ * tasks in flight per executor, beyond that TaskRejectedException as before — so
+ * the spill paths and the protection of downstream services are unchanged.
+ */
+@Configuration
+@Slf4j
+public class AsyncConfig implements AsyncConfigurer {
+
+    private final MeterRegistry meterRegistry;
+    private final boolean virtualThreads;
+
+    public AsyncConfig(MeterRegistry meterRegistry,
+                       @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.meterRegistry = meterRegistry;
+        this.virtualThreads = virtualThreads;
+    }
+
+    @Bean
+    public AsyncTaskExecutor emailExecutor(
+            @Value("${async.email.core-size:2}") int coreSize,
+            @Value("${async.email.max-size:4}") int maxSize,
+            @Value("${async.email.queue-capacity:200}") int queueCapacity) {
+        return executor("emailExecutor", "email-", coreSize, maxSize, queueCapacity);
+    }
+
+    /**
+     * WeeklySummaryCron admits at most weekly-summary.concurrency users at a time,
+     * so the queue only has to absorb a slot freed just before its thread is.
+     */
+    @Bean
+    public AsyncTaskExecutor weeklySummaryExecutor(
+            @Value("${weekly-summary.concurrency:8}") int concurrency) {
+        int threads = Math.max(1, concurrency);
+        return executor("weeklySummaryExecutor", "weekly-summary-", threads, threads, threads);
+    }
+
+    @Bean
+    public AsyncTaskExecutor taskExecutor(
+            @Value("${async.default.core-size:2}") int coreSize,
+            @Value("${async.default.max-size:4}") int maxSize,
+            @Value("${async.default.queue-capacity:100}") int queueCapacity) {
+        return executor("taskExecutor", "async-", coreSize, maxSize, queueCapacity);
+    }
+
+    @Bean
+    public TaskScheduler taskScheduler(@Value("${scheduling.pool-size:4}") int poolSize) {
+        if (virtualThreads) {
+            SimpleAsyncTaskScheduler scheduler = new SimpleAsyncTaskScheduler();
+            scheduler.setVirtualThreads(true);
+            scheduler.setThreadNamePrefix("scheduling-");
+            scheduler.setTaskTerminationTimeout(10_000);
+            return scheduler;
+        }
+
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix("scheduling-");
+        scheduler.setWaitForTasksToCompleteOnShutdown(true);
+        scheduler.setAwaitTerminationSeconds(10);
+        return scheduler;
+    }
+
+    /** In-memory analysis backlog (the durable backlog is the PENDING entries in Mongo). */
+    @Bean
+    public MeterBinder analysisQueueMetrics(JournalAnalysisQueue journalAnalysisQueue) {
+        return registry -> Gauge.builder("journal.analysis.queue.depth", journalAnalysisQueue,
+                        JournalAnalysisQueue::size)
+                .register(registry);
+    }
+
+    @Override
+    public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
+        return (ex, method, params) ->
+                log.error("@Async {}.{} failed: {}", method.getDeclaringClass().getSimpleName(),
+                        method.getName(), ex.getMessage(), ex);
+    }
+
+    private AsyncTaskExecutor executor(String name, String threadPrefix,
+                                       int coreSize, int maxSize, int queueCapacity) {
+        return virtualThreads
+                ? virtualExecutor(name, threadPrefix, Math.max(coreSize, maxSize) + queueCapacity)
+                : boundedExecutor(name, threadPrefix, coreSize, maxSize, queueCapacity);
+    }
+
+    ThreadPoolTaskExecutor boundedExecutor(String name, String threadPrefix,
+                                           int coreSize, int maxSize, int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(coreSize);
+        executor.setMaxPoolSize(Math.max(coreSize, maxSize));
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(threadPrefix);
+        executor.setTaskDecorator(timed(name));
+        executor.setRejectedExecutionHandler(countingRejection(name));
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+
+    /** Thread per task on virtual threads; rejects beyond {@code maxInFlight} running tasks. */
+    SimpleAsyncTaskExecutor virtualExecutor(String name, String threadPrefix, int maxInFlight) {
+        Counter rejected = meterRegistry.counter("async.task.rejected", "executor", name);
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadPrefix) {
+            @Override
+            public void execute(Runnable task) {
+                try {
+                    super.execute(task);
+                } catch (TaskRejectedException e) {
+                    rejected.increment();
+                    throw e;
+                }
+            }
+        };
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(maxInFlight);
+        executor.setRejectTasksWhenLimitReached(true);
+        executor.setTaskDecorator(timed(name));
+        executor.setTaskTerminationTimeout(10_000);
+        return executor;
+    }
+
+    /** Records how long each task queued and ran. */
+    private TaskDecorator timed(String name) {
+        Timer waitTimer = Timer.builder("async.task.wait").tag("executor", name).register(meterRegistry);
+        Timer runTimer = Timer.builder("async.task.duration").tag("executor", name).register(meterRegistry);
+
+        return task -> {
+            long submitted = System.nanoTime();
+            return () -> {
+                long started = System.nanoTime();
+                waitTimer.record(started - submitted, TimeUnit.NANOSECONDS);
+                try {
+                    task.run();
+                } finally {
+                    runTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                }
+            };
+        };
+    }
+
+    /** Count and reject — Spring surfaces this to the caller as TaskRejectedException. */
+    private RejectedExecutionHandler countingRejection(String name) {
+        Counter rejected = meterRegistry.counter("async.task.rejected", "executor", name);
+        return (task, pool) -> {
+            rejected.increment();
+            throw new RejectedExecutionException(name + " saturated (queue " + pool.getQueue().size() + ")");
+        };
+    }
+}
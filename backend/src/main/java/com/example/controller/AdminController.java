@@ -1,6 +1,10 @@
 package com.example.controller;
 
 import com.example.entity.User;
+import com.example.entity.UserProgress;
+import com.example.service.EmbeddingOutbox;
+import com.example.service.UserDashboardProjector;
+import com.example.service.UserProgressCommandService;
 import com.example.service.UserService;
 import com.example.service.WeeklySummaryCommandService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -20,6 +24,8 @@ import java.util.Map;
  *
  * GET  /admin/all-user              — List all users
  * POST /admin/create-admin-user     — Create an admin account
+ * POST /admin/users/{userName}/progress/rebuild — Recount a user's streaks from their entries
+ * POST /admin/embedding-outbox/retry-dead — Re-queue dead-lettered embedding jobs
  * POST /api/admin/weekly-summary    — Manually trigger weekly summary for current user (testing)
  */
 @RestController
@@ -29,11 +35,20 @@ public class AdminController {
 
     private final UserService userService;
     private final WeeklySummaryCommandService weeklySummaryCommandService;
+    private final UserProgressCommandService userProgressCommandService;
+    private final EmbeddingOutbox embeddingOutbox;
+    private final UserDashboardProjector userDashboardProjector;
 
     public AdminController(UserService userService,
-                            WeeklySummaryCommandService weeklySummaryCommandService) {
+                            WeeklySummaryCommandService weeklySummaryCommandService,
+                            UserProgressCommandService userProgressCommandService,
+                            EmbeddingOutbox embeddingOutbox,
+                            UserDashboardProjector userDashboardProjector) {
         this.userService = userService;
         this.weeklySummaryCommandService = weeklySummaryCommandService;
+        this.userProgressCommandService = userProgressCommandService;
+        this.embeddingOutbox = embeddingOutbox;
+        this.userDashboardProjector = userDashboardProjector;
     }
 
     // ------------------------------------------------------------------
@@ -69,6 +84,28 @@ public class AdminController {
                 .body(Map.of("message", "Admin user created", "username", user.getUserName()));
     }
 
+    @PostMapping("/admin/users/{userName}/progress/rebuild")
+    @Operation(summary = "Rebuild a user's streak and progress counters from their entries")
+    public ResponseEntity<?> rebuildProgress(@PathVariable String userName) {
+        User user = userService.findByUserName(userName);
+        if (user == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "User not found"));
+        }
+
+        UserProgress progress = userProgressCommandService.rebuildProgress(user.getId());
+        userDashboardProjector.refreshProgress(user.getId());
+        log.info("Admin rebuilt progress for: {}", userName);
+        return ResponseEntity.ok(progress);
+    }
+
+    @PostMapping("/admin/embedding-outbox/retry-dead")
+    @Operation(summary = "Re-queue embedding and vector purge jobs that exhausted their retries")
+    public ResponseEntity<Map<String, Long>> retryDeadEmbeddings() {
+        long requeued = embeddingOutbox.retryDead();
+        log.info("Admin re-queued {} dead embedding job(s)", requeued);
+        return ResponseEntity.ok(Map.of("requeued", requeued));
+    }
+
     // ------------------------------------------------------------------
     // /api/admin/** — admin testing tools
     // MOVED from WeeklySummaryTestController and gated behind ADMIN role
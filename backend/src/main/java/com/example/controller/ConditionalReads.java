@@ -0,0 +1,65 @@
+package com.example.controller;
+
+import org.bson.types.ObjectId;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.StringJoiner;
+import java.util.function.Supplier;
+
+/**
+ * Version-based conditional GETs for the reads the frontend polls.
+ *
+ * The ETag is the document id plus its lastModifiedAt (and anything else the
+ * response depends on), so a client that already holds the current version
+ * gets a 304 before the document is mapped or serialized.
+ */
+final class ConditionalReads {
+
+    /** Per-user data: the browser may keep it but must revalidate every time; shared caches must not store it. */
+    static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private ConditionalReads() {
+    }
+
+    /**
+     * Strong ETag value, or null when there is no version to build it from
+     * (no document, or one not written since lastModifiedAt was introduced).
+     */
+    static String etag(ObjectId id, LocalDateTime lastModifiedAt, Object... qualifiers) {
+        if (id == null || lastModifiedAt == null) {
+            return null;
+        }
+        StringJoiner tag = new StringJoiner("-", "\"", "\"");
+        tag.add(id.toHexString()).add(Long.toString(lastModifiedAt.toInstant(ZoneOffset.UTC).toEpochMilli(), 36));
+        for (Object qualifier : qualifiers) {
+            tag.add(String.valueOf(qualifier));
+        }
+        return tag.toString();
+    }
+
+    /**
+     * 304 when {@code ifNoneMatch} already names {@code etag}; otherwise 200 with
+     * {@code body}, which is only evaluated in that case. Without an ETag the
+     * response is a plain 200.
+     */
+    static <T> ResponseEntity<T> respond(String ifNoneMatch, String etag, Supplier<T> body) {
+        if (etag == null) {
+            return ResponseEntity.ok(body.get());
+        }
+        if (ifNoneMatch != null) {
+            ETag current = ETag.create(etag);
+            // If-None-Match uses weak comparison (RFC 9110 §13.1.2)
+            boolean match = ETag.parse(ifNoneMatch).stream()
+                    .anyMatch(tag -> tag.isWildcard() || tag.compare(current, false));
+            if (match) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(REVALIDATE).build();
+            }
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE).body(body.get());
+    }
+}
@@ -1,19 +1,26 @@
 package com.example.controller;
 
+import com.example.dto.UserDashboardDTO;
 import com.example.dto.UserProgressDTO;
 import com.example.entity.User;
+import com.example.entity.UserDashboard;
 import com.example.entity.UserProgress;
+import com.example.security.JournalUserPrincipal;
+import com.example.service.UserDashboardReadService;
 import com.example.service.UserProgressReadService;
 import com.example.service.UserService;
 import com.example.service.WeeklySummaryDashboardQueryService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @RestController
 @RequestMapping("/api/dashboard")
@@ -24,40 +31,62 @@ public class DashboardController {
     private final UserService userService;
     private final WeeklySummaryDashboardQueryService weeklySummaryDashboardQueryService;
     private final com.example.service.WeeklySummaryCommandService weeklySummaryCommandService;
+    private final UserDashboardReadService userDashboardReadService;
 
     public DashboardController(UserProgressReadService userProgressReadService,
                                 UserService userService,
                                 WeeklySummaryDashboardQueryService weeklySummaryDashboardQueryService,
-                                com.example.service.WeeklySummaryCommandService weeklySummaryCommandService) {
+                                com.example.service.WeeklySummaryCommandService weeklySummaryCommandService,
+                                UserDashboardReadService userDashboardReadService) {
         this.userProgressReadService = userProgressReadService;
         this.userService = userService;
         this.weeklySummaryDashboardQueryService = weeklySummaryDashboardQueryService;
         this.weeklySummaryCommandService = weeklySummaryCommandService;
+        this.userDashboardReadService = userDashboardReadService;
     }
 
+    /**
+     * Progress and the latest weekly summary from the materialized user_dashboards
+     * document — one _id lookup instead of a read per widget.
+     */
+    @GetMapping
+    @Operation(summary = "Get progress and the latest weekly summary in one read (supports If-None-Match)")
+    public ResponseEntity<UserDashboardDTO> getDashboard(
+            @AuthenticationPrincipal JournalUserPrincipal principal,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        UserDashboard dashboard = userDashboardReadService.getDashboard(principal.getUserId());
+
+        String etag = ConditionalReads.etag(dashboard.getUserId(), dashboard.getLastModifiedAt(),
+                dashboard.getProgress().getCurrentStreak());
+        return ConditionalReads.respond(ifNoneMatch, etag,
+                () -> new UserDashboardDTO(dashboard.getProgress(), dashboard.getWeeklySummary()));
+    }
+
+    /**
+     * Polled by the dashboard. The ETag also carries the effective streak, which
+     * drops to 0 with the passing days even when the stored document has not changed.
+     */
     @GetMapping("/progress")
-    @Operation(summary = "Get user streak and entry count statistics")
-    public UserProgressDTO getProgress(@AuthenticationPrincipal UserDetails userDetails) {
-        User user = userService.findByUserName(userDetails.getUsername());
-        UserProgress progress = userProgressReadService.getProgressForUser(user.getId()); // FIXED: getId()
+    @Operation(summary = "Get user streak and entry count statistics (supports If-None-Match)")
+    public ResponseEntity<UserProgressDTO> getProgress(
+            @AuthenticationPrincipal JournalUserPrincipal principal,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        UserProgress progress = userProgressReadService.getProgressForUser(principal.getUserId());
 
-        UserProgressDTO dto = new UserProgressDTO();
-        dto.setCurrentStreak(progress.getCurrentStreak());
-        dto.setLongestStreak(progress.getLongestStreak());
-        dto.setWeeklyEntryCount(progress.getWeeklyEntryCount());
-        dto.setTotalEntries(progress.getTotalEntries());
-        dto.setLastEntryDate(progress.getLastEntryDate());
-        dto.setLastEntryAt(progress.getLastEntryAt());
-        return dto;
+        String etag = ConditionalReads.etag(progress.getId(), progress.getLastModifiedAt(), progress.getCurrentStreak());
+        return ConditionalReads.respond(ifNoneMatch, etag, () -> userProgressReadService.toDTO(progress));
     }
 
     @GetMapping("/weekly-summary")
-    @Operation(summary = "Get the latest weekly summary for the dashboard widget")
-    public ResponseEntity<?> getWeeklySummary(@AuthenticationPrincipal UserDetails userDetails) {
-        User user = userService.findByUserName(userDetails.getUsername());
+    @Operation(summary = "Get the latest weekly summary for the dashboard widget (supports If-None-Match)")
+    public ResponseEntity<?> getWeeklySummary(
+            @AuthenticationPrincipal JournalUserPrincipal principal,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         return weeklySummaryDashboardQueryService
-                .getLatestWeeklySummary(user.getId())  // FIXED: getId()
-                .map(ResponseEntity::ok)
+                .findLatest(principal.getUserId())
+                .<ResponseEntity<?>>map(summary -> ConditionalReads.respond(ifNoneMatch,
+                        ConditionalReads.etag(summary.getId(), summary.getLastModifiedAt()),
+                        () -> weeklySummaryDashboardQueryService.toDTO(summary)))
                 .orElse(ResponseEntity.noContent().build());
     }
 
@@ -68,4 +97,17 @@ public class DashboardController {
         weeklySummaryCommandService.generateWeeklySummary(user);
         return ResponseEntity.ok(java.util.Map.of("message", "Weekly summary generated successfully"));
     }
+
+    @org.springframework.web.bind.annotation.PostMapping("/weekly-summary/stream")
+    @Operation(summary = "Generate the weekly summary, streaming the AI reflection as server-sent events")
+    public ResponseEntity<SseEmitter> streamWeeklySummary(@AuthenticationPrincipal UserDetails userDetails) {
+        User user = userService.findByUserName(userDetails.getUsername());
+
+        SseEmitter emitter = SseEvents.emitter();
+        SseEvents.completeWith(emitter,
+                weeklySummaryCommandService.generateWeeklySummaryStreaming(user, chunk -> SseEvents.chunk(emitter, chunk)),
+                done -> weeklySummaryDashboardQueryService.getLatestWeeklySummary(user.getId()).orElse(null));
+        return SseEvents.response(emitter);
+    }
+
 }
@@ -1,65 +1,95 @@
 package com.example.controller;
 
-import com.example.dto.JournalEntryDTO;
 import com.example.entity.JournalEntry;
-import com.example.entity.User;
+import com.example.security.JournalUserPrincipal;
 import com.example.service.JournalEntryService;
-import com.example.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Data;
 import org.bson.types.ObjectId;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.Map;
 
 /**
  * Journal Entry CRUD endpoints — all require authentication.
  *
- * GET    /journal          — Get all entries (paginated)
+ * GET    /journal          — Get all entries (paginated; ?cursor= for keyset pages)
  * POST   /journal          — Create a new entry
  * GET    /journal/id/{id}  — Get a single entry by ID
  * PUT    /journal/id/{id}  — Update an entry
  * DELETE /journal/id/{id}  — Delete an entry
  * POST   /journal/reanalyze/{id} — Re-run AI analysis
+ * POST   /journal/reanalyze/{id}/stream — Same, streamed as server-sent events
  */
 @RestController
 @RequestMapping("/journal")
 @Tag(name = "Journal Entries", description = "Create, read, update and delete journal entries")
 public class JournalEntryController {
 
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+    private static final String VIEW_FULL = "full";
+    private static final String VIEW_SUMMARY = "summary";
+
     private final JournalEntryService journalEntryService;
-    private final UserService userService;
 
-    public JournalEntryController(JournalEntryService journalEntryService,
-                                   UserService userService) {
+    public JournalEntryController(JournalEntryService journalEntryService) {
         this.journalEntryService = journalEntryService;
-        this.userService = userService;
     }
 
     /**
      * Get all journal entries for the authenticated user — paginated.
+     *
+     * Offset mode (default): ?page=&size= — returns a Page with totals.
+     * Cursor mode: send ?cursor= (empty for the first page), then the returned
+     * nextCursor until it is null. Cost per page stays flat however deep the
+     * client scrolls; the total count is only computed with ?includeTotal=true.
+     *
+     * ?view=summary returns lightweight list items (content preview only) in
+     * either mode; fetch the full entry from GET /journal/id/{id}.
      */
     @GetMapping
-    @Operation(summary = "Get all journal entries (paginated)")
-    public ResponseEntity<Page<JournalEntryDTO>> getAllJournalEntriesOfUser(
-            @AuthenticationPrincipal UserDetails userDetails,
+    @Operation(summary = "Get all journal entries (paginated, offset or cursor; full or summary view)")
+    public ResponseEntity<?> getAllJournalEntriesOfUser(
+            @AuthenticationPrincipal JournalUserPrincipal principal,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean includeTotal,
+            @RequestParam(defaultValue = VIEW_FULL) String view) {
+
+        if (!VIEW_FULL.equals(view) && !VIEW_SUMMARY.equals(view)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "view must be full or summary"));
+        }
+        boolean summary = VIEW_SUMMARY.equals(view);
+
+        if (cursor != null) {
+            if (size < 1 || size > MAX_CURSOR_PAGE_SIZE) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "size must be between 1 and " + MAX_CURSOR_PAGE_SIZE));
+            }
+            try {
+                return ResponseEntity.ok(summary
+                        ? journalEntryService.getEntryListForUser(principal.getUserId(), cursor, size, includeTotal)
+                        : journalEntryService.getEntriesForUser(principal.getUserId(), cursor, size, includeTotal));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Invalid cursor"));
+            }
+        }
 
-        User user = userService.findByUserName(userDetails.getUsername());
         Pageable pageable = PageRequest.of(page, size, Sort.by("date").descending());
-        Page<JournalEntryDTO> entries = journalEntryService.getEntriesForUser(user.getId(), pageable);
-        return ResponseEntity.ok(entries);
+        return ResponseEntity.ok(summary
+                ? journalEntryService.getEntryListForUser(principal.getUserId(), pageable)
+                : journalEntryService.getEntriesForUser(principal.getUserId(), pageable));
     }
 
     /**
@@ -68,7 +98,7 @@ public class JournalEntryController {
     @PostMapping
     @Operation(summary = "Create a new journal entry with AI analysis")
     public ResponseEntity<?> createEntry(
-            @AuthenticationPrincipal UserDetails userDetails,
+            @AuthenticationPrincipal JournalUserPrincipal principal,
             @RequestBody JournalEntryRequest request) {
 
         if (request.getTitle() == null || request.getTitle().isBlank()) {
@@ -78,34 +108,31 @@ public class JournalEntryController {
         JournalEntry entry = new JournalEntry(request.getTitle());
         entry.setContent(request.getContent());
 
-        JournalEntry saved = journalEntryService.saveEntry(entry, userDetails.getUsername());
+        JournalEntry saved = journalEntryService.saveEntry(entry, principal.getUserId());
         return ResponseEntity.status(HttpStatus.CREATED)
                 .body(journalEntryService.toDTO(saved));
     }
 
     /**
      * Get a single journal entry by ID — ownership verified.
+     * Sends an ETag; a matching If-None-Match gets 304 without re-mapping the entry.
      */
     @GetMapping("/id/{id}")
-    @Operation(summary = "Get a journal entry by ID")
+    @Operation(summary = "Get a journal entry by ID (supports If-None-Match)")
     public ResponseEntity<?> getJournalEntryById(
-            @AuthenticationPrincipal UserDetails userDetails,
-            @PathVariable String id) {
+            @AuthenticationPrincipal JournalUserPrincipal principal,
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
 
         try {
             ObjectId objectId = new ObjectId(id);
-            User user = userService.findByUserName(userDetails.getUsername());
 
-            boolean owned = user.getJournalEntryIds().contains(objectId);
-            if (!owned) {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                        .body(Map.of("error", "Entry not found"));
-            }
-
-            return journalEntryService.findById(objectId)
-                    .map(journalEntryService::toDTO)
-                    .map(ResponseEntity::ok)
-                    .orElse(ResponseEntity.notFound().build());
+            return journalEntryService.findOwnedEntry(objectId, principal.getUserId())
+                    .<ResponseEntity<?>>map(entry -> ConditionalReads.respond(ifNoneMatch,
+                            ConditionalReads.etag(entry.getId(), entry.getLastModifiedAt()),
+                            () -> journalEntryService.toDTO(entry)))
+                    .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                            .body(Map.of("error", "Entry not found")));
 
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(Map.of("error", "Invalid ID format"));
@@ -119,15 +146,14 @@ public class JournalEntryController {
     @PutMapping("/id/{id}")
     @Operation(summary = "Update a journal entry (re-analyzes if content changes)")
     public ResponseEntity<?> updateEntry(
-            @AuthenticationPrincipal UserDetails userDetails,
+            @AuthenticationPrincipal JournalUserPrincipal principal,
             @PathVariable String id,
             @RequestBody JournalEntryRequest request) {
 
         try {
             ObjectId objectId = new ObjectId(id);
-            User user = userService.findByUserName(userDetails.getUsername());
 
-            if (!user.getJournalEntryIds().contains(objectId)) {
+            if (!journalEntryService.isOwnedBy(objectId, principal.getUserId())) {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND)
                         .body(Map.of("error", "Entry not found"));
             }
@@ -148,12 +174,12 @@ public class JournalEntryController {
     @DeleteMapping("/id/{id}")
     @Operation(summary = "Delete a journal entry")
     public ResponseEntity<?> deleteEntry(
-            @AuthenticationPrincipal UserDetails userDetails,
+            @AuthenticationPrincipal JournalUserPrincipal principal,
             @PathVariable String id) {
 
         try {
             ObjectId objectId = new ObjectId(id);
-            journalEntryService.deleteById(objectId, userDetails.getUsername());
+            journalEntryService.deleteById(objectId, principal.getUserId());
             return ResponseEntity.noContent().build();
 
         } catch (IllegalArgumentException e) {
@@ -170,14 +196,13 @@ public class JournalEntryController {
     @PostMapping("/reanalyze/{id}")
     @Operation(summary = "Re-run AI analysis on a journal entry")
     public ResponseEntity<?> reanalyzeEntry(
-            @AuthenticationPrincipal UserDetails userDetails,
+            @AuthenticationPrincipal JournalUserPrincipal principal,
             @PathVariable String id) {
 
         try {
             ObjectId objectId = new ObjectId(id);
-            User user = userService.findByUserName(userDetails.getUsername());
 
-            if (!user.getJournalEntryIds().contains(objectId)) {
+            if (!journalEntryService.isOwnedBy(objectId, principal.getUserId())) {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND)
                         .body(Map.of("error", "Entry not found"));
             }
@@ -193,6 +218,38 @@ public class JournalEntryController {
         }
     }
 
+    /**
+     * Re-run AI analysis and stream it: "chunk" events carry generated text as
+     * Gemini writes it, the final "result" event carries the saved entry.
+     */
+    @PostMapping("/reanalyze/{id}/stream")
+    @Operation(summary = "Re-run AI analysis on a journal entry, streamed as server-sent events")
+    public ResponseEntity<?> reanalyzeEntryStream(
+            @AuthenticationPrincipal JournalUserPrincipal principal,
+            @PathVariable String id) {
+
+        try {
+            ObjectId objectId = new ObjectId(id);
+
+            if (!journalEntryService.isOwnedBy(objectId, principal.getUserId())) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("error", "Entry not found"));
+            }
+
+            SseEmitter emitter = SseEvents.emitter();
+            SseEvents.completeWith(emitter,
+                    journalEntryService.reanalyzeEntryStreaming(objectId, chunk -> SseEvents.chunk(emitter, chunk)),
+                    journalEntryService::toDTO);
+            return SseEvents.response(emitter);
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid ID format"));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
     // -----------------------------------------------------------------------
     // Inner request DTO (simple enough to be inline here)
     // -----------------------------------------------------------------------
@@ -57,7 +57,9 @@ public class PublicController {
             );
 
             String username = authentication.getName();
-            String token = jwtTokenProvider.generateToken(username);
+            User user = userService.findByUserName(username);
+            String token = jwtTokenProvider.generateToken(
+                    username, user.getId(), user.getRoles(), user.getTokenVersion());
             Instant expiresAt = Instant.now().plusMillis(jwtTokenProvider.getExpiryMs());
 
             return ResponseEntity.ok(new AuthResponse(token, username, expiresAt));
@@ -0,0 +1,67 @@
+package com.example.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Server-sent-event plumbing for the streaming AI endpoints.
+ *
+ * Event names: "chunk" (generated text, in order), then exactly one of
+ * "result" (the persisted outcome) or "failed" ({"error": ...}).
+ * A client that disconnects mid-stream does not stop the work: sends become
+ * no-ops and the final result is still saved.
+ */
+@Slf4j
+final class SseEvents {
+
+    /** Gemini read timeout plus the guard's rate-limit wait, with headroom. */
+    static final long TIMEOUT_MS = 90_000;
+
+    private SseEvents() {
+    }
+
+    static SseEmitter emitter() {
+        return new SseEmitter(TIMEOUT_MS);
+    }
+
+    static void chunk(SseEmitter emitter, String text) {
+        send(emitter, "chunk", text);
+    }
+
+    /** Finish the stream with "result" (mapped outcome) or "failed" once {@code work} completes. */
+    static <T> void completeWith(SseEmitter emitter, CompletableFuture<T> work, Function<T, Object> result) {
+        work.whenComplete((value, error) -> {
+            if (error == null) {
+                Object payload = result.apply(value);
+                send(emitter, "result", payload != null ? payload : Map.of());
+            } else {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                log.error("Streaming request failed: {}", cause.getMessage());
+                send(emitter, "failed", Map.of("error", String.valueOf(cause.getMessage())));
+            }
+            emitter.complete();
+        });
+    }
+
+    static ResponseEntity<SseEmitter> response(SseEmitter emitter) {
+        return ResponseEntity.ok().contentType(MediaType.TEXT_EVENT_STREAM).body(emitter);
+    }
+
+    private static void send(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data));
+        } catch (IOException | IllegalStateException e) {
+            // Client went away or the emitter already timed out — keep going
+            log.debug("Dropping SSE '{}' event: {}", name, e.getMessage());
+        }
+    }
+}
@@ -73,7 +73,7 @@ public class UserController {
 
     /**
      * Update username and/or password.
-     * The client must re-login after this to get a new JWT (old token stays valid until expiry).
+     * The client must re-login after this to get a new JWT (older tokens are revoked).
      */
     @PutMapping
     @Operation(summary = "Update username and password")
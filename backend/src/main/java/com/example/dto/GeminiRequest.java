@@ -1,17 +1,23 @@
 package com.example.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.util.List;
+import java.util.Map;
 
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class GeminiRequest {
     private List<Content> contents;
 
+    /** Only sent for JSON-mode requests. */
+    private GenerationConfig generationConfig;
+
     @Data
     @AllArgsConstructor
     @NoArgsConstructor
@@ -26,10 +32,25 @@ public class GeminiRequest {
         private String text;
     }
 
+    /** JSON mode: Gemini answers with bare JSON matching responseSchema (no markdown fences). */
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class GenerationConfig {
+        private String responseMimeType;
+        private Map<String, Object> responseSchema;
+    }
+
 
     public static GeminiRequest create(String prompt) {
         Part part = new Part(prompt);
         Content content = new Content(List.of(part));
-        return new GeminiRequest(List.of(content));
+        return new GeminiRequest(List.of(content), null);
+    }
+
+    public static GeminiRequest json(String prompt, Map<String, Object> responseSchema) {
+        GeminiRequest request = create(prompt);
+        request.setGenerationConfig(new GenerationConfig("application/json", responseSchema));
+        return request;
     }
-}
\ No newline at end of file
+}
@@ -18,4 +18,5 @@ public class JournalEntryDTO {
     private String motivationalThought;
     private Double sentimentScore;
     private Boolean analysisCompleted;
+    private String analysisStatus;   // PENDING | PROCESSING | COMPLETED | FAILED | SKIPPED
 }
@@ -0,0 +1,20 @@
+package com.example.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lightweight journal list row — full content, AI summary and motivational
+ * thought stay behind GET /journal/id/{id}.
+ */
+@Data
+public class JournalEntryListItemDTO {
+
+    private String id;
+    private String title;
+    private LocalDateTime date;
+    private String mood;
+    private Double sentimentScore;
+    private String contentPreview;   // first 200 code points, "…" appended when cut
+}
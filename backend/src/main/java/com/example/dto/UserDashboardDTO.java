@@ -0,0 +1,15 @@
+package com.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** GET /api/dashboard — progress and the latest weekly summary (null until one exists). */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserDashboardDTO {
+
+    private UserProgressDTO progress;
+    private WeeklySummaryDashboardDTO weeklySummary;
+}
@@ -0,0 +1,31 @@
+package com.example.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Second-tier (persistent) cache for Gemini results, so paid LLM answers
+ * survive restarts. Keyed by a hash of the normalized prompt input.
+ */
+@Document(collection = "ai_result_cache")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AiResultCacheEntry {
+
+    // "<kind>:<sha-256 of normalized input>"
+    @Id
+    private String id;
+
+    // JSON-serialized JournalAnalysis / WeeklyAiReflection
+    private String payload;
+
+    // MongoDB TTL index removes stale entries automatically. Created by GeminiResultCache
+    // from gemini.cache.mongo.ttl-hours rather than declared here, so it follows the setting.
+    private LocalDateTime createdAt;
+}
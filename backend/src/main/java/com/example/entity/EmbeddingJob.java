@@ -0,0 +1,49 @@
+package com.example.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outbox record asking for a journal entry to be (re-)embedded in the AI service.
+ *
+ * Written in the same transaction as the entry itself, so an embedding request
+ * can never be lost to a restart. One job per entry: saving the entry again while
+ * a job is outstanding just resets that job. The job holds no text — the
+ * dispatcher reads the entry's current content when it runs.
+ */
+@Document(collection = "embedding_outbox")
+@CompoundIndex(name = "status_nextAttemptAt", def = "{ 'status': 1, 'nextAttemptAt': 1 }")
+@Data
+@NoArgsConstructor
+public class EmbeddingJob {
+
+    @Id
+    private ObjectId id;
+
+    @Indexed(unique = true)
+    private ObjectId entryId;
+
+    @Indexed
+    private ObjectId userId;
+
+    private EmbeddingJobStatus status;
+
+    // Failed attempts so far
+    private int attempts;
+
+    private LocalDateTime nextAttemptAt;
+
+    // Set when the dispatcher claims the job; completion is conditional on it
+    private LocalDateTime claimedAt;
+
+    private String lastError;
+
+    private LocalDateTime createdAt;
+}
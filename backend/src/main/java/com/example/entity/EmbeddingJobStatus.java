@@ -0,0 +1,11 @@
+package com.example.entity;
+
+/**
+ * Lifecycle of an embedding outbox job (EmbeddingJob or VectorPurgeJob).
+ * Completed jobs are deleted, so there is no COMPLETED state.
+ */
+public enum EmbeddingJobStatus {
+    PENDING,      // due at nextAttemptAt
+    PROCESSING,   // claimed by the dispatcher, AI service call in flight
+    DEAD          // gave up after max attempts — needs an admin retry
+}
@@ -0,0 +1,13 @@
+package com.example.entity;
+
+/**
+ * Lifecycle of the background AI analysis for a journal entry.
+ * The UI polls this to know when mood/summary fields are ready.
+ */
+public enum JournalAnalysisStatus {
+    PENDING,      // queued — waiting for a worker
+    PROCESSING,   // claimed by a worker, Gemini call in flight
+    COMPLETED,
+    FAILED,
+    SKIPPED       // no content to analyze
+}
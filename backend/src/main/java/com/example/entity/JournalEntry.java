@@ -4,12 +4,15 @@ import lombok.Data;
 import lombok.NonNull;
 import org.bson.types.ObjectId;
 import org.springframework.data.annotation.Id;
-import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
 
 @Document(collection = "journal_entries")
+// a user's entries newest first (list, keyset pages, weekly range); also serves every userId-only query
+@CompoundIndex(name = "userId_date_id", def = "{ 'userId': 1, 'date': -1, '_id': -1 }")
 @Data
 public class JournalEntry {
 
@@ -19,9 +22,8 @@ public class JournalEntry {
     /**
      * Reference to the owning user.
      * Used for all user-scoped queries (weekly summary, etc.)
-     * INDEXED for fast user-based queries.
+     * Leading key of the userId_date_id index.
      */
-    @Indexed
     private ObjectId userId;
 
     @NonNull
@@ -42,4 +44,23 @@ public class JournalEntry {
     private Double sentimentScore;
 
     private Boolean analysisCompleted = false;
+
+    /**
+     * Background analysis state. Entries are saved as PENDING and picked up
+     * by JournalAnalysisQueue — null on entries written before the pipeline existed.
+     */
+    private JournalAnalysisStatus analysisStatus;
+
+    // when the current analysis was requested — used to detect stalled work
+    private LocalDateTime analysisRequestedAt;
+
+    // when a worker claimed it (PROCESSING) — the stuck-claim timeout runs from here
+    private LocalDateTime analysisClaimedAt;
+
+    /**
+     * Version for HTTP ETags. Set by auditing on save; direct updates
+     * (JournalAnalysisQueue, re-analysis) set it themselves. Null on entries not written since.
+     */
+    @LastModifiedDate
+    private LocalDateTime lastModifiedAt;
 }
\ No newline at end of file
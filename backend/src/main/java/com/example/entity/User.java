@@ -5,15 +5,18 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.bson.types.ObjectId;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
 import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.List;
 
 @Document(collection = "users")
+// weekly summary cron: users opted in for today's delivery day
+@CompoundIndex(name = "weeklySummaryDay_enabled",
+        def = "{ 'preferences.weeklySummaryDay': 1, 'preferences.weeklySummaryEnabled': 1 }")
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -42,19 +45,25 @@ public class User {
     private List<String> roles;
 
     /**
-     * List of ObjectId references to this user's journal entries.
-     * REMOVED @DBRef — that caused N+1 queries by eager-loading every entry.
-     * Entries are now queried directly from journal_entries collection using userId field.
-     *
-     * We keep this list as a lightweight reference cache (ObjectIds only, not full documents).
+     * Legacy list of this user's journal entry IDs.
+     * No longer written or used for ownership — entries are owned via JournalEntry.userId.
+     * Only read by JournalEntryMigrationService to backfill userId; removed from stored
+     * documents by JournalEntryIdsCleanupMigration once that backfill is complete.
      */
-    private List<ObjectId> journalEntryIds = new ArrayList<>();
+    @Deprecated
+    private List<ObjectId> journalEntryIds;
 
     /**
      * Embedded preferences document (not a separate collection).
      */
     private UserPreferences preferences = new UserPreferences();
 
+    /**
+     * Embedded in every JWT as the "ver" claim. Bumped on credential changes —
+     * tokens carrying an older version are rejected by TokenRevocationCache.
+     */
+    private long tokenVersion;
+
     /**
      * Used for cron idempotency — prevents generating duplicate weekly summaries.
      */
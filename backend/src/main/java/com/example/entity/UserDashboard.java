@@ -0,0 +1,38 @@
+package com.example.entity;
+
+import com.example.dto.UserProgressDTO;
+import com.example.dto.WeeklySummaryDashboardDTO;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Materialized dashboard read model — one document per user, keyed by userId,
+ * so the dashboard is a single _id lookup.
+ *
+ * Stores the views exactly as served. Maintained by UserDashboardProjector
+ * from write-side events; user_progress and weekly_summaries stay the source of truth.
+ */
+@Document(collection = "user_dashboards")
+@Data
+@NoArgsConstructor
+public class UserDashboard {
+
+    @Id
+    private ObjectId userId;
+
+    // stored streak — the read applies the time-based streak break
+    private UserProgressDTO progress;
+
+    // latest weekly summary, null until the first one is generated
+    private WeeklySummaryDashboardDTO weeklySummary;
+
+    // ETag version — set by auditing on save, by hand on partial updates
+    @LastModifiedDate
+    private LocalDateTime lastModifiedAt;
+}
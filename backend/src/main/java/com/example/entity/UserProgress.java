@@ -5,9 +5,13 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.bson.types.ObjectId;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDate;
+import java.util.List;
 
 @Document(collection = "user_progress")
 @Data
@@ -18,7 +22,8 @@ public class UserProgress {
     @Id
     private ObjectId id;
 
-    // reference to User
+    // reference to User — exactly one progress document per user
+    @Indexed(name = "userId_unique", unique = true)
     private ObjectId userId;
 
     // streak tracking
@@ -34,4 +39,17 @@ public class UserProgress {
     // counters
     private int weeklyEntryCount = 0;
     private int totalEntries = 0;
+
+    // distinct entry days inside the rolling 7-day window (backs weeklyEntryCount);
+    // null on documents written before incremental tracking — triggers a one-off rebuild
+    private List<LocalDate> recentEntryDates;
+
+    // optimistic lock — a stale read-modify-write fails instead of losing an update;
+    // backfilled to 0 on legacy documents by UserProgressVersionMigration
+    @Version
+    private Long version;
+
+    // ETag version for GET /api/dashboard/progress — set by auditing on save
+    @LastModifiedDate
+    private java.time.LocalDateTime lastModifiedAt;
 }
@@ -0,0 +1,47 @@
+package com.example.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Outbox record asking the AI service to delete a deleted user's entry vectors.
+ *
+ * Written in the same transaction that deletes the user, so the purge only ever
+ * runs for a deletion that committed, and a restart cannot lose it. The entry ids
+ * are stored because the entries themselves are gone by the time the job runs;
+ * a heavy user gets one job per purge batch.
+ */
+@Document(collection = "vector_purge_outbox")
+@CompoundIndex(name = "status_nextAttemptAt", def = "{ 'status': 1, 'nextAttemptAt': 1 }")
+@Data
+@NoArgsConstructor
+public class VectorPurgeJob {
+
+    @Id
+    private ObjectId id;
+
+    private ObjectId userId;
+
+    private List<String> entryIds;
+
+    private EmbeddingJobStatus status;
+
+    // Failed attempts so far
+    private int attempts;
+
+    private LocalDateTime nextAttemptAt;
+
+    // Set when the dispatcher claims the job; completion is conditional on it
+    private LocalDateTime claimedAt;
+
+    private String lastError;
+
+    private LocalDateTime createdAt;
+}
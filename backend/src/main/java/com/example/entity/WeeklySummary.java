@@ -5,12 +5,18 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.bson.types.ObjectId;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Document(collection = "weekly_summaries")
+// latest summary per user (dashboard, once-per-day check)
+@CompoundIndex(name = "userId_generatedAt", def = "{ 'userId': 1, 'generatedAt': -1 }")
+// delivery retry sweep: status + generatedAt window
+@CompoundIndex(name = "deliveryStatus_generatedAt", def = "{ 'deliveryStatus': 1, 'generatedAt': 1 }")
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -34,9 +40,15 @@ public class WeeklySummary {
 
     // delivery handling
     private WeeklySummaryDeliveryStatus deliveryStatus;
+    private int emailAttempts;               // sends handed to the email executor so far
+    private LocalDateTime emailAttemptAt;    // when the latest one was claimed
 
     // timestamps
     private LocalDateTime generatedAt;
     private String trend;        // IMPROVING | DECLINING | MIXED
     private String suggestion;   // one emotional suggestion
+
+    // ETag version for GET /api/dashboard/weekly-summary — set by auditing on save
+    @LastModifiedDate
+    private LocalDateTime lastModifiedAt;
 }
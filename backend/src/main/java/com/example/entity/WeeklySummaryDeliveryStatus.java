@@ -3,5 +3,6 @@ package com.example.entity;
 public enum WeeklySummaryDeliveryStatus {
     DASHBOARD_ONLY,
     EMAIL_PENDING,
-    SENT
+    SENT,
+    EMAIL_FAILED   // gave up after email.delivery.max-attempts sends
 }
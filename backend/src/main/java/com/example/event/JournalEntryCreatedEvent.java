@@ -0,0 +1,7 @@
+package com.example.event;
+
+import org.bson.types.ObjectId;
+
+/** Published by JournalEntryService.saveEntry; delivered after the entry's transaction commits. */
+public record JournalEntryCreatedEvent(ObjectId userId, ObjectId entryId) {
+}
@@ -0,0 +1,7 @@
+package com.example.event;
+
+import org.bson.types.ObjectId;
+
+/** Published by JournalEntryService.deleteById; delivered after the delete commits. */
+public record JournalEntryDeletedEvent(ObjectId userId, ObjectId entryId) {
+}
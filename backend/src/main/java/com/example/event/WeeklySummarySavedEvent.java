@@ -0,0 +1,8 @@
+package com.example.event;
+
+import com.example.entity.WeeklySummary;
+import org.bson.types.ObjectId;
+
+/** Published by WeeklySummaryCommandService once a new summary is saved — it is now the user's latest. */
+public record WeeklySummarySavedEvent(ObjectId userId, WeeklySummary summary) {
+}
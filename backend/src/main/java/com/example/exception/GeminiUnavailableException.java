@@ -0,0 +1,13 @@
+package com.example.exception;
+
+/**
+ * Thrown when a Gemini call is rejected locally — circuit breaker open or
+ * concurrency limit reached — instead of waiting on a struggling provider.
+ * Callers treat it like any other Gemini failure and use their fallback.
+ */
+public class GeminiUnavailableException extends RuntimeException {
+
+    public GeminiUnavailableException(String reason) {
+        super("Gemini unavailable: " + reason);
+    }
+}
@@ -1,7 +1,9 @@
 package com.example.mapper;
 
 import com.example.dto.JournalEntryDTO;
+import com.example.dto.JournalEntryListItemDTO;
 import com.example.entity.JournalEntry;
+import com.example.repository.JournalEntryRepository;
 import org.springframework.stereotype.Component;
 
 /**
@@ -27,6 +29,36 @@ public class JournalEntryMapper {
         dto.setMotivationalThought(entry.getMotivationalThought());
         dto.setSentimentScore(entry.getSentimentScore());
         dto.setAnalysisCompleted(entry.getAnalysisCompleted());
+        if (entry.getAnalysisStatus() != null) {
+            dto.setAnalysisStatus(entry.getAnalysisStatus().name());
+        }
         return dto;
     }
+
+    /**
+     * Map a list-projected entry (see JournalEntryRepository.LIST_ITEM_FIELDS) to a list item.
+     * The projected content is at most one code point longer than the preview; that extra
+     * code point only signals truncation and is replaced with an ellipsis.
+     */
+    public JournalEntryListItemDTO toListItemDTO(JournalEntry entry) {
+        JournalEntryListItemDTO dto = new JournalEntryListItemDTO();
+        dto.setId(entry.getId().toHexString());
+        dto.setTitle(entry.getTitle());
+        dto.setDate(entry.getDate());
+        dto.setMood(entry.getMood());
+        dto.setSentimentScore(entry.getSentimentScore());
+        dto.setContentPreview(preview(entry.getContent()));
+        return dto;
+    }
+
+    private static String preview(String content) {
+        if (content == null || content.isEmpty()) {
+            return null;
+        }
+        int limit = JournalEntryRepository.CONTENT_PREVIEW_LENGTH;
+        if (content.codePointCount(0, content.length()) <= limit) {
+            return content;
+        }
+        return content.substring(0, content.offsetByCodePoints(0, limit)) + "…";
+    }
 }
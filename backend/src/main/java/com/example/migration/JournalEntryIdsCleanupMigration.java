@@ -0,0 +1,66 @@
+package com.example.migration;
+
+import com.example.entity.JournalEntry;
+import com.example.entity.User;
+import com.mongodb.client.result.UpdateResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+/**
+ * One-time migration: retire the embedded User.journalEntryIds array.
+ *
+ * Ownership is now checked with an indexed {_id, userId} query on journal_entries,
+ * so the array is dead weight that is deserialized on every user lookup and grows
+ * without bound for prolific writers.
+ *
+ * The migration:
+ * 1. Runs on startup, after JournalEntryMigrationService (which still reads the array)
+ * 2. Does nothing while any journal entry is still missing userId — the array is the
+ *    only ownership record for those entries
+ * 3. Otherwise $unsets journalEntryIds from every user document that still has it
+ *
+ * Safe to run multiple times (idempotent — only touches documents that still have the field).
+ */
+@Component
+@Slf4j
+public class JournalEntryIdsCleanupMigration {
+
+    private final MongoTemplate mongoTemplate;
+
+    public JournalEntryIdsCleanupMigration(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(2)
+    public void removeJournalEntryIdsFromUsers() {
+
+        long unmigrated = mongoTemplate.count(
+                Query.query(Criteria.where("userId").exists(false)),
+                JournalEntry.class
+        );
+
+        if (unmigrated > 0) {
+            log.warn("Migration: {} journal entries still lack userId — keeping User.journalEntryIds for now.",
+                    unmigrated);
+            return;
+        }
+
+        UpdateResult result = mongoTemplate.updateMulti(
+                Query.query(Criteria.where("journalEntryIds").exists(true)),
+                new Update().unset("journalEntryIds"),
+                User.class
+        );
+
+        if (result.getModifiedCount() > 0) {
+            log.info("Migration: removed journalEntryIds from {} user document(s).", result.getModifiedCount());
+        }
+    }
+}
@@ -8,6 +8,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.bson.types.ObjectId;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
@@ -50,6 +51,8 @@ public class JournalEntryMigrationService {
     }
 
     @EventListener(ApplicationReadyEvent.class)
+    @Order(1)   // before JournalEntryIdsCleanupMigration drops the source list
+    @SuppressWarnings("deprecation")
     public void backfillUserIdOnJournalEntries() {
 
         // Quick check: count entries still missing userId
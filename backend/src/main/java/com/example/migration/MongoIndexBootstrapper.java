@@ -0,0 +1,149 @@
+package com.example.migration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver.IndexDefinitionHolder;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Startup task: create the indexes declared on our @Document entities
+ * (@Indexed / @CompoundIndex), then verify they exist.
+ *
+ * Spring Boot leaves auto-index-creation off, so the annotations used to be
+ * documentation only — "a user's entries, newest first" ran as a collection
+ * scan plus an in-memory sort.
+ *
+ * The bootstrap:
+ * 1. Runs on startup, before the data migrations
+ * 2. Resolves every declared index from the entity annotations
+ * 3. Creates each one — existing identical indexes are a no-op
+ * 4. Logs (and remembers) any index that could not be built, e.g. a unique
+ *    index over existing duplicates, instead of failing startup
+ * 5. Re-reads the collections' indexes and warns about any still missing
+ *
+ * The current state, including unused indexes, is served by MongoIndexEndpoint.
+ */
+@Component
+@Slf4j
+public class MongoIndexBootstrapper {
+
+    private final MongoTemplate mongoTemplate;
+    private final MongoMappingContext mappingContext;
+    private final boolean enabled;
+
+    // collection → key signature → error, from the last bootstrap run
+    private final Map<String, Map<String, String>> failures = new ConcurrentHashMap<>();
+
+    public MongoIndexBootstrapper(MongoTemplate mongoTemplate,
+                                  MongoMappingContext mappingContext,
+                                  @Value("${mongo.indexes.bootstrap.enabled:true}") boolean enabled) {
+        this.mongoTemplate = mongoTemplate;
+        this.mappingContext = mappingContext;
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(0)   // migrations and recovery sweeps query by these indexes
+    public void ensureIndexes() {
+        if (!enabled) {
+            log.info("Mongo index bootstrap disabled");
+            return;
+        }
+
+        failures.clear();
+        Map<String, List<IndexDefinitionHolder>> declared = declaredIndexes();
+        for (Map.Entry<String, List<IndexDefinitionHolder>> entry : declared.entrySet()) {
+            String collection = entry.getKey();
+            IndexOperations indexOps = mongoTemplate.indexOps(collection);
+            for (IndexDefinitionHolder index : entry.getValue()) {
+                try {
+                    indexOps.ensureIndex(index);
+                } catch (RuntimeException e) {
+                    failures.computeIfAbsent(collection, c -> new ConcurrentHashMap<>())
+                            .put(signature(index.getIndexKeys()), String.valueOf(e.getMessage()));
+                    log.error("Could not create index {} on {}: {}", index.getIndexKeys(), collection, e.getMessage());
+                }
+            }
+        }
+
+        Map<String, List<String>> missing = missingIndexes(declared);
+        if (missing.isEmpty()) {
+            log.info("Mongo indexes verified: {} declared across {} collections",
+                    declared.values().stream().mapToInt(List::size).sum(), declared.size());
+        } else {
+            log.warn("Mongo indexes missing after bootstrap: {}", missing);
+        }
+    }
+
+    /** Indexes declared on the entity classes, grouped by collection. */
+    public Map<String, List<IndexDefinitionHolder>> declaredIndexes() {
+        MongoPersistentEntityIndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+        Map<String, List<IndexDefinitionHolder>> declared = new TreeMap<>();
+        for (MongoPersistentEntity<?> entity : mappingContext.getPersistentEntities()) {
+            // embedded types (UserPreferences, ...) have no collection of their own
+            if (!entity.isAnnotationPresent(org.springframework.data.mongodb.core.mapping.Document.class)) {
+                continue;
+            }
+            for (IndexDefinitionHolder index : resolver.resolveIndexForEntity(entity)) {
+                declared.computeIfAbsent(index.getCollection(), c -> new ArrayList<>()).add(index);
+            }
+        }
+        return declared;
+    }
+
+    /** The collection's indexes as returned by listIndexes ({name, key, ...}). */
+    public List<Document> existingIndexes(String collection) {
+        return mongoTemplate.getCollection(collection).listIndexes().into(new ArrayList<>());
+    }
+
+    /** Creation errors from the last bootstrap run, by key signature. */
+    public Map<String, String> failures(String collection) {
+        return failures.getOrDefault(collection, Map.of());
+    }
+
+    /**
+     * Key pattern in MongoDB's default index-name form, e.g. userId_1_date_-1.
+     * Declared and existing indexes are matched on this, not on name.
+     */
+    public static String signature(Document keys) {
+        StringJoiner joiner = new StringJoiner("_");
+        keys.forEach((field, direction) -> joiner.add(field)
+                .add(direction instanceof Number n ? String.valueOf(n.intValue()) : String.valueOf(direction)));
+        return joiner.toString();
+    }
+
+    private Map<String, List<String>> missingIndexes(Map<String, List<IndexDefinitionHolder>> declared) {
+        Map<String, List<String>> missing = new TreeMap<>();
+        declared.forEach((collection, indexes) -> {
+            Set<String> existing = existingIndexes(collection).stream()
+                    .map(index -> signature(index.get("key", Document.class)))
+                    .collect(Collectors.toSet());
+            List<String> absent = indexes.stream()
+                    .map(index -> signature(index.getIndexKeys()))
+                    .filter(signature -> !existing.contains(signature))
+                    .toList();
+            if (!absent.isEmpty()) {
+                missing.put(collection, absent);
+            }
+        });
+        return missing;
+    }
+}
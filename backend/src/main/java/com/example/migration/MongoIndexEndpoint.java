@@ -0,0 +1,130 @@
+package com.example.migration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver.IndexDefinitionHolder;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Actuator endpoint: GET /actuator/mongoindexes
+ * Per collection: declared indexes (PRESENT / MISSING / FAILED), indexes that exist
+ * but are not declared, and unused indexes from $indexStats.
+ *
+ * $indexStats counters are per node and reset when mongod restarts — check "since"
+ * before dropping an index reported as unused.
+ * Expose with management.endpoints.web.exposure.include=health,mongoindexes
+ */
+@Component
+@Endpoint(id = "mongoindexes")
+@Slf4j
+public class MongoIndexEndpoint {
+
+    private static final String ID_INDEX = "_id_";
+
+    private final MongoIndexBootstrapper bootstrapper;
+    private final MongoTemplate mongoTemplate;
+
+    public MongoIndexEndpoint(MongoIndexBootstrapper bootstrapper, MongoTemplate mongoTemplate) {
+        this.bootstrapper = bootstrapper;
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @ReadOperation
+    public Map<String, Object> report() {
+        Map<String, Object> collections = new LinkedHashMap<>();
+        int missingCount = 0;
+        int unusedCount = 0;
+
+        for (Map.Entry<String, List<IndexDefinitionHolder>> entry : bootstrapper.declaredIndexes().entrySet()) {
+            String collection = entry.getKey();
+            Map<String, String> existing = new LinkedHashMap<>();   // signature → name
+            for (Document index : bootstrapper.existingIndexes(collection)) {
+                existing.put(MongoIndexBootstrapper.signature(index.get("key", Document.class)), index.getString("name"));
+            }
+            Map<String, String> failures = bootstrapper.failures(collection);
+
+            List<Map<String, Object>> declared = new ArrayList<>();
+            Set<String> declaredSignatures = new HashSet<>();
+            for (IndexDefinitionHolder index : entry.getValue()) {
+                String signature = MongoIndexBootstrapper.signature(index.getIndexKeys());
+                declaredSignatures.add(signature);
+
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("key", signature);
+                if (existing.containsKey(signature)) {
+                    row.put("name", existing.get(signature));
+                    row.put("status", "PRESENT");
+                } else if (failures.containsKey(signature)) {
+                    row.put("status", "FAILED");
+                    row.put("error", failures.get(signature));
+                    missingCount++;
+                } else {
+                    row.put("status", "MISSING");
+                    missingCount++;
+                }
+                declared.add(row);
+            }
+
+            List<String> undeclared = existing.entrySet().stream()
+                    .filter(e -> !declaredSignatures.contains(e.getKey()) && !ID_INDEX.equals(e.getValue()))
+                    .map(Map.Entry::getValue)
+                    .toList();
+
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("declared", declared);
+            body.put("undeclared", undeclared);
+
+            Map<String, Map<String, Object>> usage = indexUsage(collection);
+            if (usage != null) {
+                List<String> unused = usage.entrySet().stream()
+                        .filter(e -> !ID_INDEX.equals(e.getKey()) && (long) e.getValue().get("ops") == 0)
+                        .map(Map.Entry::getKey)
+                        .toList();
+                unusedCount += unused.size();
+                body.put("usage", usage);
+                body.put("unused", unused);
+            } else {
+                body.put("usage", "unavailable");
+            }
+            collections.put(collection, body);
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("missing", missingCount);
+        report.put("unused", unusedCount);
+        report.put("collections", collections);
+        return report;
+    }
+
+    /** name → {ops, since} from $indexStats, or null if the user may not run it. */
+    private Map<String, Map<String, Object>> indexUsage(String collection) {
+        try {
+            Map<String, Map<String, Object>> usage = new LinkedHashMap<>();
+            List<Document> stats = mongoTemplate.getCollection(collection)
+                    .aggregate(List.of(new Document("$indexStats", new Document())))
+                    .into(new ArrayList<>());
+            for (Document stat : stats) {
+                Document accesses = stat.get("accesses", Document.class);
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("ops", accesses != null && accesses.get("ops") instanceof Number n ? n.longValue() : 0L);
+                row.put("since", accesses != null && accesses.getDate("since") != null
+                        ? accesses.getDate("since").toInstant().toString() : null);
+                usage.put(stat.getString("name"), row);
+            }
+            return usage;
+        } catch (RuntimeException e) {
+            log.warn("$indexStats failed on {}: {}", collection, e.getMessage());
+            return null;
+        }
+    }
+}
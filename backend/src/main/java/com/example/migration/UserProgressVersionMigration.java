@@ -0,0 +1,48 @@
+package com.example.migration;
+
+import com.example.entity.UserProgress;
+import com.mongodb.client.result.UpdateResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+/**
+ * One-time migration: give every UserProgress document a version.
+ *
+ * UserProgress is saved with optimistic locking (@Version). Spring Data treats a
+ * document whose version is null as new and inserts it, which would fail with a
+ * duplicate key for progress written before the field existed — so those
+ * documents are stamped with version 0 up front.
+ *
+ * Safe to run multiple times (idempotent — only touches documents without the field).
+ */
+@Component
+@Slf4j
+public class UserProgressVersionMigration {
+
+    private final MongoTemplate mongoTemplate;
+
+    public UserProgressVersionMigration(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(3)
+    public void backfillVersion() {
+        UpdateResult result = mongoTemplate.updateMulti(
+                Query.query(Criteria.where("version").exists(false)),
+                new Update().set("version", 0L),
+                UserProgress.class
+        );
+
+        if (result.getModifiedCount() > 0) {
+            log.info("Migration: set version on {} user progress document(s).", result.getModifiedCount());
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.repository;
+
+import com.example.entity.AiResultCacheEntry;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface AiResultCacheRepository extends MongoRepository<AiResultCacheEntry, String> {
+}
@@ -5,14 +5,77 @@ import org.bson.types.ObjectId;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface JournalEntryRepository extends MongoRepository<JournalEntry, ObjectId> {
 
+    /** Code points of content kept by the list projection. */
+    int CONTENT_PREVIEW_LENGTH = 200;
+
+    /**
+     * List-view projection: no aiSummary / motivationalThought / emotions, and content cut
+     * down server-side to one code point past the preview length (so callers can tell it was
+     * truncated). Needs MongoDB 4.4+ for the expression in a find projection.
+     */
+    String LIST_ITEM_FIELDS = "{ 'title': 1, 'date': 1, 'mood': 1, 'sentimentScore': 1, "
+            + "'content': { '$substrCP': [ '$content', 0, " + (CONTENT_PREVIEW_LENGTH + 1) + " ] } }";
+
     /** Find all entries belonging to a specific user (paginated). */
     Page<JournalEntry> findByUserIdOrderByDateDesc(ObjectId userId, Pageable pageable);
 
-    /** Find all entries belonging to a specific user (unpaginated — for weekly summary). */
-    List<JournalEntry> findByUserId(ObjectId userId);
+    /**
+     * First page of the keyset listing, newest first. Returns a List, so no count query runs;
+     * pass the page size (plus one to detect a next page) via Pageable.
+     */
+    List<JournalEntry> findByUserIdOrderByDateDescIdDesc(ObjectId userId, Pageable pageable);
+
+    /**
+     * Keyset page: entries strictly after (date, id) in newest-first order.
+     * Seeks straight into the userId_date_id index — cost does not grow with page depth.
+     */
+    @Query(value = "{ 'userId': ?0, '$or': [ { 'date': { '$lt': ?1 } }, { 'date': ?1, '_id': { '$lt': ?2 } } ] }",
+            sort = "{ 'date': -1, '_id': -1 }")
+    List<JournalEntry> findByUserIdAfterCursor(ObjectId userId, LocalDateTime date, ObjectId id, Pageable pageable);
+
+    long countByUserId(ObjectId userId);
+
+    /** Offset page of list items (LIST_ITEM_FIELDS); sort comes from the Pageable. */
+    @Query(value = "{ 'userId': ?0 }", fields = LIST_ITEM_FIELDS)
+    Page<JournalEntry> findListItemsByUserId(ObjectId userId, Pageable pageable);
+
+    /** First keyset page of list items — see findByUserIdOrderByDateDescIdDesc. */
+    @Query(value = "{ 'userId': ?0 }", fields = LIST_ITEM_FIELDS, sort = "{ 'date': -1, '_id': -1 }")
+    List<JournalEntry> findListItemsByUserIdNewestFirst(ObjectId userId, Pageable pageable);
+
+    /** Keyset page of list items after (date, id) — see findByUserIdAfterCursor. */
+    @Query(value = "{ 'userId': ?0, '$or': [ { 'date': { '$lt': ?1 } }, { 'date': ?1, '_id': { '$lt': ?2 } } ] }",
+            fields = LIST_ITEM_FIELDS, sort = "{ 'date': -1, '_id': -1 }")
+    List<JournalEntry> findListItemsByUserIdAfterCursor(ObjectId userId, LocalDateTime date, ObjectId id,
+                                                       Pageable pageable);
+
+    /**
+     * Ownership-scoped lookup: resolved through the _id index, then matched on userId.
+     * Returns empty when the entry does not exist OR belongs to someone else.
+     */
+    Optional<JournalEntry> findByIdAndUserId(ObjectId id, ObjectId userId);
+
+    boolean existsByIdAndUserId(ObjectId id, ObjectId userId);
+
+    /** @return number of entries deleted — 0 when not found or not owned */
+    long deleteByIdAndUserId(ObjectId id, ObjectId userId);
+
+    /** Entry dates only — used by the progress rebuild so it never loads entry content. */
+    @Query(value = "{ 'userId': ?0 }", fields = "{ 'date': 1 }")
+    List<JournalEntry> findDatesByUserId(ObjectId userId);
+
+    /** Entry ids only — collected before account deletion so the vectors can be purged. */
+    @Query(value = "{ 'userId': ?0 }", fields = "{ '_id': 1 }")
+    List<JournalEntry> findIdsByUserId(ObjectId userId);
+
+    /** Single deleteMany on userId. @return number of entries deleted */
+    long deleteByUserId(ObjectId userId);
 }
\ No newline at end of file
@@ -0,0 +1,9 @@
+package com.example.repository;
+
+import com.example.entity.UserDashboard;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+/** Keyed by userId — findById is the whole dashboard read. */
+public interface UserDashboardRepository extends MongoRepository<UserDashboard, ObjectId> {
+}
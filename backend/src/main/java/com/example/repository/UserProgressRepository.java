@@ -10,4 +10,6 @@ public interface UserProgressRepository
         extends MongoRepository<UserProgress, ObjectId> {
 
     Optional<UserProgress> findByUserId(ObjectId userId);
+
+    long deleteByUserId(ObjectId userId);
 }
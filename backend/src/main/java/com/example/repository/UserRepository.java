@@ -2,15 +2,37 @@ package com.example.repository;
 
 import com.example.entity.User;
 import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.repository.Meta;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
 
-import java.util.List;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface UserRepository extends MongoRepository<User, ObjectId> {
 
     User findByUserName(String userName);
 
     boolean deleteByUserName(String userName);
-    List<User> findByPreferencesWeeklySummaryEnabledTrueAndPreferencesWeeklySummaryDay(Integer day);
 
+    /**
+     * Cursor over users due a weekly summary on the given day, fetched in batches.
+     * Lean projection — no password hash, roles or journalEntryIds. The returned
+     * users are partial: never pass them to save().
+     */
+    @Meta(cursorBatchSize = 100)
+    @Query(value = "{ 'preferences.weeklySummaryEnabled': true, 'preferences.weeklySummaryDay': ?0 }",
+           fields = "{ 'username': 1, 'email': 1, 'preferences': 1, 'lastWeeklySummaryDate': 1 }")
+    Stream<User> streamUsersForWeeklySummary(Integer day);
+
+    /** Only _id and tokenVersion — used by the JWT revocation check. */
+    @Query(value = "{ '_id': ?0 }", fields = "{ 'tokenVersion': 1 }")
+    Optional<User> findTokenVersionById(ObjectId userId);
+
+    /** Stamp the cron idempotency date without rewriting the rest of the document. */
+    @Query("{ '_id': ?0 }")
+    @Update("{ '$set': { 'lastWeeklySummaryDate': ?1 } }")
+    long updateLastWeeklySummaryDate(ObjectId userId, LocalDate date);
 }
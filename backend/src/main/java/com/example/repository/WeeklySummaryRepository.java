@@ -13,6 +13,9 @@ public interface WeeklySummaryRepository
     /** Get the most recent summary for the dashboard widget. */
     Optional<WeeklySummary> findTopByUserIdOrderByGeneratedAtDesc(ObjectId userId);
 
-    /** Get all summaries for a user (used for cascade delete). */
+    /** Get all summaries for a user. */
     List<WeeklySummary> findAllByUserId(ObjectId userId);
+
+    /** Single deleteMany on userId (cascade delete). @return number of summaries deleted */
+    long deleteByUserId(ObjectId userId);
 }
@@ -0,0 +1,67 @@
+package com.example.resilience;
+
+/**
+ * AIMD (additive-increase / multiplicative-decrease) concurrency limiter.
+ *
+ * Callers that cannot get a permit are rejected immediately instead of queueing
+ * behind a slow dependency. The limit grows by ~1 per "limit" fast successes and
+ * is cut by backoffRatio whenever a call fails or is slower than latencyThreshold,
+ * so in-flight calls shrink automatically during a provider brownout.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long latencyThresholdNanos;
+
+    private double limit;
+    private int inFlight;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit,
+                                      double backoffRatio, long latencyThresholdNanos) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyThresholdNanos = latencyThresholdNanos;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    public synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    /**
+     * Return a permit and feed the outcome back into the limit.
+     *
+     * @param latencyNanos how long the call took
+     * @param failed       true if the call errored or timed out
+     */
+    public synchronized void release(long latencyNanos, boolean failed) {
+        inFlight = Math.max(0, inFlight - 1);
+
+        if (failed || latencyNanos > latencyThresholdNanos) {
+            limit = Math.max(minLimit, limit * backoffRatio);
+        } else if (inFlight + 1 >= (int) limit) {
+            // Only grow when the limit was actually the constraint
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+
+    /** Return a permit without adjusting the limit (call never reached the dependency). */
+    public synchronized void releaseUnused() {
+        inFlight = Math.max(0, inFlight - 1);
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+}
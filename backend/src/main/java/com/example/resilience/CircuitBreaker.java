@@ -0,0 +1,104 @@
+package com.example.resilience;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Minimal consecutive-failure circuit breaker.
+ *
+ * CLOSED    — calls flow; N consecutive failures trip it OPEN.
+ * OPEN      — calls are rejected immediately until the open window elapses.
+ * HALF_OPEN — exactly one probe call is let through; success closes the
+ *             breaker, failure re-opens it for another window.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final Duration openDuration;
+    private final Clock clock;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private Instant openedAt;
+    private boolean probeInFlight;
+
+    public CircuitBreaker(int failureThreshold, Duration openDuration) {
+        this(failureThreshold, openDuration, Clock.systemUTC());
+    }
+
+    public CircuitBreaker(int failureThreshold, Duration openDuration, Clock clock) {
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+        this.clock = clock;
+    }
+
+    /** @return true if the caller may proceed; must be followed by onSuccess/onFailure/release */
+    public synchronized boolean tryAcquirePermission() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (clock.instant().isBefore(openedAt.plus(openDuration))) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                probeInFlight = true;
+                return true;
+            case HALF_OPEN:
+            default:
+                if (probeInFlight) {
+                    return false;
+                }
+                probeInFlight = true;
+                return true;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        probeInFlight = false;
+        state = State.CLOSED;
+    }
+
+    public synchronized void onFailure() {
+        probeInFlight = false;
+        if (state == State.HALF_OPEN) {
+            trip();
+            return;
+        }
+        if (++consecutiveFailures >= failureThreshold) {
+            trip();
+        }
+    }
+
+    /** Give back a permission that was never used (e.g. rejected by another guard). */
+    public synchronized void release() {
+        probeInFlight = false;
+    }
+
+    /** True unless the breaker is OPEN and still inside its open window. */
+    public synchronized boolean isCallPermitted() {
+        return state != State.OPEN || !clock.instant().isBefore(openedAt.plus(openDuration));
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    public synchronized Instant getOpenedAt() {
+        return openedAt;
+    }
+
+    private void trip() {
+        state = State.OPEN;
+        openedAt = clock.instant();
+        consecutiveFailures = 0;
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.resilience;
+
+import com.example.exception.GeminiUnavailableException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Protects outbound Gemini calls with a global rate limit, a circuit breaker
+ * and an adaptive concurrency limit.
+ *
+ * When Gemini is slow, request threads used to pile up in RestTemplate for the
+ * full 30s read timeout and exhaust Tomcat's pool. With this guard, calls beyond
+ * the current limit — or any call while the breaker is open — fail fast with
+ * GeminiUnavailableException, and callers drop to their existing fallback.
+ * The rate limiter keeps parallel batch work (weekly summaries) under the
+ * provider's requests-per-minute quota; calls wait for a slot up to max-wait,
+ * on a timer rather than a sleeping thread.
+ */
+@Component
+@Slf4j
+public class GeminiGuard {
+
+    private final CircuitBreaker circuitBreaker;
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final RateLimiter rateLimiter;
+    private final Duration rateLimitMaxWait;
+
+    public GeminiGuard(@Value("${gemini.circuit-breaker.failure-threshold:5}") int failureThreshold,
+                       @Value("${gemini.circuit-breaker.open-duration-ms:30000}") long openDurationMs,
+                       @Value("${gemini.limiter.initial-limit:10}") int initialLimit,
+                       @Value("${gemini.limiter.min-limit:1}") int minLimit,
+                       @Value("${gemini.limiter.max-limit:20}") int maxLimit,
+                       @Value("${gemini.limiter.latency-threshold-ms:10000}") long latencyThresholdMs,
+                       @Value("${gemini.rate-limit.requests-per-minute:60}") int requestsPerMinute,
+                       @Value("${gemini.rate-limit.burst:5}") int burst,
+                       @Value("${gemini.rate-limit.max-wait-ms:30000}") long rateLimitMaxWaitMs) {
+        this.circuitBreaker = new CircuitBreaker(failureThreshold, Duration.ofMillis(openDurationMs));
+        this.limiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, 0.75,
+                Duration.ofMillis(latencyThresholdMs).toNanos());
+        this.rateLimiter = new RateLimiter(requestsPerMinute / 60.0, burst);
+        this.rateLimitMaxWait = Duration.ofMillis(rateLimitMaxWaitMs);
+    }
+
+    /**
+     * Run a Gemini call under the rate limit, breaker and limiter.
+     *
+     * The rate-limit slot is reserved up front and waited for on a timer instead
+     * of a sleeping thread; breaker and limiter permits are held until the
+     * returned future completes. A call the breaker or limiter rejects once its
+     * slot arrives hands the slot back, so shed calls do not eat into the quota.
+     * Local rejections complete the future with GeminiUnavailableException.
+     */
+    public <T> CompletableFuture<T> executeAsync(Supplier<CompletableFuture<T>> call) {
+        if (!circuitBreaker.isCallPermitted()) {
+            return CompletableFuture.failedFuture(new GeminiUnavailableException("circuit breaker open"));
+        }
+        long waitNanos = rateLimiter.reserve(rateLimitMaxWait.toNanos());
+        if (waitNanos < 0) {
+            return CompletableFuture.failedFuture(new GeminiUnavailableException(
+                    "rate limit wait exceeded " + rateLimitMaxWait.toMillis() + "ms"));
+        }
+
+        CompletableFuture<Void> slot = waitNanos == 0
+                ? CompletableFuture.completedFuture(null)
+                : CompletableFuture.runAsync(() -> { },
+                        CompletableFuture.delayedExecutor(waitNanos, TimeUnit.NANOSECONDS));
+
+        return slot.thenCompose(ignored -> {
+            try {
+                acquire();
+            } catch (GeminiUnavailableException e) {
+                rateLimiter.refund();
+                throw e;
+            }
+            long start = System.nanoTime();
+            CompletableFuture<T> result;
+            try {
+                result = call.get();
+            } catch (RuntimeException e) {
+                release(start, true);
+                throw e;
+            }
+            return result.whenComplete((value, error) -> release(start, error != null));
+        });
+    }
+
+    /** Take a breaker permission and a concurrency slot, or fail fast. */
+    private void acquire() {
+        if (!circuitBreaker.tryAcquirePermission()) {
+            throw new GeminiUnavailableException("circuit breaker open");
+        }
+        if (!limiter.tryAcquire()) {
+            circuitBreaker.release();
+            throw new GeminiUnavailableException("concurrency limit " + limiter.getLimit() + " reached");
+        }
+    }
+
+    private void release(long startNanos, boolean failed) {
+        limiter.release(System.nanoTime() - startNanos, failed);
+        CircuitBreaker.State before = circuitBreaker.getState();
+        if (failed) {
+            circuitBreaker.onFailure();
+        } else {
+            circuitBreaker.onSuccess();
+        }
+        CircuitBreaker.State after = circuitBreaker.getState();
+        if (before != after) {
+            log.warn("Gemini circuit breaker {} → {}", before, after);
+        }
+    }
+
+    /** Cheap pre-check for background work that would rather wait than use a fallback. */
+    public boolean isAvailable() {
+        return circuitBreaker.isCallPermitted();
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public AdaptiveConcurrencyLimiter getLimiter() {
+        return limiter;
+    }
+
+    public RateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+}
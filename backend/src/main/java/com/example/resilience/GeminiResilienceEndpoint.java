@@ -0,0 +1,45 @@
+package com.example.resilience;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint: GET /actuator/gemini
+ * Shows circuit breaker state, the current adaptive concurrency limit and the rate limit.
+ * Expose with management.endpoints.web.exposure.include=health,gemini
+ */
+@Component
+@Endpoint(id = "gemini")
+public class GeminiResilienceEndpoint {
+
+    private final GeminiGuard geminiGuard;
+
+    public GeminiResilienceEndpoint(GeminiGuard geminiGuard) {
+        this.geminiGuard = geminiGuard;
+    }
+
+    @ReadOperation
+    public Map<String, Object> state() {
+        CircuitBreaker breaker = geminiGuard.getCircuitBreaker();
+        AdaptiveConcurrencyLimiter limiter = geminiGuard.getLimiter();
+
+        Map<String, Object> circuit = new LinkedHashMap<>();
+        circuit.put("state", breaker.getState().name());
+        circuit.put("consecutiveFailures", breaker.getConsecutiveFailures());
+        circuit.put("openedAt", breaker.getOpenedAt() != null ? breaker.getOpenedAt().toString() : null);
+
+        Map<String, Object> concurrency = new LinkedHashMap<>();
+        concurrency.put("limit", limiter.getLimit());
+        concurrency.put("inFlight", limiter.getInFlight());
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("circuitBreaker", circuit);
+        body.put("concurrencyLimiter", concurrency);
+        body.put("rateLimitPerSecond", geminiGuard.getRateLimiter().getPermitsPerSecond());
+        return body;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.resilience;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Token-bucket rate limiter shared by every caller of a dependency.
+ *
+ * {@link #reserve(long)} books the next free slot and returns how long until it
+ * arrives; the caller schedules its work for then (GeminiGuard uses a delayed
+ * executor) rather than parking a thread. A burst of parallel work is thus
+ * smoothed to the configured rate instead of tripping the provider's quota.
+ * A slot further away than maxWait is refused without consuming anything.
+ */
+public class RateLimiter {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final LongSupplier nanoClock;
+
+    // earliest time the next permit is available
+    private long nextFreeNanos;
+
+    public RateLimiter(double permitsPerSecond, int burst) {
+        this(permitsPerSecond, burst, System::nanoTime);
+    }
+
+    RateLimiter(double permitsPerSecond, int burst, LongSupplier nanoClock) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("permitsPerSecond and burst must be positive");
+        }
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+        this.burstNanos = intervalNanos * (burst - 1);
+        this.nanoClock = nanoClock;
+        this.nextFreeNanos = nanoClock.getAsLong() - burstNanos;
+    }
+
+    /** @return nanos to wait for the reserved permit, or -1 if that exceeds maxWaitNanos */
+    synchronized long reserve(long maxWaitNanos) {
+        long now = nanoClock.getAsLong();
+        // Idle time refills the bucket, but never beyond the burst size
+        long slot = Math.max(nextFreeNanos, now - burstNanos);
+        long wait = Math.max(0, slot - now);
+        if (wait > maxWaitNanos) {
+            return -1;
+        }
+        nextFreeNanos = slot + intervalNanos;
+        return wait;
+    }
+
+    /** Hand back a reserved permit that went unused (the call was rejected after reserving). */
+    synchronized void refund() {
+        nextFreeNanos -= intervalNanos;
+    }
+
+    public double getPermitsPerSecond() {
+        return (double) TimeUnit.SECONDS.toNanos(1) / intervalNanos;
+    }
+}
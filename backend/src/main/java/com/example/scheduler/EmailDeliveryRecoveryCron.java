@@ -0,0 +1,32 @@
+package com.example.scheduler;
+
+import com.example.service.EmailDeliveryService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@Slf4j
+public class EmailDeliveryRecoveryCron {
+
+    private static final int BATCH_LIMIT = 100;
+
+    private final EmailDeliveryService emailDeliveryService;
+
+    public EmailDeliveryRecoveryCron(EmailDeliveryService emailDeliveryService) {
+        this.emailDeliveryService = emailDeliveryService;
+    }
+
+    /**
+     * Sweeps MongoDB for weekly summaries still EMAIL_PENDING (executor was full,
+     * SMTP failed, restart) and queues the send again.
+     */
+    @Scheduled(fixedDelayString = "${email.delivery.recovery-interval-ms:1800000}",
+               initialDelayString = "${email.delivery.recovery-interval-ms:1800000}")
+    public void retryPendingEmails() {
+        int submitted = emailDeliveryService.retryPending(BATCH_LIMIT);
+        if (submitted > 0) {
+            log.info("EmailDeliveryRecoveryCron: re-queued {} weekly summary email(s)", submitted);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.scheduler;
+
+import com.example.entity.EmbeddingJob;
+import com.example.entity.EmbeddingJobStatus;
+import com.example.entity.JournalEntry;
+import com.example.entity.VectorPurgeJob;
+import com.example.repository.JournalEntryRepository;
+import com.example.service.AiEmbeddingService;
+import com.example.service.EmbeddingOutbox;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Drains the EmbeddingOutbox.
+ *
+ * Each tick claims due jobs in batches, loads the entries they point at in one
+ * query and sends their current content to the AI service as ONE batch request.
+ * Micro-batching: a full batch (batch-size) goes out on the next tick, a partial
+ * one only once its oldest job has waited linger-ms, so entries saved close
+ * together share a request. poll-interval-ms only sets how often the outbox is
+ * checked; the worst-case delay for a lone entry is linger-ms + poll-interval-ms. Up to
+ * max-batches-per-tick batches are claimed and sent concurrently over the
+ * non-blocking client; the tick waits for all of them. Success deletes the
+ * job; failure hands it back to the outbox for a backed-off retry or
+ * dead-lettering. Jobs whose entry is gone (or now blank) are simply completed.
+ *
+ * Vector purge jobs of deleted users go out in the same tick: up to
+ * max-batches-per-tick of them, one delete request each, with the same
+ * complete / back-off / dead-letter handling.
+ *
+ * Metrics: embedding.outbox.jobs{outcome} per job, plus embedding.outbox.backlog
+ * and embedding.outbox.dead gauges refreshed after every tick. Purge jobs count
+ * towards all three, so a purge stuck in DEAD is as visible as an embedding.
+ */
+@Component
+@Slf4j
+public class EmbeddingOutboxDispatcher {
+
+    private final EmbeddingOutbox outbox;
+    private final JournalEntryRepository journalEntryRepository;
+    private final AiEmbeddingService aiEmbeddingService;
+    private final int batchSize;
+    private final int maxBatchesPerTick;
+    private final Duration linger;
+
+    private final Counter succeeded;
+    private final Counter retried;
+    private final Counter deadLettered;
+    private final AtomicLong backlog = new AtomicLong();
+    private final AtomicLong dead = new AtomicLong();
+
+    public EmbeddingOutboxDispatcher(EmbeddingOutbox outbox,
+                                     JournalEntryRepository journalEntryRepository,
+                                     AiEmbeddingService aiEmbeddingService,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${embedding.outbox.batch-size:20}") int batchSize,
+                                     @Value("${embedding.outbox.max-batches-per-tick:10}") int maxBatchesPerTick,
+                                     @Value("${embedding.outbox.linger-ms:4000}") long lingerMs) {
+        this.outbox = outbox;
+        this.journalEntryRepository = journalEntryRepository;
+        this.aiEmbeddingService = aiEmbeddingService;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxBatchesPerTick = Math.max(1, maxBatchesPerTick);
+        this.linger = Duration.ofMillis(Math.max(0, lingerMs));
+
+        this.succeeded = meterRegistry.counter("embedding.outbox.jobs", "outcome", "success");
+        this.retried = meterRegistry.counter("embedding.outbox.jobs", "outcome", "retry");
+        this.deadLettered = meterRegistry.counter("embedding.outbox.jobs", "outcome", "dead");
+        Gauge.builder("embedding.outbox.backlog", backlog, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("embedding.outbox.dead", dead, AtomicLong::get).register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${embedding.outbox.poll-interval-ms:1000}",
+               initialDelayString = "${embedding.outbox.poll-interval-ms:1000}")
+    public void dispatch() {
+        int processed = 0;
+        List<CompletableFuture<Void>> inFlight = new ArrayList<>();
+        for (int i = 0; i < maxBatchesPerTick; i++) {
+            List<EmbeddingJob> jobs = outbox.claimDue(batchSize, linger);
+            if (jobs.isEmpty()) break;
+            inFlight.add(process(jobs));
+            processed += jobs.size();
+        }
+        for (VectorPurgeJob job : outbox.claimDuePurges(maxBatchesPerTick)) {
+            inFlight.add(purge(job));
+            processed++;
+        }
+        // AI-service failures are settled per job inside process(); wait for every batch
+        CompletableFuture.allOf(inFlight.toArray(CompletableFuture[]::new)).join();
+
+        backlog.set(outbox.count(EmbeddingJobStatus.PENDING));
+        dead.set(outbox.count(EmbeddingJobStatus.DEAD));
+
+        if (processed > 0) {
+            log.info("EmbeddingOutboxDispatcher: processed {} job(s), backlog {}, dead {}",
+                    processed, backlog.get(), dead.get());
+        }
+    }
+
+    /**
+     * Send one claimed batch; the future completes once every job is settled.
+     * Package-private so tests can drive a batch without the scheduler.
+     */
+    CompletableFuture<Void> process(List<EmbeddingJob> jobs) {
+        Map<ObjectId, JournalEntry> entries = journalEntryRepository
+                .findAllById(jobs.stream().map(EmbeddingJob::getEntryId).toList())
+                .stream()
+                .collect(Collectors.toMap(JournalEntry::getId, Function.identity()));
+
+        List<EmbeddingJob> toEmbed = new ArrayList<>(jobs.size());
+        for (EmbeddingJob job : jobs) {
+            JournalEntry entry = entries.get(job.getEntryId());
+            if (entry == null || entry.getContent() == null || entry.getContent().isBlank()) {
+                // Deleted or emptied since the job was written — nothing to embed
+                outbox.complete(job);
+                succeeded.increment();
+            } else {
+                toEmbed.add(job);
+            }
+        }
+        if (toEmbed.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        CompletableFuture<Set<String>> request;
+        try {
+            request = aiEmbeddingService.embedEntriesAsync(
+                    toEmbed.stream().map(job -> entries.get(job.getEntryId())).toList());
+        } catch (Exception e) {
+            request = CompletableFuture.failedFuture(e);
+        }
+
+        return request.handle((embedded, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                log.warn("Batch embedding of {} entr(ies) failed: {}", toEmbed.size(), cause.getMessage());
+                toEmbed.forEach(job -> fail(job, cause.getMessage()));
+                return null;
+            }
+            for (EmbeddingJob job : toEmbed) {
+                if (embedded.contains(job.getEntryId().toHexString())) {
+                    outbox.complete(job);
+                    succeeded.increment();
+                } else {
+                    fail(job, "Not embedded by batch request");
+                }
+            }
+            return null;
+        });
+    }
+
+    /** Send one claimed purge job; the future completes once the job is settled. */
+    CompletableFuture<Void> purge(VectorPurgeJob job) {
+        CompletableFuture<Void> request;
+        try {
+            request = aiEmbeddingService.purgeVectorsAsync(job.getUserId().toHexString(), job.getEntryIds());
+        } catch (Exception e) {
+            request = CompletableFuture.failedFuture(e);
+        }
+
+        return request.handle((ignored, error) -> {
+            if (error == null) {
+                outbox.complete(job);
+                succeeded.increment();
+                return null;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+            if (outbox.fail(job, cause.getMessage())) {
+                deadLettered.increment();
+            } else {
+                retried.increment();
+                log.warn("Vector purge for deleted user {} rescheduled (attempt {}): {}",
+                        job.getUserId(), job.getAttempts() + 1, cause.getMessage());
+            }
+            return null;
+        });
+    }
+
+    private void fail(EmbeddingJob job, String error) {
+        if (outbox.fail(job, error)) {
+            deadLettered.increment();
+        } else {
+            retried.increment();
+            log.debug("Embedding for entry {} rescheduled (attempt {}): {}",
+                    job.getEntryId(), job.getAttempts() + 1, error);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.scheduler;
+
+import com.example.service.JournalAnalysisQueue;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@Slf4j
+public class JournalAnalysisRecoveryCron {
+
+    private static final int BATCH_LIMIT = 100;
+
+    private final JournalAnalysisQueue journalAnalysisQueue;
+
+    public JournalAnalysisRecoveryCron(JournalAnalysisQueue journalAnalysisQueue) {
+        this.journalAnalysisQueue = journalAnalysisQueue;
+    }
+
+    /**
+     * Sweeps MongoDB for entries still waiting on AI analysis (queue overflow,
+     * restart, crashed worker) and hands them back to the worker pool.
+     */
+    @Scheduled(fixedDelayString = "${journal.analysis.recovery-interval-ms:60000}",
+               initialDelayString = "${journal.analysis.recovery-interval-ms:60000}")
+    public void requeueStalledAnalyses() {
+        int requeued = journalAnalysisQueue.requeueStalled(BATCH_LIMIT);
+        if (requeued > 0) {
+            log.info("JournalAnalysisRecoveryCron: re-queued {} pending analysis job(s)", requeued);
+        }
+    }
+}
@@ -3,25 +3,65 @@ package com.example.scheduler;
 import com.example.entity.User;
 import com.example.service.WeeklySummaryCommandService;
 import com.example.service.UserService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import java.time.DayOfWeek;
 import java.time.LocalDate;
-import java.util.List;
+import java.util.Iterator;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
+/**
+ * Daily weekly-summary run, processed in parallel.
+ *
+ * Each user costs a Gemini call, two Mongo writes and an SMTP send, so users are
+ * fanned out over AsyncConfig's weeklySummaryExecutor, at most
+ * weekly-summary.concurrency at a time. Eligible users are
+ * read through a projected Mongo cursor and handed out one at a time, so memory
+ * stays flat regardless of how many users are due. Gemini traffic is
+ * additionally capped by the global rate limit in GeminiGuard. A failure for one
+ * user is logged and counted; it never stops the rest of the cohort.
+ */
 @Component
 @Slf4j
 public class WeeklySummaryCron {
 
     private final UserService userService;
     private final WeeklySummaryCommandService weeklySummaryCommandService;
+    private final int concurrency;
+    private final TaskExecutor executor;
+
+    private final Counter succeeded;
+    private final Counter failed;
+    private final Timer runTimer;
+    private final AtomicInteger inFlight = new AtomicInteger();
 
     public WeeklySummaryCron(UserService userService,
-                              WeeklySummaryCommandService weeklySummaryCommandService) {
+                              WeeklySummaryCommandService weeklySummaryCommandService,
+                              MeterRegistry meterRegistry,
+                              @Qualifier("weeklySummaryExecutor") TaskExecutor executor,
+                              @Value("${weekly-summary.concurrency:8}") int concurrency) {
         this.userService = userService;
         this.weeklySummaryCommandService = weeklySummaryCommandService;
+        this.executor = executor;
+        this.concurrency = Math.max(1, concurrency);
+
+        this.succeeded = meterRegistry.counter("weekly.summary.users", "outcome", "success");
+        this.failed = meterRegistry.counter("weekly.summary.users", "outcome", "failure");
+        this.runTimer = meterRegistry.timer("weekly.summary.run");
+        Gauge.builder("weekly.summary.in_flight", inFlight, AtomicInteger::get).register(meterRegistry);
     }
 
     /**
@@ -33,17 +73,62 @@ public class WeeklySummaryCron {
 
         int today = DayOfWeek.from(LocalDate.now()).getValue(); // 1 = Monday, 7 = Sunday
 
-        List<User> eligibleUsers = userService.findUsersForWeeklySummary(today);
+        log.info("WeeklySummaryCron: processing users eligible on day {} (concurrency {})", today, concurrency);
+
+        // The stream wraps a Mongo cursor — close it even if the run is interrupted
+        try (Stream<User> eligibleUsers = userService.streamUsersForWeeklySummary(today)) {
+            runTimer.record(() -> processAll(eligibleUsers));
+        }
+    }
 
-        log.info("WeeklySummaryCron: {} user(s) eligible for weekly summary on day {}",
-                eligibleUsers.size(), today);
+    /** Fan users out over the pool and block until every one has finished. */
+    void processAll(Stream<User> users) {
+        // At most `concurrency` users in flight; the cursor is only advanced when a slot frees up
+        Semaphore slots = new Semaphore(concurrency);
+        AtomicInteger processed = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+        long start = System.nanoTime();
 
-        for (User user : eligibleUsers) {
-            try {
-                weeklySummaryCommandService.generateWeeklySummary(user);
-            } catch (Exception e) {
-                log.error("Failed to generate weekly summary for user: {}", user.getUserName(), e);
+        try {
+            Iterator<User> it = users.iterator();
+            while (it.hasNext()) {
+                slots.acquire();
+                User user = it.next();
+                inFlight.incrementAndGet();
+                try {
+                    executor.execute(() -> {
+                        try {
+                            weeklySummaryCommandService.generateWeeklySummary(user);
+                            succeeded.increment();
+                        } catch (Exception e) {
+                            failures.incrementAndGet();
+                            failed.increment();
+                            log.error("Failed to generate weekly summary for user: {}", user.getUserName(), e);
+                        } finally {
+                            processed.incrementAndGet();
+                            inFlight.decrementAndGet();
+                            slots.release();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    // Only happens while the executor shuts down — give the slot back and stop submitting
+                    inFlight.decrementAndGet();
+                    slots.release();
+                    log.warn("WeeklySummaryCron: executor rejected {} — stopping the run: {}",
+                            user.getUserName(), e.getMessage());
+                    break;
+                }
             }
+            // Wait for the tail of the run
+            slots.acquire(concurrency);
+            slots.release(concurrency);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("WeeklySummaryCron interrupted after {} user(s)", processed.get());
+            return;
         }
+
+        log.info("WeeklySummaryCron: finished {} user(s), {} failed, in {}s",
+                processed.get(), failures.get(), TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start));
     }
 }
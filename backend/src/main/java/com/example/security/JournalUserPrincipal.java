@@ -0,0 +1,56 @@
+package com.example.security;
+
+import org.bson.types.ObjectId;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Principal placed in the SecurityContext for JWT-authenticated requests.
+ *
+ * Carries the user's ObjectId so controllers can scope queries without loading
+ * the User document again. Immutable and deliberately holds no password hash —
+ * instances are shared through PrincipalCache.
+ */
+public final class JournalUserPrincipal implements UserDetails {
+
+    private final ObjectId userId;
+    private final String username;
+    private final List<GrantedAuthority> authorities;
+
+    public JournalUserPrincipal(ObjectId userId, String username, List<String> roles) {
+        this.userId = userId;
+        this.username = username;
+        this.authorities = roles == null ? List.of() : roles.stream()
+                .<GrantedAuthority>map(role -> new SimpleGrantedAuthority("ROLE_" + role))
+                .toList();
+    }
+
+    public ObjectId getUserId() {
+        return userId;
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+
+    /** Not available — JWT requests are never re-authenticated with a password. */
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String toString() {
+        return "JournalUserPrincipal[" + username + "]";
+    }
+}
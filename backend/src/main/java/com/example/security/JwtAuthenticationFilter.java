@@ -1,6 +1,7 @@
 package com.example.security;
 
 import com.example.service.UserDetailsServiceImpl;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -8,13 +9,14 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Optional;
 
 
 // Intercepts every request and validates the Bearer JWT token from the
@@ -26,11 +28,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenProvider jwtTokenProvider;
     private final UserDetailsServiceImpl userDetailsService;
+    private final TokenRevocationCache tokenRevocationCache;
 
     public JwtAuthenticationFilter(JwtTokenProvider jwtTokenProvider,
-                                   UserDetailsServiceImpl userDetailsService) {
+                                   UserDetailsServiceImpl userDetailsService,
+                                   TokenRevocationCache tokenRevocationCache) {
         this.jwtTokenProvider = jwtTokenProvider;
         this.userDetailsService = userDetailsService;
+        this.tokenRevocationCache = tokenRevocationCache;
     }
 
     @Override
@@ -41,28 +46,58 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         String token = extractTokenFromRequest(request);
 
-        if (StringUtils.hasText(token) && jwtTokenProvider.validateToken(token)) {
-            String username = jwtTokenProvider.extractUsername(token);
+        // One verification per request (cached across requests by JwtTokenProvider)
+        Optional<Claims> claims = StringUtils.hasText(token) ? jwtTokenProvider.verify(token) : Optional.empty();
+
+        if (claims.isPresent()) {
+            String username = claims.get().getSubject();
 
             // Only set authentication if not already set in context
             if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-
-                UsernamePasswordAuthenticationToken authToken =
-                        new UsernamePasswordAuthenticationToken(
-                                userDetails,
-                                null,
-                                userDetails.getAuthorities()
-                        );
-                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authToken);
-                log.debug("JWT authenticated user: {}", username);
+                try {
+                    JournalUserPrincipal principal = resolvePrincipal(claims.get(), username);
+                    if (principal != null) {
+                        UsernamePasswordAuthenticationToken authToken =
+                                new UsernamePasswordAuthenticationToken(
+                                        principal,
+                                        null,
+                                        principal.getAuthorities()
+                                );
+                        authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                        SecurityContextHolder.getContext().setAuthentication(authToken);
+                        log.debug("JWT authenticated user: {}", username);
+                    }
+                } catch (UsernameNotFoundException e) {
+                    // Valid signature but the account is gone (deleted or renamed) — stay anonymous
+                    log.debug("JWT subject no longer exists: {}", username);
+                }
             }
         }
 
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Fast path: tokens carrying uid/roles/ver claims are trusted once the version
+     * is confirmed current — no user lookup. Older subject-only tokens fall back
+     * to the (cached) database lookup.
+     *
+     * @return null if the token has been revoked
+     */
+    private JournalUserPrincipal resolvePrincipal(Claims claims, String username) {
+        var fromClaims = jwtTokenProvider.toClaimsPrincipal(claims);
+        if (fromClaims.isEmpty()) {
+            return userDetailsService.loadPrincipal(username);
+        }
+
+        JournalUserPrincipal principal = fromClaims.get().principal();
+        if (!tokenRevocationCache.isCurrent(principal.getUserId(), fromClaims.get().tokenVersion())) {
+            log.debug("JWT for {} has a stale token version — rejected", username);
+            return null;
+        }
+        return principal;
+    }
+
     
 //Extracts the Bearer token from the Authorization header.
 //Returns null if header is missing or malformed.
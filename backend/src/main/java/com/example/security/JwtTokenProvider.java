@@ -1,39 +1,72 @@
 package com.example.security;
 
 import io.jsonwebtoken.Claims;
+import com.example.cache.TtlLruCache;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.Date;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
 
 /**
  * Handles all JWT operations: generation, validation, and parsing.
  * Uses JJWT 0.12.x API.
+ *
+ * Verification goes through {@link #verify(String)}: one prebuilt (thread-safe)
+ * parser, and a bounded cache of already-verified tokens keyed by SHA-256 digest.
+ * A cached token is trusted until its own exp claim, so repeat requests with the
+ * same bearer token skip the HMAC check and JSON parsing entirely.
  */
 @Component
 @Slf4j
 public class JwtTokenProvider {
 
+    static final String CLAIM_USER_ID = "uid";
+    static final String CLAIM_ROLES = "roles";
+    static final String CLAIM_TOKEN_VERSION = "ver";
+
+    private static final int DEFAULT_VERIFIED_CACHE_SIZE = 10_000;
+
     private final SecretKey signingKey;
     private final long expiryMs;
+    private final JwtParser parser;
+    private final TtlLruCache<String, Claims> verifiedTokens;
+
+    public JwtTokenProvider(String secret, long expiryMs) {
+        this(secret, expiryMs, DEFAULT_VERIFIED_CACHE_SIZE);
+    }
 
+    @Autowired
     public JwtTokenProvider(
             @Value("${jwt.secret}") String secret,
-            @Value("${jwt.expiry-ms}") long expiryMs) {
+            @Value("${jwt.expiry-ms}") long expiryMs,
+            @Value("${jwt.verified-cache.max-entries:10000}") int verifiedCacheSize) {
         // JJWT 0.12.x requires the key to be at least 256 bits for HS256
         this.signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
         this.expiryMs = expiryMs;
+        this.parser = Jwts.parser().verifyWith(signingKey).build();
+        // Every entry carries its own expiry (the token's exp); the default TTL is never used
+        this.verifiedTokens = new TtlLruCache<>(verifiedCacheSize, Duration.ofMillis(expiryMs));
     }
 
     /**
      * Generate a signed JWT for the given username.
      * Claims: subject = username, iat = now, exp = now + expiryMs
+     * Subject-only tokens always take the database path in JwtAuthenticationFilter.
      */
     public String generateToken(String username) {
         Date now = new Date();
@@ -48,28 +81,89 @@ public class JwtTokenProvider {
     }
 
     /**
-     * Extract the username (subject) from a valid JWT.
-     * @throws JwtException if token is invalid or expired
+     * Generate a self-contained JWT: besides the subject it carries the user's id,
+     * roles and token version, so requests can be authenticated from the claims
+     * alone (see JwtAuthenticationFilter).
      */
-    public String extractUsername(String token) {
-        return parseClaims(token).getSubject();
+    public String generateToken(String username, ObjectId userId, List<String> roles, long tokenVersion) {
+        Date now = new Date();
+        Date expiry = new Date(now.getTime() + expiryMs);
+
+        return Jwts.builder()
+                .subject(username)
+                .claim(CLAIM_USER_ID, userId.toHexString())
+                .claim(CLAIM_ROLES, roles == null ? List.of() : roles)
+                .claim(CLAIM_TOKEN_VERSION, tokenVersion)
+                .issuedAt(now)
+                .expiration(expiry)
+                .signWith(signingKey)
+                .compact();
     }
 
     /**
-     * Validate a JWT — checks signature and expiry.
-     * @return true if valid; false otherwise (never throws)
+     * Verify a JWT once — signature and expiry — and return its claims.
+     * @return the verified claims, or empty if the token is invalid (never throws)
      */
-    public boolean validateToken(String token) {
+    public Optional<Claims> verify(String token) {
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+
+        String digest = digest(token);
+        Claims cached = verifiedTokens.get(digest);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
         try {
-            parseClaims(token);
-            return true;
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            if (claims.getExpiration() != null) {
+                verifiedTokens.put(digest, claims, claims.getExpiration().toInstant());
+            }
+            return Optional.of(claims);
         } catch (JwtException e) {
             log.warn("Invalid JWT: {}", e.getMessage());
-            return false;
+            return Optional.empty();
         } catch (IllegalArgumentException e) {
             log.warn("JWT claims string is empty: {}", e.getMessage());
-            return false;
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Build the principal straight from verified claims.
+     * Empty for subject-only tokens issued before claims were embedded.
+     */
+    public Optional<ClaimsPrincipal> toClaimsPrincipal(Claims claims) {
+        String userId = claims.get(CLAIM_USER_ID, String.class);
+        Number version = claims.get(CLAIM_TOKEN_VERSION, Number.class);
+        if (userId == null || version == null || !ObjectId.isValid(userId)) {
+            return Optional.empty();
         }
+
+        List<?> rawRoles = claims.get(CLAIM_ROLES, List.class);
+        List<String> roles = rawRoles == null ? List.of() : rawRoles.stream().map(String::valueOf).toList();
+
+        JournalUserPrincipal principal = new JournalUserPrincipal(new ObjectId(userId), claims.getSubject(), roles);
+        return Optional.of(new ClaimsPrincipal(principal, version.longValue()));
+    }
+
+    /**
+     * Extract the username (subject) from a valid JWT.
+     * @throws JwtException if token is invalid or expired
+     */
+    public String extractUsername(String token) {
+        return verify(token)
+                .orElseThrow(() -> new JwtException("Invalid or expired JWT"))
+                .getSubject();
+    }
+
+    /**
+     * Validate a JWT — checks signature and expiry.
+     * @return true if valid; false otherwise (never throws)
+     */
+    public boolean validateToken(String token) {
+        return verify(token).isPresent();
     }
 
     /**
@@ -79,15 +173,21 @@ public class JwtTokenProvider {
         return expiryMs;
     }
 
+    /** Principal rebuilt from token claims, plus the token version it was issued with. */
+    public record ClaimsPrincipal(JournalUserPrincipal principal, long tokenVersion) {
+    }
+
     // -----------------------------------------------------------------------
     // Private helpers
     // -----------------------------------------------------------------------
 
-    private Claims parseClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(signingKey)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    /** Cache key — the raw token never sits in memory longer than the request. */
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 }
@@ -0,0 +1,39 @@
+package com.example.security;
+
+import com.example.cache.TtlLruCache;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Short-lived cache of authenticated principals, keyed by username.
+ *
+ * Saves JwtAuthenticationFilter a Mongo lookup on every request. Entries live
+ * for about a minute by default; UserService invalidates eagerly on username or
+ * password change and on account deletion, so those take effect immediately.
+ */
+@Component
+public class PrincipalCache {
+
+    private final TtlLruCache<String, JournalUserPrincipal> cache;
+
+    public PrincipalCache(@Value("${security.principal-cache.max-entries:10000}") int maxEntries,
+                          @Value("${security.principal-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.cache = new TtlLruCache<>(maxEntries, Duration.ofSeconds(ttlSeconds));
+    }
+
+    public JournalUserPrincipal get(String username) {
+        return cache.get(username);
+    }
+
+    public void put(JournalUserPrincipal principal) {
+        cache.put(principal.getUsername(), principal);
+    }
+
+    /** Drop the cached principal for a user — by id, since the username may just have changed. */
+    public void invalidate(ObjectId userId) {
+        cache.invalidateIf(p -> p.getUserId().equals(userId));
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.security;
+
+import com.example.cache.TtlLruCache;
+import com.example.entity.User;
+import com.example.repository.UserRepository;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Knows each user's current token version, so claims-only JWTs can be revoked.
+ *
+ * A token is honoured only while its "ver" claim equals User.tokenVersion. Versions
+ * are cached briefly (one projected Mongo read per user per TTL); local changes are
+ * written through immediately, other instances pick them up when the entry expires.
+ */
+@Component
+public class TokenRevocationCache {
+
+    // Cached for users that no longer exist — no token version can match it
+    private static final long NO_VALID_VERSION = -1L;
+
+    private final TtlLruCache<ObjectId, Long> versions;
+    private final UserRepository userRepository;
+
+    public TokenRevocationCache(UserRepository userRepository,
+                                @Value("${security.token-version-cache.max-entries:10000}") int maxEntries,
+                                @Value("${security.token-version-cache.ttl-seconds:30}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        this.versions = new TtlLruCache<>(maxEntries, Duration.ofSeconds(ttlSeconds));
+    }
+
+    /** @return true if a token issued with this version is still valid for the user */
+    public boolean isCurrent(ObjectId userId, long tokenVersion) {
+        Long current = versions.get(userId);
+        if (current == null) {
+            current = userRepository.findTokenVersionById(userId)
+                    .map(User::getTokenVersion)
+                    .orElse(NO_VALID_VERSION);
+            versions.put(userId, current);
+        }
+        return current == tokenVersion;
+    }
+
+    /** Record a bumped version so this instance rejects older tokens at once. */
+    public void versionChanged(ObjectId userId, long newVersion) {
+        versions.put(userId, newVersion);
+    }
+
+    /** The account is gone — reject every token it ever had. */
+    public void revokeAll(ObjectId userId) {
+        versions.put(userId, NO_VALID_VERSION);
+    }
+}
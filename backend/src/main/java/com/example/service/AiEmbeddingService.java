@@ -1,16 +1,18 @@
 package com.example.service;
 
+import com.example.client.AiHttpClient;
+import com.example.entity.JournalEntry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
-import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * AiEmbeddingService
@@ -22,14 +24,14 @@ import java.util.Map;
  * immediately ask questions about it via POST /ai/query.
  *
  * Design decisions:
- *  - @Async (fire-and-forget): embedEntry() runs in a Spring background thread.
- *    The HTTP response returns to the frontend IMMEDIATELY after MongoDB save.
- *    Embedding takes 3-8s (Gemini API call) — blocking the request thread caused
- *    the UI to show a blank screen while waiting.
- *  - Retries up to 3 times with exponential back-off (1s → 2s → 4s) to handle
- *    Render free-tier cold-starts where the Python service may need 30-60s to wake.
- *  - Failures are logged but NEVER propagate to the caller, so a Python service
- *    outage cannot break the core journalling workflow.
+ *  - Entries are NOT embedded on the request thread. JournalEntryService writes
+ *    a job to the EmbeddingOutbox (same Mongo transaction as the entry) and the
+ *    EmbeddingOutboxDispatcher sends due entries in batches via embedEntriesAsync().
+ *    Retries, back-off and dead-lettering live in the outbox, so a Python service
+ *    outage or a restart never loses an embedding request and never pins a thread
+ *    in Thread.sleep.
+ *  - HTTP goes through AiHttpClient (non-blocking by default), so the dispatcher
+ *    keeps several batches in flight without a thread each.
  *  - URL is externalised to application.yml (ai.service.url) so it can be
  *    overridden per environment without recompiling.
  */
@@ -37,7 +39,7 @@ import java.util.Map;
 @Slf4j
 public class AiEmbeddingService {
 
-    private final RestTemplate restTemplate;
+    private final AiHttpClient httpClient;
 
     /**
      * Base URL of the Python AI service.
@@ -45,100 +47,89 @@ public class AiEmbeddingService {
      * Override in production via: AI_SERVICE_URL environment variable.
      */
     @Value("${ai.service.url:http://localhost:8001}")
-    private String aiServiceUrl;
+    private String aiServiceUrl = "http://localhost:8001";
 
     // Constructor injection — preferred over @Autowired on field
-    public AiEmbeddingService(RestTemplate restTemplate) {
-        this.restTemplate = restTemplate;
+    public AiEmbeddingService(AiHttpClient httpClient) {
+        this.httpClient = httpClient;
     }
 
     /**
-     * Send a single journal entry to the Python AI service for embedding.
+     * Embed several entries in one request (POST /ai/embed/batch).
      *
-     * The Python endpoint (POST /ai/embed/entry) expects:
      * {
-     *   "entry_id": "64a1b2c3d4e5f60012345678",   <- MongoDB ObjectId as string
-     *   "text":     "Today was a great day...",
-     *   "user_id":  "64a1b2c3d4e5f60000000001",
-     *   "date":     "2026-06-21T10:00:00"
+     *   "entries": [ { "entry_id": ..., "text": ..., "user_id": ..., "date": ... }, ... ]
      * }
      *
-     * Retries up to 3 times with exponential back-off to survive cold-starts.
+     * The Python service embeds the texts with batched model calls and a single
+     * upsert per chunk, so per-entry HTTP and model overhead is paid once per batch.
      *
-     * @param entryId  MongoDB ObjectId string of the saved entry
-     * @param text     Full plain-text content of the journal entry
-     * @param userId   MongoDB ObjectId string of the owning user
-     * @param date     Creation/update timestamp of the entry
+     * One attempt, non-blocking — the outbox dispatcher owns retries.
+     *
+     * @return future of the ids the service embedded or deliberately skipped (blank
+     *         text); any other id in the request was not embedded and should be
+     *         retried. Fails with a RestClientException if the request itself fails.
      */
-    @Async  // runs in a background thread — does NOT block the HTTP response
-    public void embedEntry(String entryId, String text, String userId, LocalDateTime date) {
-
-        // Skip embedding if the content is blank — nothing useful to embed
-        if (text == null || text.isBlank()) {
-            log.debug("embedEntry: skipping blank content for entryId={}", entryId);
-            return;
+    public CompletableFuture<Set<String>> embedEntriesAsync(List<JournalEntry> entries) {
+        if (entries.isEmpty()) {
+            return CompletableFuture.completedFuture(Set.of());
         }
 
-        // Warn early if the URL looks like a misconfigured localhost fallback in production
+        List<Map<String, String>> payload = entries.stream()
+                .map(entry -> Map.of(
+                        "entry_id", entry.getId().toHexString(),
+                        "text",     entry.getContent() != null ? entry.getContent() : "",
+                        "user_id",  entry.getUserId().toHexString(),
+                        "date",     entry.getDate() != null ? entry.getDate().toString() : ""))
+                .toList();
+
+        return httpClient.postJson(aiServiceUrl + "/ai/embed/batch", Map.of(), Map.of("entries", payload), Map.class)
+                .thenApply(response -> {
+                    Set<String> done = new HashSet<>();
+                    if (response != null) {
+                        for (String key : List.of("embedded", "skipped")) {
+                            if (response.get(key) instanceof List<?> ids) {
+                                ids.forEach(id -> done.add(String.valueOf(id)));
+                            }
+                        }
+                    }
+                    log.info("AI service batch embedding: {}/{} entries done", done.size(), entries.size());
+                    return done;
+                });
+    }
+
+    /** Warn early if the URL looks like a misconfigured localhost fallback in production. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warnOnLocalhostUrl() {
         if (aiServiceUrl.contains("localhost")) {
-            log.warn("embedEntry: AI_SERVICE_URL is set to localhost ({}). " +
+            log.warn("AI_SERVICE_URL is set to localhost ({}). " +
                      "If running in production, set the AI_SERVICE_URL env var " +
                      "to the actual Python service URL — embeddings will fail otherwise.",
                      aiServiceUrl);
         }
+    }
 
-        String url = aiServiceUrl + "/ai/embed/entry";
-
-        // Build the JSON request body as a simple Map — RestTemplate serialises it
-        Map<String, String> requestBody = Map.of(
-                "entry_id", entryId,
-                "text",     text,
-                "user_id",  userId,
-                "date",     date != null ? date.toString() : ""
-        );
-
-        // Set Content-Type: application/json header
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-
-        HttpEntity<Map<String, String>> request = new HttpEntity<>(requestBody, headers);
-
-        // Retry up to 3 times with exponential back-off (1s → 2s → 4s).
-        // Handles Render free-tier cold-starts (~30-60s warm-up) and transient failures.
-        int maxAttempts = 3;
-        long backoffMs  = 1_000;
-
-        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
-            try {
-                log.info("Embedding entryId={} for userId={} (attempt {}/{})",
-                        entryId, userId, attempt, maxAttempts);
-
-                Map<?, ?> response = restTemplate.postForObject(url, request, Map.class);
-
-                log.info("AI service embedding success for entryId={}: {}", entryId, response);
-                return; // success — stop retrying
-
-            } catch (Exception e) {
-                if (attempt == maxAttempts) {
-                    // All attempts exhausted — log clearly so it's easy to spot in Render logs
-                    log.error(
-                        "embedEntry FAILED after {} attempts for entryId={} (URL: {}). " +
-                        "Entry is saved in MongoDB but will NOT be searchable via RAG until embedded. " +
-                        "Use POST /ai/embed/all to re-sync manually. Root cause: {}",
-                        maxAttempts, entryId, url, e.getMessage()
-                    );
-                } else {
-                    log.warn("embedEntry attempt {}/{} failed for entryId={}: {}. Retrying in {}ms…",
-                            attempt, maxAttempts, entryId, e.getMessage(), backoffMs);
-                    try {
-                        Thread.sleep(backoffMs);
-                    } catch (InterruptedException ie) {
-                        Thread.currentThread().interrupt();
-                        return;
-                    }
-                    backoffMs *= 2; // exponential back-off: 1s → 2s → 4s
-                }
-            }
+    /**
+     * Remove a deleted user's entry vectors from the AI service.
+     *
+     * The Python endpoint (POST /ai/embed/delete) expects:
+     * {
+     *   "user_id":   "64a1b2c3d4e5f60000000001",
+     *   "entry_ids": ["64a1b2c3d4e5f60012345678", ...]
+     * }
+     *
+     * One attempt, non-blocking — the ids come from a VectorPurgeJob and the
+     * outbox dispatcher owns batching, retries and dead-lettering.
+     *
+     * @param userId    MongoDB ObjectId string of the deleted user
+     * @param entryIds  ObjectId strings of the user's (already deleted) entries
+     */
+    public CompletableFuture<Void> purgeVectorsAsync(String userId, List<String> entryIds) {
+        if (entryIds == null || entryIds.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
         }
+        Map<String, Object> request = Map.of("user_id", userId, "entry_ids", entryIds);
+        return httpClient.postJson(aiServiceUrl + "/ai/embed/delete", Map.of(), request, Map.class)
+                .thenAccept(response -> log.info("Purged {} vectors for deleted userId={}", entryIds.size(), userId));
     }
 }
@@ -3,21 +3,69 @@ package com.example.service;
 import com.example.entity.User;
 import com.example.entity.WeeklySummary;
 import com.example.entity.WeeklySummaryDeliveryStatus;
+import com.example.repository.UserRepository;
 import com.example.repository.WeeklySummaryRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+
+/**
+ * Sends weekly summaries by email on the bounded emailExecutor, so SMTP latency
+ * never holds up the weekly summary workers.
+ *
+ * The summary is marked EMAIL_PENDING before the send is queued and SENT once it
+ * succeeds. If the executor is saturated (or the send fails, or the process
+ * restarts) the summary simply stays EMAIL_PENDING and retryPending() — driven by
+ * EmailDeliveryRecoveryCron — sends it later.
+ *
+ * Every send is an attempt (emailAttempts / emailAttemptAt). The sweep claims a
+ * summary with a conditional update before re-sending it, and only once its last
+ * attempt is older than the grace period, so a send still queued or in flight is
+ * not duplicated. After max-attempts the summary is moved to EMAIL_FAILED.
+ */
 @Service
 @Slf4j
 public class EmailDeliveryService {
 
     private final EmailService emailService;
     private final WeeklySummaryRepository weeklySummaryRepository;
+    private final UserRepository userRepository;
+    private final TaskExecutor emailExecutor;
+    private final MongoTemplate mongoTemplate;
+
+    /** EMAIL_PENDING summaries younger than this may still be queued — leave them alone. */
+    @Value("${email.delivery.retry-grace-ms:900000}")
+    private long retryGraceMs = 900_000;
+
+    /** ...and ones older than this are given up on. */
+    @Value("${email.delivery.retry-max-age-hours:24}")
+    private long retryMaxAgeHours = 24;
+
+    /** Sends per summary before it is marked EMAIL_FAILED. */
+    @Value("${email.delivery.max-attempts:5}")
+    private int maxAttempts = 5;
 
     public EmailDeliveryService(EmailService emailService,
-                                 WeeklySummaryRepository weeklySummaryRepository) {
+                                 WeeklySummaryRepository weeklySummaryRepository,
+                                 UserRepository userRepository,
+                                 @Qualifier("emailExecutor") TaskExecutor emailExecutor,
+                                 MongoTemplate mongoTemplate) {
         this.emailService = emailService;
         this.weeklySummaryRepository = weeklySummaryRepository;
+        this.userRepository = userRepository;
+        this.emailExecutor = emailExecutor;
+        this.mongoTemplate = mongoTemplate;
     }
 
     /**
@@ -26,20 +74,109 @@ public class EmailDeliveryService {
      * summary not already sent, user has a non-blank email.
      */
     public void deliverIfEligible(User user, WeeklySummary summary) {
-        if (user.getPreferences() == null) return;
-        if (!user.getPreferences().isEmailNotificationsEnabled()) return;
-        if (summary.getDeliveryStatus() == WeeklySummaryDeliveryStatus.SENT) return;
-        if (user.getEmail() == null || user.getEmail().isBlank()) return;
+        if (!isEligible(user, summary)) return;
+
+        // Durable first — if the send never happens, the retry sweep finds this
+        summary.setDeliveryStatus(WeeklySummaryDeliveryStatus.EMAIL_PENDING);
+        summary.setEmailAttempts(1);
+        summary.setEmailAttemptAt(LocalDateTime.now());
+        weeklySummaryRepository.save(summary);
+
+        submit(user.getEmail(), summary);
+    }
+
+    /**
+     * Re-send summaries left EMAIL_PENDING (executor full, SMTP error, restart).
+     * Each one is claimed first; one that has used up its attempts is marked
+     * EMAIL_FAILED instead.
+     *
+     * @return number of sends handed to the executor
+     */
+    public int retryPending(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime graceCutoff = now.minusNanos(retryGraceMs * 1_000_000);
+        Query due = Query.query(Criteria.where("deliveryStatus").is(WeeklySummaryDeliveryStatus.EMAIL_PENDING)
+                        .and("generatedAt").gte(now.minusHours(retryMaxAgeHours)).lte(graceCutoff)
+                        .orOperator(
+                                Criteria.where("emailAttemptAt").lt(graceCutoff),
+                                Criteria.where("emailAttemptAt").exists(false)))
+                .with(Sort.by(Sort.Direction.ASC, "generatedAt"))
+                .limit(limit);
+        due.fields().include("_id").include("userId").include("deliveryStatus").include("emailAttempts");
+
+        int submitted = 0;
+        for (WeeklySummary candidate : mongoTemplate.find(due, WeeklySummary.class)) {
+            if (candidate.getEmailAttempts() >= maxAttempts) {
+                giveUp(candidate, graceCutoff);
+                continue;
+            }
+            User user = userRepository.findById(candidate.getUserId()).orElse(null);
+            if (user == null || !isEligible(user, candidate)) continue;
+
+            WeeklySummary summary = claim(candidate, graceCutoff, now);
+            if (summary == null) continue;   // sent or re-claimed in the meantime
+            if (!submit(user.getEmail(), summary)) break;   // still saturated — try next sweep
+            submitted++;
+        }
+        return submitted;
+    }
+
+    /** EMAIL_PENDING with no attempt since graceCutoff → count a new attempt; null if someone else got there. */
+    private WeeklySummary claim(WeeklySummary candidate, LocalDateTime graceCutoff, LocalDateTime now) {
+        return mongoTemplate.findAndModify(
+                retryable(candidate, graceCutoff),
+                new Update().inc("emailAttempts", 1).set("emailAttemptAt", now),
+                FindAndModifyOptions.options().returnNew(true),
+                WeeklySummary.class);
+    }
+
+    private void giveUp(WeeklySummary candidate, LocalDateTime graceCutoff) {
+        long updated = mongoTemplate.updateFirst(
+                retryable(candidate, graceCutoff),
+                new Update().set("deliveryStatus", WeeklySummaryDeliveryStatus.EMAIL_FAILED),
+                WeeklySummary.class).getModifiedCount();
+        if (updated > 0) {
+            log.error("Weekly summary {} not emailed after {} attempts — marked EMAIL_FAILED",
+                    candidate.getId(), candidate.getEmailAttempts());
+        }
+    }
+
+    private static Query retryable(WeeklySummary candidate, LocalDateTime graceCutoff) {
+        return Query.query(Criteria.where("_id").is(candidate.getId())
+                .and("deliveryStatus").is(WeeklySummaryDeliveryStatus.EMAIL_PENDING)
+                .orOperator(
+                        Criteria.where("emailAttemptAt").lt(graceCutoff),
+                        Criteria.where("emailAttemptAt").exists(false)));
+    }
+
+    private boolean isEligible(User user, WeeklySummary summary) {
+        if (user.getPreferences() == null) return false;
+        if (!user.getPreferences().isEmailNotificationsEnabled()) return false;
+        if (summary.getDeliveryStatus() == WeeklySummaryDeliveryStatus.SENT) return false;
+        return user.getEmail() != null && !user.getEmail().isBlank();
+    }
+
+    private boolean submit(String email, WeeklySummary summary) {
+        try {
+            emailExecutor.execute(() -> send(email, summary));
+            return true;
+        } catch (TaskRejectedException e) {
+            log.warn("Email executor saturated — summary {} stays EMAIL_PENDING for the retry sweep",
+                    summary.getId());
+            return false;
+        }
+    }
 
+    private void send(String email, WeeklySummary summary) {
         try {
             String subject = "Your Weekly Journal Summary";
             String body = summary.getSummaryText();
-            emailService.send(user.getEmail(), subject, body);
+            emailService.send(email, subject, body);
             summary.setDeliveryStatus(WeeklySummaryDeliveryStatus.SENT);
             weeklySummaryRepository.save(summary);
         } catch (Exception e) {
-            log.error("Failed to send weekly summary email to {}: {}", user.getEmail(), e.getMessage());
-            // Don't rethrow — email failure should not break the summary generation
+            log.error("Failed to send weekly summary email to {}: {}", email, e.getMessage());
+            // Don't rethrow — the summary stays EMAIL_PENDING and is retried by the sweep
         }
     }
 }
@@ -0,0 +1,283 @@
+package com.example.service;
+
+import com.example.entity.EmbeddingJob;
+import com.example.entity.EmbeddingJobStatus;
+import com.example.entity.VectorPurgeJob;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * EmbeddingOutbox
+ * ===============
+ * Mongo-backed queue of work for the AI service's vector store: entries waiting
+ * to be embedded (EmbeddingJob) and deleted users' vectors waiting to be purged
+ * (VectorPurgeJob, in a sibling collection).
+ *
+ * Producers (JournalEntryService, UserService) call enqueue() / enqueuePurge()
+ * inside their transaction; the EmbeddingOutboxDispatcher claims due jobs, calls
+ * the AI service and reports back through complete() / fail(). Failed jobs are rescheduled with exponential
+ * back-off and dead-lettered after max-attempts, so no request is ever dropped
+ * silently — DEAD jobs stay visible until an admin retries them.
+ *
+ * Every transition is a conditional update on the job's status (and claim time),
+ * so several dispatcher instances can safely share the collection.
+ *
+ * enqueue() relies on the unique entryId index for one job per entry, and
+ * auto-index-creation is off, so the outbox creates its own indexes on startup.
+ */
+@Service
+@Slf4j
+public class EmbeddingOutbox {
+
+    private final MongoTemplate mongoTemplate;
+
+    /** Jobs are dead-lettered after this many failed attempts. */
+    @Value("${embedding.outbox.max-attempts:8}")
+    private int maxAttempts = 8;
+
+    /** Retry delay after the first failure; doubles per attempt... */
+    @Value("${embedding.outbox.initial-backoff-ms:5000}")
+    private long initialBackoffMs = 5_000;
+
+    /** ...up to this ceiling. */
+    @Value("${embedding.outbox.max-backoff-ms:1800000}")
+    private long maxBackoffMs = 1_800_000;
+
+    /** PROCESSING jobs older than this are assumed to belong to a dead dispatcher. */
+    @Value("${embedding.outbox.processing-timeout-ms:300000}")
+    private long processingTimeoutMs = 300_000;
+
+    /** Max entry ids per purge job, i.e. per delete request to the AI service. */
+    @Value("${ai.service.purge-batch-size:500}")
+    private int purgeBatchSize = 500;
+
+    public EmbeddingOutbox(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /** Create the indexes declared on the job classes; existing identical indexes are a no-op. */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(0)
+    public void ensureIndexes() {
+        MongoPersistentEntityIndexResolver resolver =
+                new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext());
+        for (Class<?> type : List.of(EmbeddingJob.class, VectorPurgeJob.class)) {
+            IndexOperations indexOps = mongoTemplate.indexOps(type);
+            try {
+                resolver.resolveIndexFor(type).forEach(indexOps::ensureIndex);
+            } catch (RuntimeException e) {
+                // e.g. duplicate entryIds written before the unique index existed
+                log.error("Could not create outbox indexes for {}: {}", type.getSimpleName(), e.getMessage());
+            }
+        }
+    }
+
+    // -----------------------------------------------------------------------
+    // Producer side
+    // -----------------------------------------------------------------------
+
+    /**
+     * Request (re-)embedding of an entry. Upserts the entry's single job and makes
+     * it due now; a job already in flight loses its claim, so the dispatcher will
+     * run it again with the latest content.
+     */
+    public void enqueue(ObjectId entryId, ObjectId userId) {
+        LocalDateTime now = LocalDateTime.now();
+        Update update = new Update()
+                .set("status", EmbeddingJobStatus.PENDING)
+                .set("attempts", 0)
+                .set("nextAttemptAt", now)
+                .unset("claimedAt")
+                .unset("lastError")
+                .setOnInsert("userId", userId)
+                .setOnInsert("createdAt", now);
+
+        mongoTemplate.upsert(Query.query(Criteria.where("entryId").is(entryId)), update, EmbeddingJob.class);
+    }
+
+    /** Drop outstanding jobs of a deleted user. */
+    public long deleteForUser(ObjectId userId) {
+        return mongoTemplate.remove(Query.query(Criteria.where("userId").is(userId)), EmbeddingJob.class)
+                .getDeletedCount();
+    }
+
+    /**
+     * Request deletion of a deleted user's entry vectors. Ids are split into jobs
+     * of purge-batch-size, so a heavy user does not produce one giant request.
+     */
+    public void enqueuePurge(ObjectId userId, List<String> entryIds) {
+        if (entryIds.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        int batchSize = Math.max(1, purgeBatchSize);
+        List<VectorPurgeJob> jobs = new ArrayList<>();
+        for (int from = 0; from < entryIds.size(); from += batchSize) {
+            VectorPurgeJob job = new VectorPurgeJob();
+            job.setUserId(userId);
+            job.setEntryIds(List.copyOf(entryIds.subList(from, Math.min(from + batchSize, entryIds.size()))));
+            job.setStatus(EmbeddingJobStatus.PENDING);
+            job.setNextAttemptAt(now);
+            job.setCreatedAt(now);
+            jobs.add(job);
+        }
+        mongoTemplate.insertAll(jobs);
+    }
+
+    // -----------------------------------------------------------------------
+    // Dispatcher side
+    // -----------------------------------------------------------------------
+
+    /**
+     * Claim up to {@code limit} due jobs (PENDING → PROCESSING), oldest first.
+     * Jobs whose claim has timed out are released first.
+     *
+     * A full batch is claimed at once; fewer than {@code limit} due jobs are left
+     * alone until the oldest has been due for {@code linger}, so they can fill up.
+     */
+    public List<EmbeddingJob> claimDue(int limit, Duration linger) {
+        return claimDue(limit, linger, EmbeddingJob.class, EmbeddingJob::getId, EmbeddingJob::getNextAttemptAt);
+    }
+
+    /** Claim up to {@code limit} due vector purge jobs, oldest first; each is its own request, so no linger. */
+    public List<VectorPurgeJob> claimDuePurges(int limit) {
+        return claimDue(limit, Duration.ZERO, VectorPurgeJob.class, VectorPurgeJob::getId,
+                VectorPurgeJob::getNextAttemptAt);
+    }
+
+    /**
+     * The entry is embedded — remove the job. No-op if the entry was saved again
+     * in the meantime (the claim was reset), so that newer request still runs.
+     */
+    public void complete(EmbeddingJob job) {
+        mongoTemplate.remove(claimedBy(job.getId(), job.getClaimedAt()), EmbeddingJob.class);
+    }
+
+    /** The vectors are purged — remove the job. */
+    public void complete(VectorPurgeJob job) {
+        mongoTemplate.remove(claimedBy(job.getId(), job.getClaimedAt()), VectorPurgeJob.class);
+    }
+
+    /**
+     * Record a failed attempt: reschedule with back-off, or dead-letter once
+     * max-attempts is reached.
+     *
+     * @return true if the job was dead-lettered
+     */
+    public boolean fail(EmbeddingJob job, String error) {
+        return fail(job.getId(), job.getClaimedAt(), job.getAttempts(), error, EmbeddingJob.class,
+                "Embedding job for entry " + job.getEntryId());
+    }
+
+    /** Same as {@link #fail(EmbeddingJob, String)} for a vector purge job. */
+    public boolean fail(VectorPurgeJob job, String error) {
+        return fail(job.getId(), job.getClaimedAt(), job.getAttempts(), error, VectorPurgeJob.class,
+                "Vector purge job for deleted user " + job.getUserId());
+    }
+
+    /** Put every DEAD job, embedding and purge alike, back in the queue with a fresh attempt budget. */
+    public long retryDead() {
+        Query dead = Query.query(Criteria.where("status").is(EmbeddingJobStatus.DEAD));
+        Update requeue = new Update()
+                .set("status", EmbeddingJobStatus.PENDING)
+                .set("attempts", 0)
+                .set("nextAttemptAt", LocalDateTime.now());
+        return mongoTemplate.updateMulti(dead, requeue, EmbeddingJob.class).getModifiedCount()
+                + mongoTemplate.updateMulti(dead, requeue, VectorPurgeJob.class).getModifiedCount();
+    }
+
+    /** Jobs of both kinds in the given state — a stuck purge shows up in the same gauges. */
+    public long count(EmbeddingJobStatus status) {
+        Query query = Query.query(Criteria.where("status").is(status));
+        return mongoTemplate.count(query, EmbeddingJob.class) + mongoTemplate.count(query, VectorPurgeJob.class);
+    }
+
+    /** initialBackoff * 2^(attempts-1), capped at maxBackoff. */
+    Duration backoff(int attempts) {
+        long delay = initialBackoffMs << Math.min(attempts - 1, 20);
+        return Duration.ofMillis(Math.min(delay, maxBackoffMs));
+    }
+
+    private <T> List<T> claimDue(int limit, Duration linger, Class<T> type, Function<T, ObjectId> id,
+                                 Function<T, LocalDateTime> dueAt) {
+        LocalDateTime now = LocalDateTime.now();
+
+        mongoTemplate.updateMulti(
+                Query.query(Criteria.where("status").is(EmbeddingJobStatus.PROCESSING)
+                        .and("claimedAt").lt(now.minusNanos(processingTimeoutMs * 1_000_000))),
+                new Update().set("status", EmbeddingJobStatus.PENDING).unset("claimedAt"),
+                type);
+
+        Query due = Query.query(Criteria.where("status").is(EmbeddingJobStatus.PENDING)
+                        .and("nextAttemptAt").lte(now))
+                .with(Sort.by(Sort.Direction.ASC, "nextAttemptAt"))
+                .limit(limit);
+        due.fields().include("_id").include("nextAttemptAt");
+
+        List<T> candidates = mongoTemplate.find(due, type);
+        if (!candidates.isEmpty() && candidates.size() < limit && !linger.isZero()
+                && dueAt.apply(candidates.get(0)).isAfter(now.minus(linger))) {
+            return List.of();   // partial batch, still lingering
+        }
+
+        List<T> claimed = new ArrayList<>();
+        for (T candidate : candidates) {
+            T job = mongoTemplate.findAndModify(
+                    Query.query(Criteria.where("_id").is(id.apply(candidate))
+                            .and("status").is(EmbeddingJobStatus.PENDING)),
+                    new Update().set("status", EmbeddingJobStatus.PROCESSING).set("claimedAt", now),
+                    FindAndModifyOptions.options().returnNew(true),
+                    type);
+            if (job != null) {
+                claimed.add(job);
+            }
+        }
+        return claimed;
+    }
+
+    private boolean fail(ObjectId id, LocalDateTime claimedAt, int previousAttempts, String error,
+                         Class<?> type, String what) {
+        int attempts = previousAttempts + 1;
+        boolean dead = attempts >= maxAttempts;
+
+        Update update = new Update()
+                .set("attempts", attempts)
+                .set("lastError", error)
+                .unset("claimedAt");
+        if (dead) {
+            update.set("status", EmbeddingJobStatus.DEAD);
+            log.error("{} dead-lettered after {} attempts: {}", what, attempts, error);
+        } else {
+            update.set("status", EmbeddingJobStatus.PENDING)
+                    .set("nextAttemptAt", LocalDateTime.now().plus(backoff(attempts)));
+        }
+
+        mongoTemplate.updateFirst(claimedBy(id, claimedAt), update, type);
+        return dead;
+    }
+
+    private static Query claimedBy(ObjectId id, LocalDateTime claimedAt) {
+        return Query.query(Criteria.where("_id").is(id)
+                .and("status").is(EmbeddingJobStatus.PROCESSING)
+                .and("claimedAt").is(claimedAt));
+    }
+}
@@ -0,0 +1,311 @@
+package com.example.service;
+
+import com.example.dto.JournalAnalysis;
+import com.example.dto.WeeklyAiReflection;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Single-pass parsers for Gemini output.
+ *
+ * The line format ("Mood: ...") is scanned once by index — no split() array,
+ * no per-line copies; the only allocations are the field values themselves.
+ * JSON answers are read with Jackson's streaming parser straight into the DTOs
+ * (no JsonNode tree), and a markdown fence around them is skipped by index
+ * instead of two regex replaceAll passes.
+ *
+ * Missing fields and unparsable scores are left null, so GeminiService can tell
+ * a complete answer (cached) from a partial one (default-filled, not cached).
+ *
+ * streamStringField() decodes one string field of a JSON answer while it is
+ * still being streamed, so a client sees the text rather than JSON fragments.
+ */
+public final class GeminiOutputParser {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private static final String MOOD = "Mood:";
+    private static final String EMOTIONS = "Emotions:";
+    private static final String SUMMARY = "Summary:";
+    private static final String MOTIVATIONAL_THOUGHT = "Motivational Thought:";
+    private static final String SENTIMENT_SCORE = "Sentiment Score:";
+
+    private GeminiOutputParser() {
+    }
+
+    /** Parse the line-oriented single-entry analysis format. */
+    public static JournalAnalysis parseAnalysis(String text) {
+        JournalAnalysis analysis = new JournalAnalysis();
+        int length = text.length();
+        int lineStart = 0;
+        while (lineStart < length) {
+            int lineEnd = text.indexOf('\n', lineStart);
+            if (lineEnd < 0) {
+                lineEnd = length;
+            }
+            applyLine(analysis, text, lineStart, lineEnd);
+            lineStart = lineEnd + 1;
+        }
+        return analysis;
+    }
+
+    /** Parse the weekly reflection object; unknown fields are ignored. */
+    public static WeeklyAiReflection parseWeeklyReflection(String text) throws IOException {
+        WeeklyAiReflection reflection = new WeeklyAiReflection();
+        try (JsonParser parser = createParser(text)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalStateException("Expected a JSON object from weekly reflection");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "reflectionText" -> reflection.setReflectionText(parser.getValueAsString());
+                    case "trend" -> reflection.setTrend(parser.getValueAsString());
+                    case "suggestion" -> reflection.setSuggestion(parser.getValueAsString());
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+        return reflection;
+    }
+
+    /**
+     * Parse the batch analysis array.
+     * Items without an id, or with an id not in {@code expectedIds}, are dropped.
+     */
+    public static Map<String, JournalAnalysis> parseBatchAnalysis(String text, Set<String> expectedIds)
+            throws IOException {
+        Map<String, JournalAnalysis> results = new HashMap<>();
+        try (JsonParser parser = createParser(text)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalStateException("Expected a JSON array from batch analysis");
+            }
+            for (JsonToken item = parser.nextToken(); item != null && item != JsonToken.END_ARRAY;
+                 item = parser.nextToken()) {
+                if (item != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    continue;
+                }
+
+                String id = null;
+                JournalAnalysis analysis = new JournalAnalysis();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    JsonToken value = parser.nextToken();
+                    switch (field) {
+                        case "id" -> id = textOrNull(parser, value);
+                        case "mood" -> analysis.setMood(textOrNull(parser, value));
+                        case "emotions" -> analysis.setEmotions(textOrNull(parser, value));
+                        case "summary" -> analysis.setSummary(textOrNull(parser, value));
+                        case "motivationalThought" -> analysis.setMotivationalThought(textOrNull(parser, value));
+                        case "sentimentScore" -> analysis.setSentimentScore(score(parser, value));
+                        default -> parser.skipChildren();
+                    }
+                }
+
+                if (id != null && expectedIds.contains(id)) {   // ignore hallucinated / unknown ids
+                    results.put(id, analysis);
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * A consumer for raw fragments of a streamed JSON object that passes the decoded
+     * text of the top-level string field {@code field} to {@code onText} as it arrives.
+     * Everything else — other fields, punctuation, a markdown fence — is dropped.
+     */
+    public static Consumer<String> streamStringField(String field, Consumer<String> onText) {
+        return new StringFieldStreamer(field, onText);
+    }
+
+    /**
+     * The payload inside an optional ```json … ``` fence, trimmed.
+     * Returns {@code text} itself when there is nothing to strip.
+     */
+    static String stripCodeFence(String text) {
+        int start = 0;
+        int end = text.length();
+        while (start < end && Character.isWhitespace(text.charAt(start))) start++;
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) end--;
+
+        if (text.startsWith("```", start)) {
+            start += 3;
+            if (text.startsWith("json", start)) {
+                start += 4;
+            }
+            if (end - 3 >= start && text.startsWith("```", end - 3)) {
+                end -= 3;
+            }
+            while (start < end && Character.isWhitespace(text.charAt(start))) start++;
+            while (end > start && Character.isWhitespace(text.charAt(end - 1))) end--;
+        }
+        return start == 0 && end == text.length() ? text : text.substring(start, end);
+    }
+
+    private static JsonParser createParser(String text) throws IOException {
+        return JSON.createParser(stripCodeFence(text));
+    }
+
+    private static void applyLine(JournalAnalysis analysis, String text, int start, int end) {
+        if (text.startsWith(MOOD, start)) {
+            analysis.setMood(value(text, start + MOOD.length(), end));
+        } else if (text.startsWith(EMOTIONS, start)) {
+            analysis.setEmotions(value(text, start + EMOTIONS.length(), end));
+        } else if (text.startsWith(SUMMARY, start)) {
+            analysis.setSummary(value(text, start + SUMMARY.length(), end));
+        } else if (text.startsWith(MOTIVATIONAL_THOUGHT, start)) {
+            analysis.setMotivationalThought(value(text, start + MOTIVATIONAL_THOUGHT.length(), end));
+        } else if (text.startsWith(SENTIMENT_SCORE, start)) {
+            try {
+                analysis.setSentimentScore(Double.parseDouble(value(text, start + SENTIMENT_SCORE.length(), end)));
+            } catch (NumberFormatException e) {
+                // left null like a missing field
+            }
+        }
+    }
+
+    /** Trimmed text in [from, end) — a prefix can only match within its own line. */
+    private static String value(String text, int from, int end) {
+        from = Math.min(from, end);
+        while (from < end && Character.isWhitespace(text.charAt(from))) from++;
+        while (end > from && Character.isWhitespace(text.charAt(end - 1))) end--;
+        return text.substring(from, end);
+    }
+
+    private static String textOrNull(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return null;
+        }
+        String value = parser.getValueAsString();
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private static Double score(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+            return parser.getDoubleValue();
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            try {
+                return Double.parseDouble(parser.getText().trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+            parser.skipChildren();
+        }
+        return null;
+    }
+
+    /**
+     * Incremental JSON tokenizer that only tracks what it needs: nesting depth,
+     * string and escape state, and the last top-level key. Fragments may split
+     * a key or an escape sequence anywhere.
+     */
+    private static final class StringFieldStreamer implements Consumer<String> {
+
+        private final String field;
+        private final Consumer<String> onText;
+        private final StringBuilder key = new StringBuilder();
+
+        private int depth;
+        private boolean inString;
+        private boolean inKey;
+        private boolean emitting;
+        private boolean valueExpected;   // top level, after ':'
+        private boolean escaped;
+        private int unicodeDigits;       // hex digits still to read of a unicode escape
+        private int unicodeValue;
+        private String lastKey;
+
+        private StringFieldStreamer(String field, Consumer<String> onText) {
+            this.field = field;
+            this.onText = onText;
+        }
+
+        @Override
+        public void accept(String fragment) {
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < fragment.length(); i++) {
+                char c = fragment.charAt(i);
+                if (inString) {
+                    inString(c, text);
+                    continue;
+                }
+                switch (c) {
+                    case '"' -> {
+                        inString = true;
+                        inKey = depth == 1 && !valueExpected;
+                        emitting = depth == 1 && valueExpected && field.equals(lastKey);
+                        valueExpected = false;
+                        key.setLength(0);
+                    }
+                    case ':' -> valueExpected = depth == 1;
+                    case ',' -> valueExpected = false;
+                    case '{', '[' -> {
+                        valueExpected = false;
+                        depth++;
+                    }
+                    case '}', ']' -> depth--;
+                    default -> { }
+                }
+            }
+            if (!text.isEmpty()) {
+                onText.accept(text.toString());
+            }
+        }
+
+        private void inString(char c, StringBuilder text) {
+            if (unicodeDigits > 0) {
+                unicodeValue = unicodeValue * 16 + Math.max(0, Character.digit(c, 16));
+                if (--unicodeDigits == 0) {
+                    append((char) unicodeValue, text);
+                }
+            } else if (escaped) {
+                escaped = false;
+                switch (c) {
+                    case 'u' -> {
+                        unicodeDigits = 4;
+                        unicodeValue = 0;
+                    }
+                    case 'n' -> append('\n', text);
+                    case 't' -> append('\t', text);
+                    case 'r' -> append('\r', text);
+                    case 'b' -> append('\b', text);
+                    case 'f' -> append('\f', text);
+                    default -> append(c, text);   // \" \\ \/
+                }
+            } else if (c == '\\') {
+                escaped = true;
+            } else if (c == '"') {
+                inString = false;
+                if (inKey) {
+                    lastKey = key.toString();
+                }
+                inKey = false;
+                emitting = false;
+            } else {
+                append(c, text);
+            }
+        }
+
+        private void append(char c, StringBuilder text) {
+            if (inKey) {
+                key.append(c);
+            } else if (emitting) {
+                text.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.service;
+
+import com.example.cache.TtlLruCache;
+import com.example.dto.JournalAnalysis;
+import com.example.dto.WeeklyAiReflection;
+import com.example.entity.AiResultCacheEntry;
+import com.example.repository.AiResultCacheRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Content-hash keyed cache for Gemini results.
+ *
+ * Re-analysis, no-op edits and retries send byte-identical text to Gemini — this
+ * short-circuits those calls. Keys are SHA-256 of the whitespace-normalized input
+ * plus a prompt version, so changing a prompt invalidates old answers.
+ *
+ * Tier 1: in-memory TtlLruCache (bounded, TTL, LRU).
+ * Tier 2: optional MongoDB collection (gemini.cache.mongo.enabled) — survives restarts.
+ *         Its TTL index is created here on startup from gemini.cache.mongo.ttl-hours.
+ *
+ * Only successful Gemini answers are stored; fallbacks never are.
+ */
+@Service
+@Slf4j
+public class GeminiResultCache {
+
+    // Bump when the corresponding prompt changes so stale answers stop matching
+    private static final String ANALYSIS_KEY_PREFIX = "analysis:v1:";
+    private static final String REFLECTION_KEY_PREFIX = "reflection:v1:";
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final String TTL_INDEX = "createdAt_ttl";
+
+    private final TtlLruCache<String, Object> memory;
+    private final AiResultCacheRepository repository;
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final MeterRegistry meterRegistry;
+    private final boolean mongoEnabled;
+    private final Duration mongoTtl;
+
+    public GeminiResultCache(AiResultCacheRepository repository,
+                             MongoTemplate mongoTemplate,
+                             MeterRegistry meterRegistry,
+                             @Value("${gemini.cache.max-entries:1000}") int maxEntries,
+                             @Value("${gemini.cache.ttl-minutes:1440}") long ttlMinutes,
+                             @Value("${gemini.cache.mongo.enabled:false}") boolean mongoEnabled,
+                             @Value("${gemini.cache.mongo.ttl-hours:168}") long mongoTtlHours) {
+        this.repository = repository;
+        this.mongoTemplate = mongoTemplate;
+        this.meterRegistry = meterRegistry;
+        this.memory = new TtlLruCache<>(maxEntries, Duration.ofMinutes(ttlMinutes));
+        this.mongoEnabled = mongoEnabled;
+        this.mongoTtl = Duration.ofHours(mongoTtlHours);
+
+        Gauge.builder("gemini.cache.size", memory, TtlLruCache::size).register(meterRegistry);
+        Gauge.builder("gemini.cache.evictions", memory, TtlLruCache::evictionCount).register(meterRegistry);
+    }
+
+    /**
+     * Create the Mongo tier's TTL index from gemini.cache.mongo.ttl-hours, so Mongo
+     * deletes entries exactly when reads stop accepting them. An existing index with
+     * another expiry is switched over in place (collMod).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(0)
+    public void ensureIndexes() {
+        if (!mongoEnabled) {
+            return;
+        }
+        IndexOperations indexOps = mongoTemplate.indexOps(AiResultCacheEntry.class);
+        try {
+            Optional<IndexInfo> existing = indexOps.getIndexInfo().stream()
+                    .filter(index -> TTL_INDEX.equals(index.getName()))
+                    .findFirst();
+            if (existing.isEmpty()) {
+                indexOps.ensureIndex(new Index("createdAt", Sort.Direction.ASC).named(TTL_INDEX).expire(mongoTtl));
+            } else if (!existing.get().getExpireAfter().equals(Optional.of(mongoTtl))) {
+                mongoTemplate.executeCommand(new Document("collMod", mongoTemplate.getCollectionName(AiResultCacheEntry.class))
+                        .append("index", new Document("name", TTL_INDEX)
+                                .append("expireAfterSeconds", mongoTtl.toSeconds())));
+                log.info("Gemini cache TTL index changed to {}h", mongoTtl.toHours());
+            }
+        } catch (RuntimeException e) {
+            log.error("Could not create the Gemini cache TTL index: {}", e.getMessage());
+        }
+    }
+
+    // -----------------------------------------------------------------------
+    // Journal analysis
+    // -----------------------------------------------------------------------
+
+    public Optional<JournalAnalysis> getAnalysis(String content) {
+        return get(ANALYSIS_KEY_PREFIX + hash(content), JournalAnalysis.class);
+    }
+
+    public void putAnalysis(String content, JournalAnalysis analysis) {
+        put(ANALYSIS_KEY_PREFIX + hash(content), analysis);
+    }
+
+    // -----------------------------------------------------------------------
+    // Weekly reflection
+    // -----------------------------------------------------------------------
+
+    public Optional<WeeklyAiReflection> getWeeklyReflection(String weeklySignal) {
+        return get(REFLECTION_KEY_PREFIX + hash(weeklySignal), WeeklyAiReflection.class);
+    }
+
+    public void putWeeklyReflection(String weeklySignal, WeeklyAiReflection reflection) {
+        put(REFLECTION_KEY_PREFIX + hash(weeklySignal), reflection);
+    }
+
+    // -----------------------------------------------------------------------
+    // Private helpers
+    // -----------------------------------------------------------------------
+
+    private <T> Optional<T> get(String key, Class<T> type) {
+        Object cached = memory.get(key);
+        if (type.isInstance(cached)) {
+            record("hit", "memory");
+            return Optional.of(type.cast(cached));
+        }
+
+        if (mongoEnabled) {
+            try {
+                Optional<AiResultCacheEntry> stored = repository.findById(key)
+                        .filter(e -> e.getCreatedAt() != null
+                                && e.getCreatedAt().isAfter(LocalDateTime.now().minus(mongoTtl)));
+                if (stored.isPresent()) {
+                    T value = objectMapper.readValue(stored.get().getPayload(), type);
+                    memory.put(key, value);   // promote to tier 1
+                    record("hit", "mongo");
+                    return Optional.of(value);
+                }
+            } catch (Exception e) {
+                log.warn("Gemini cache: Mongo tier read failed for {}: {}", key, e.getMessage());
+            }
+        }
+
+        record("miss", mongoEnabled ? "mongo" : "memory");
+        return Optional.empty();
+    }
+
+    private void put(String key, Object value) {
+        memory.put(key, value);
+
+        if (mongoEnabled) {
+            try {
+                repository.save(new AiResultCacheEntry(
+                        key, objectMapper.writeValueAsString(value), LocalDateTime.now()));
+            } catch (Exception e) {
+                log.warn("Gemini cache: Mongo tier write failed for {}: {}", key, e.getMessage());
+            }
+        }
+    }
+
+    private void record(String result, String tier) {
+        meterRegistry.counter("gemini.cache.requests", "result", result, "tier", tier).increment();
+    }
+
+    /** SHA-256 of the input with surrounding whitespace trimmed and inner runs collapsed. */
+    static String hash(String input) {
+        String normalized = input == null ? "" : WHITESPACE.matcher(input.strip()).replaceAll(" ");
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(normalized.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -1,24 +1,77 @@
 package com.example.service;
 
+import com.example.client.AiHttpClient;
 import com.example.dto.GeminiRequest;
 import com.example.dto.GeminiResponse;
 import com.example.dto.JournalAnalysis;
 import com.example.dto.WeeklyAiReflection;
+import com.example.exception.GeminiUnavailableException;
+import com.example.resilience.GeminiGuard;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
+/**
+ * Gemini analysis, batch analysis and weekly reflections.
+ *
+ * Every operation exists as a CompletableFuture-returning *Async method on top of
+ * the non-blocking AiHttpClient, so callers can fan out or compose calls without
+ * holding a thread per in-flight request. The plain methods join on the async
+ * ones and keep their original contracts for existing synchronous callers.
+ * The *Streaming variants use Gemini's streamed generation and hand text to the
+ * caller as it is produced, for endpoints that push progress to the browser.
+ */
 @Service
 @Slf4j
 public class GeminiService {
 
-    private final RestTemplate restTemplate;
+    private final AiHttpClient httpClient;
+    private final GeminiResultCache resultCache;
+    private final GeminiGuard geminiGuard;
+    private static final Map<String, Object> STRING = Map.of("type", "STRING");
+
+    private static final Map<String, Object> WEEKLY_REFLECTION_SCHEMA = Map.of(
+            "type", "OBJECT",
+            "properties", Map.of(
+                    "reflectionText", STRING,
+                    "trend", Map.of("type", "STRING", "enum", List.of("IMPROVING", "DECLINING", "MIXED")),
+                    "suggestion", STRING),
+            "required", List.of("reflectionText", "trend", "suggestion"));
+
+    private static final Map<String, Object> BATCH_ANALYSIS_SCHEMA = Map.of(
+            "type", "ARRAY",
+            "items", Map.of(
+                    "type", "OBJECT",
+                    "properties", Map.of(
+                            "id", STRING,
+                            "mood", STRING,
+                            "emotions", STRING,
+                            "summary", STRING,
+                            "motivationalThought", STRING,
+                            "sentimentScore", Map.of("type", "NUMBER")),
+                    "required", List.of("id", "mood", "emotions", "summary", "motivationalThought", "sentimentScore")));
+
     private final ObjectMapper objectMapper = new ObjectMapper();
+    // Stream events carry usage metadata etc. that GeminiResponse does not model
+    private final ObjectReader chunkReader = objectMapper.readerFor(GeminiResponse.class)
+            .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
 
     @Value("${gemini.api.key}")
     private String apiKey;
@@ -26,8 +79,20 @@ public class GeminiService {
     @Value("${gemini.api.url}")
     private String apiUrl;
 
-    public GeminiService(RestTemplate restTemplate) {
-        this.restTemplate = restTemplate;
+    /** Ask for schema-constrained JSON (responseSchema) where the answer is JSON anyway. */
+    @Value("${gemini.api.json-mode:true}")
+    private boolean jsonMode = true;
+
+    /** Streaming endpoint; derived from gemini.api.url when not set. */
+    @Value("${gemini.api.stream-url:}")
+    private String streamUrl;
+
+    public GeminiService(AiHttpClient httpClient,
+                         GeminiResultCache resultCache,
+                         GeminiGuard geminiGuard) {
+        this.httpClient = httpClient;
+        this.resultCache = resultCache;
+        this.geminiGuard = geminiGuard;
     }
 
     // -----------------------------------------------------------------------
@@ -37,17 +102,62 @@ public class GeminiService {
     /**
      * Analyze a journal entry using Gemini.
      * Returns mood, emotions, summary, motivational thought, and sentiment score.
-     * Falls back gracefully if the API fails.
+     * Identical content is served from GeminiResultCache. Falls back gracefully if the API fails.
      */
     public JournalAnalysis analyzeJournalEntry(String journalContent) {
-        try {
-            String prompt = buildAnalysisPrompt(journalContent);
-            String generatedText = callGemini(prompt);
-            return parseAnalysisResponse(generatedText);
-        } catch (Exception e) {
-            log.error("Error calling Gemini API for analysis: {}", e.getMessage(), e);
-            return createFallbackAnalysis();
+        return join(orFallback(analyzeJournalEntryAsync(journalContent)));
+    }
+
+    /**
+     * Non-blocking {@link #analyzeJournalEntry(String)}.
+     * Completes exceptionally only with GeminiUnavailableException — the call was
+     * rejected locally (breaker open, concurrency or rate limit), so background work
+     * can retry later instead of persisting a placeholder. Any other failure
+     * completes with the fallback analysis.
+     */
+    public CompletableFuture<JournalAnalysis> analyzeJournalEntryAsync(String journalContent) {
+        return analyze(journalContent, this::callGeminiAsync);
+    }
+
+    /**
+     * Streaming {@link #analyzeJournalEntryAsync(String)}: generated text is passed to
+     * {@code onChunk} fragment by fragment while Gemini writes it (the raw
+     * "Mood: / Summary: / Motivational Thought:" lines), and the future completes
+     * with the parsed analysis — or the fallback — once the stream ends.
+     * A cache hit completes immediately without any chunks.
+     */
+    public CompletableFuture<JournalAnalysis> analyzeJournalEntryStreaming(String journalContent,
+                                                                           Consumer<String> onChunk) {
+        return orFallback(analyze(journalContent, prompt -> streamGeminiAsync(prompt, onChunk)));
+    }
+
+    private CompletableFuture<JournalAnalysis> analyze(String journalContent,
+                                                       Function<GeminiRequest, CompletableFuture<String>> gemini) {
+        Optional<JournalAnalysis> cached = resultCache.getAnalysis(journalContent);
+        if (cached.isPresent()) {
+            log.debug("Gemini analysis served from cache");
+            return CompletableFuture.completedFuture(cached.get());
         }
+
+        // Line format rather than JSON mode, so a streamed analysis reads as text
+        return gemini.apply(GeminiRequest.create(buildAnalysisPrompt(journalContent)))
+                .thenApply(generatedText -> parseAnalysisResponse(journalContent, generatedText))
+                .exceptionallyCompose(error -> {
+                    Throwable cause = unwrap(error);
+                    if (cause instanceof GeminiUnavailableException) {
+                        return CompletableFuture.failedFuture(cause);
+                    }
+                    log.error("Error calling Gemini API for analysis: {}", cause.getMessage(), cause);
+                    return CompletableFuture.completedFuture(createFallbackAnalysis());
+                });
+    }
+
+    /** For interactive callers: a locally rejected analysis becomes the fallback as well. */
+    private CompletableFuture<JournalAnalysis> orFallback(CompletableFuture<JournalAnalysis> analysis) {
+        return analysis.exceptionally(error -> {
+            log.warn("Skipping Gemini analysis — {}", unwrap(error).getMessage());
+            return createFallbackAnalysis();
+        });
     }
 
     /**
@@ -56,61 +166,229 @@ public class GeminiService {
      * Throws on failure — caller should handle with a deterministic fallback.
      */
     public WeeklyAiReflection generateWeeklyReflection(String weeklySignal) {
-        try {
-            String prompt = buildWeeklyReflectionPrompt(weeklySignal);
-            String generatedText = callGemini(prompt);
+        return join(generateWeeklyReflectionAsync(weeklySignal));
+    }
+
+    /**
+     * Non-blocking {@link #generateWeeklyReflection(String)}.
+     * Completes exceptionally with RuntimeException("Weekly AI reflection failed").
+     */
+    public CompletableFuture<WeeklyAiReflection> generateWeeklyReflectionAsync(String weeklySignal) {
+        return reflect(weeklySignal, this::callGeminiAsync);
+    }
 
-            // Strip markdown code fences if Gemini wraps JSON in ```json ... ```
-            String cleaned = generatedText
-                    .replaceAll("(?s)```json\\s*", "")
-                    .replaceAll("(?s)```\\s*", "")
-                    .trim();
+    /**
+     * Streaming {@link #generateWeeklyReflectionAsync(String)}: the reflection is
+     * generated as JSON like the non-streaming call, but only the decoded
+     * reflectionText is passed to {@code onChunk} as it arrives, so the stream reads
+     * as text. The future completes with the parsed reflection once the stream ends.
+     */
+    public CompletableFuture<WeeklyAiReflection> generateWeeklyReflectionStreaming(String weeklySignal,
+                                                                                   Consumer<String> onChunk) {
+        return reflect(weeklySignal, prompt -> streamGeminiAsync(prompt,
+                GeminiOutputParser.streamStringField("reflectionText", onChunk)));
+    }
 
-            return objectMapper.readValue(cleaned, WeeklyAiReflection.class);
+    private CompletableFuture<WeeklyAiReflection> reflect(String weeklySignal,
+                                                          Function<GeminiRequest, CompletableFuture<String>> gemini) {
+        Optional<WeeklyAiReflection> cached = resultCache.getWeeklyReflection(weeklySignal);
+        if (cached.isPresent()) {
+            log.debug("Weekly reflection served from cache");
+            return CompletableFuture.completedFuture(cached.get());
+        }
 
-        } catch (Exception e) {
-            log.error("Weekly AI reflection failed", e);
-            throw new RuntimeException("Weekly AI reflection failed", e);
+        return gemini.apply(request(buildWeeklyReflectionPrompt(weeklySignal), WEEKLY_REFLECTION_SCHEMA))
+                .thenApply(generatedText -> {
+                    try {
+                        WeeklyAiReflection reflection = GeminiOutputParser.parseWeeklyReflection(generatedText);
+                        if (isComplete(reflection)) {
+                            resultCache.putWeeklyReflection(weeklySignal, reflection);
+                        }
+                        return reflection;
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                })
+                .exceptionallyCompose(error -> {
+                    log.error("Weekly AI reflection failed", unwrap(error));
+                    return CompletableFuture.failedFuture(
+                            new RuntimeException("Weekly AI reflection failed", unwrap(error)));
+                });
+    }
+
+    /**
+     * Analyze several journal entries with ONE Gemini call.
+     * Entries are sent as a JSON array and Gemini answers with a JSON array keyed by id.
+     *
+     * Cached entries are answered locally and left out of the prompt.
+     *
+     * @param contentsById entry id (hex) → journal content
+     * @return analysis per entry id; ids Gemini did not answer for are simply absent
+     * @throws RuntimeException if the call or the JSON parsing fails — caller decides the fallback
+     */
+    public Map<String, JournalAnalysis> analyzeJournalEntries(Map<String, String> contentsById) {
+        return join(analyzeJournalEntriesAsync(contentsById));
+    }
+
+    /**
+     * Non-blocking {@link #analyzeJournalEntries(Map)}. Completes exceptionally with
+     * RuntimeException("Batch journal analysis failed") whose cause is the original error.
+     */
+    public CompletableFuture<Map<String, JournalAnalysis>> analyzeJournalEntriesAsync(Map<String, String> contentsById) {
+        Map<String, JournalAnalysis> results = new HashMap<>();
+        Map<String, String> uncached = new LinkedHashMap<>();
+        contentsById.forEach((id, content) -> resultCache.getAnalysis(content)
+                .ifPresentOrElse(a -> results.put(id, a), () -> uncached.put(id, content)));
+
+        if (uncached.isEmpty()) {
+            return CompletableFuture.completedFuture(results);
+        }
+
+        String prompt;
+        try {
+            prompt = buildBatchAnalysisPrompt(uncached);
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(new RuntimeException("Batch journal analysis failed", e));
         }
+
+        return callGeminiAsync(request(prompt, BATCH_ANALYSIS_SCHEMA))
+                .thenApply(generatedText -> {
+                    try {
+                        Map<String, JournalAnalysis> fresh =
+                                GeminiOutputParser.parseBatchAnalysis(generatedText, uncached.keySet());
+                        fresh.forEach((id, analysis) -> {
+                            if (isComplete(analysis)) {
+                                resultCache.putAnalysis(uncached.get(id), analysis);
+                            } else {
+                                applyDefaults(analysis);
+                            }
+                        });
+                        results.putAll(fresh);
+                        return results;
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                })
+                .exceptionallyCompose(error -> {
+                    Throwable cause = unwrap(error);
+                    log.error("Batch analysis of {} entries failed: {}", uncached.size(), cause.getMessage());
+                    return CompletableFuture.failedFuture(new RuntimeException("Batch journal analysis failed", cause));
+                });
+    }
+
+    /**
+     * False while the circuit breaker is open — background jobs use this to
+     * postpone work instead of persisting a fallback analysis.
+     */
+    public boolean isAvailable() {
+        return geminiGuard.isAvailable();
     }
 
     // -----------------------------------------------------------------------
     // Private helpers
     // -----------------------------------------------------------------------
 
-    private String callGemini(String prompt) {
-        GeminiRequest request = GeminiRequest.create(prompt);
+    /**
+     * All outbound Gemini traffic goes through GeminiGuard (circuit breaker +
+     * adaptive concurrency limit + rate limit). The guard's permits are held until
+     * the response arrives, but no thread is parked while it is in flight.
+     */
+    private CompletableFuture<String> callGeminiAsync(GeminiRequest request) {
+        return geminiGuard.executeAsync(() -> doCallGemini(request));
+    }
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
+    private CompletableFuture<String> doCallGemini(GeminiRequest request) {
         // Best practice: Use the header instead of the URL parameter
         // Trim the API key to remove any trailing carriage returns from .env parsing on Windows
         String finalKey = apiKey != null ? apiKey.trim() : "";
-        headers.set("x-goog-api-key", finalKey);
 
         log.info("DEBUG: API Key being used starts with: {}", finalKey.length() >= 4 ? finalKey.substring(0, 4) : finalKey);
 
-        HttpEntity<GeminiRequest> entity = new HttpEntity<>(request, headers);
         String url = apiUrl != null ? apiUrl.trim() : "";
 
         log.info("Calling Gemini API...");
 
-        ResponseEntity<GeminiResponse> response = restTemplate.exchange(
-                url,
-                HttpMethod.POST,
-                entity,
-                GeminiResponse.class
-        );
-
-        if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-            String text = response.getBody().getGeneratedText();
-            if (text != null) {
-                log.info("Gemini call successful.");
-                return text;
+        return httpClient.postJson(url, Map.of("x-goog-api-key", finalKey), request, GeminiResponse.class)
+                .thenApply(response -> {
+                    String text = response != null ? response.getGeneratedText() : null;
+                    if (text == null) {
+                        throw new IllegalStateException("Gemini returned an empty response");
+                    }
+                    log.info("Gemini call successful.");
+                    return text;
+                });
+    }
+
+    /**
+     * Streamed generation (streamGenerateContent?alt=sse), same guard as callGeminiAsync.
+     * Each event is a partial GeminiResponse; its text is forwarded to onChunk and
+     * accumulated, and the future completes with the full text.
+     */
+    private CompletableFuture<String> streamGeminiAsync(GeminiRequest request, Consumer<String> onChunk) {
+        return geminiGuard.executeAsync(() -> {
+            StringBuilder generated = new StringBuilder();
+            String finalKey = apiKey != null ? apiKey.trim() : "";
+
+            log.info("Calling Gemini streaming API...");
+
+            return httpClient.postJsonStream(streamUrl(), Map.of("x-goog-api-key", finalKey),
+                            request, event -> {
+                                String text = readChunk(event).getGeneratedText();
+                                if (text != null && !text.isEmpty()) {
+                                    generated.append(text);
+                                    onChunk.accept(text);
+                                }
+                            })
+                    .thenApply(done -> {
+                        if (generated.isEmpty()) {
+                            throw new IllegalStateException("Gemini returned an empty stream");
+                        }
+                        log.info("Gemini streaming call successful.");
+                        return generated.toString();
+                    });
+        });
+    }
+
+    /** JSON mode with a response schema when enabled, else a plain prompt (fences are still tolerated). */
+    private GeminiRequest request(String prompt, Map<String, Object> responseSchema) {
+        return jsonMode ? GeminiRequest.json(prompt, responseSchema) : GeminiRequest.create(prompt);
+    }
+
+    /** gemini.api.stream-url, or the streaming twin of gemini.api.url. */
+    private String streamUrl() {
+        if (streamUrl != null && !streamUrl.isBlank()) {
+            return streamUrl.trim();
+        }
+        String url = apiUrl != null ? apiUrl.trim() : "";
+        return url.replace(":generateContent", ":streamGenerateContent") + (url.contains("?") ? "&" : "?") + "alt=sse";
+    }
+
+    private GeminiResponse readChunk(String event) {
+        try {
+            return chunkReader.readValue(event);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unreadable Gemini stream event", e);
+        }
+    }
+
+    /** Join for the synchronous API, rethrowing the original unchecked exception. */
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = unwrap(e);
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
             }
+            throw e;
         }
+    }
 
-        throw new RuntimeException("Gemini returned empty or non-OK response: " + response.getStatusCode());
+    private static Throwable unwrap(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
     }
 
     private String buildAnalysisPrompt(String journalContent) {
@@ -135,6 +413,30 @@ public class GeminiService {
                 """, journalContent);
     }
 
+    private String buildBatchAnalysisPrompt(Map<String, String> contentsById) throws JsonProcessingException {
+        List<Map<String, String>> entries = new ArrayList<>(contentsById.size());
+        contentsById.forEach((id, content) -> entries.add(Map.of("id", id, "text", content)));
+
+        return """
+                Analyze EACH of the following journal entries independently and provide for each:
+                
+                1. mood: the primary mood (one word: Happy, Sad, Anxious, Reflective, Grateful, Excited, Neutral, etc.)
+                2. emotions: 2-4 emotions present, comma-separated (Joy, Pride, Hope, Worry, Fear, etc.)
+                3. summary: a 2-3 sentence summary of the entry
+                4. motivationalThought: a personalized, encouraging thought or quote based on the entry (1-2 sentences)
+                5. sentimentScore: overall sentiment from -1.0 (very negative) to 1.0 (very positive), 0.0 is neutral
+                
+                Return STRICT JSON (no markdown code fences): an array with exactly one object per entry,
+                using the entry's "id" unchanged:
+                [
+                  {"id": "...", "mood": "...", "emotions": "...", "summary": "...", "motivationalThought": "...", "sentimentScore": 0.0}
+                ]
+                
+                Journal entries (JSON):
+                %s
+                """.formatted(objectMapper.writeValueAsString(entries));
+    }
+
     private String buildWeeklyReflectionPrompt(String weeklySignal) {
         return """
                 You are an assistant that writes a neutral weekly reflection for a journaling app.
@@ -161,50 +463,49 @@ public class GeminiService {
                 """.formatted(weeklySignal);
     }
 
-    private JournalAnalysis parseAnalysisResponse(String responseText) {
+    /**
+     * Parse a single-entry analysis. Only an answer with every field present is
+     * cached; a partial one is default-filled and an unparsable one replaced by the
+     * fallback, and neither is stored — the next request for that content asks Gemini again.
+     */
+    private JournalAnalysis parseAnalysisResponse(String journalContent, String responseText) {
+        JournalAnalysis analysis;
         try {
-            JournalAnalysis analysis = new JournalAnalysis();
-            String[] lines = responseText.split("\n");
-
-            for (String line : lines) {
-                if (line.startsWith("Mood:")) {
-                    analysis.setMood(extractValue(line));
-                } else if (line.startsWith("Emotions:")) {
-                    analysis.setEmotions(extractValue(line));
-                } else if (line.startsWith("Summary:")) {
-                    analysis.setSummary(extractValue(line));
-                } else if (line.startsWith("Motivational Thought:")) {
-                    analysis.setMotivationalThought(extractValue(line));
-                } else if (line.startsWith("Sentiment Score:")) {
-                    try {
-                        analysis.setSentimentScore(Double.parseDouble(extractValue(line).trim()));
-                    } catch (NumberFormatException e) {
-                        analysis.setSentimentScore(0.0);
-                    }
-                }
-            }
-
-            // Set defaults for any missing fields
-            if (analysis.getMood() == null)              analysis.setMood("Neutral");
-            if (analysis.getEmotions() == null)          analysis.setEmotions("Mixed");
-            if (analysis.getSummary() == null)           analysis.setSummary("Journal entry recorded.");
-            if (analysis.getMotivationalThought() == null) analysis.setMotivationalThought("Keep journaling!");
-            if (analysis.getSentimentScore() == null)   analysis.setSentimentScore(0.0);
-
-            return analysis;
-
+            analysis = GeminiOutputParser.parseAnalysis(responseText);
         } catch (Exception e) {
             log.error("Error parsing Gemini response: {}", e.getMessage());
             return createFallbackAnalysis();
         }
-    }
 
-    private String extractValue(String line) {
-        int colonIndex = line.indexOf(":");
-        if (colonIndex != -1 && colonIndex < line.length() - 1) {
-            return line.substring(colonIndex + 1).trim();
+        if (isComplete(analysis)) {
+            resultCache.putAnalysis(journalContent, analysis);
+        } else {
+            log.warn("Gemini analysis is missing fields — using defaults, not caching");
+            applyDefaults(analysis);
         }
-        return "";
+        return analysis;
+    }
+
+    private static boolean isComplete(JournalAnalysis analysis) {
+        return hasText(analysis.getMood()) && hasText(analysis.getEmotions()) && hasText(analysis.getSummary())
+                && hasText(analysis.getMotivationalThought()) && analysis.getSentimentScore() != null;
+    }
+
+    private static boolean isComplete(WeeklyAiReflection reflection) {
+        return hasText(reflection.getReflectionText()) && hasText(reflection.getTrend())
+                && hasText(reflection.getSuggestion());
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+
+    private void applyDefaults(JournalAnalysis analysis) {
+        if (analysis.getMood() == null)              analysis.setMood("Neutral");
+        if (analysis.getEmotions() == null)          analysis.setEmotions("Mixed");
+        if (analysis.getSummary() == null)           analysis.setSummary("Journal entry recorded.");
+        if (analysis.getMotivationalThought() == null) analysis.setMotivationalThought("Keep journaling!");
+        if (analysis.getSentimentScore() == null)   analysis.setSentimentScore(0.0);
     }
 
     private JournalAnalysis createFallbackAnalysis() {
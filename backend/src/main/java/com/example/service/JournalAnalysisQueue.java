@@ -0,0 +1,405 @@
+package com.example.service;
+
+import com.example.dto.JournalAnalysis;
+import com.example.entity.JournalAnalysisStatus;
+import com.example.entity.JournalEntry;
+import com.example.exception.GeminiUnavailableException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * JournalAnalysisQueue
+ * ====================
+ * Runs Gemini analysis for journal entries OFF the request thread.
+ *
+ * Flow:
+ *  1. JournalEntryService saves the entry with analysisStatus = PENDING and calls enqueue().
+ *  2. The entry id goes onto a bounded in-memory queue (after the Mongo transaction commits).
+ *  3. A small worker pool drains the queue in batches (size / linger-time window),
+ *     claims each entry (PENDING → PROCESSING, atomic findAndModify), analyzes the
+ *     whole batch with a single Gemini call, and writes only the analysis fields back.
+ *     Entries the batch answer misses fall back to a single-entry call.
+ *
+ * Durability: the queue itself is just a fast path — the source of truth is the
+ * analysisStatus field in MongoDB. If the queue is full or the process restarts,
+ * the entry stays PENDING and requeueStalled() (driven by JournalAnalysisRecoveryCron)
+ * picks it up again.
+ */
+@Service
+@Slf4j
+public class JournalAnalysisQueue {
+
+    private final MongoTemplate mongoTemplate;
+    private final GeminiService geminiService;
+    private final BlockingQueue<ObjectId> queue;
+    // ids currently in the queue, so the recovery sweep does not offer them twice
+    private final Set<ObjectId> queued = ConcurrentHashMap.newKeySet();
+    private final int workerCount;
+
+    /** PENDING entries older than this are assumed to have missed the in-memory queue. */
+    @Value("${journal.analysis.pending-grace-ms:30000}")
+    private long pendingGraceMs = 30_000;
+
+    /** Batch flushing: at most this many entries per Gemini call... */
+    @Value("${journal.analysis.batch.max-size:10}")
+    private int batchMaxSize = 10;
+
+    /** ...waiting at most this long for a batch to fill up... */
+    @Value("${journal.analysis.batch.linger-ms:500}")
+    private long batchLingerMs = 500;
+
+    /** ...and splitting batches whose combined content exceeds this many characters. */
+    @Value("${journal.analysis.batch.max-chars:24000}")
+    private int batchMaxChars = 24_000;
+
+    /** PROCESSING entries older than this are assumed to belong to a dead worker. */
+    @Value("${journal.analysis.processing-timeout-ms:600000}")
+    private long processingTimeoutMs = 600_000;
+
+    private ExecutorService workers;
+    private volatile boolean running;
+
+    public JournalAnalysisQueue(MongoTemplate mongoTemplate,
+                                GeminiService geminiService,
+                                @Value("${journal.analysis.queue-capacity:500}") int queueCapacity,
+                                @Value("${journal.analysis.workers:2}") int workerCount) {
+        this.mongoTemplate = mongoTemplate;
+        this.geminiService = geminiService;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.workerCount = workerCount;
+    }
+
+    // -----------------------------------------------------------------------
+    // Producer side
+    // -----------------------------------------------------------------------
+
+    /**
+     * Schedule analysis for an entry that has already been saved as PENDING.
+     * Inside a transaction the id is only handed to workers after commit,
+     * so a worker can never read the entry before it exists.
+     */
+    public void enqueue(ObjectId entryId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    offer(entryId);
+                }
+            });
+        } else {
+            offer(entryId);
+        }
+    }
+
+    /** Number of entry ids currently waiting for a worker. */
+    public int size() {
+        return queue.size();
+    }
+
+    private boolean offer(ObjectId entryId) {
+        if (!queued.add(entryId)) {
+            return true;   // already waiting for a worker
+        }
+        if (!queue.offer(entryId)) {
+            queued.remove(entryId);
+            log.warn("Analysis queue full — entry {} stays PENDING for the recovery sweep", entryId);
+            return false;
+        }
+        return true;
+    }
+
+    // -----------------------------------------------------------------------
+    // Worker side
+    // -----------------------------------------------------------------------
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (running) return;
+        running = true;
+
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread t = new Thread(runnable, "analysis-worker-" + threadNumber.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+        for (int i = 0; i < workerCount; i++) {
+            workers.submit(this::workLoop);
+        }
+        log.info("JournalAnalysisQueue started with {} worker(s), capacity {}",
+                workerCount, queue.remainingCapacity() + queue.size());
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+
+    private void workLoop() {
+        while (running && !Thread.currentThread().isInterrupted()) {
+            try {
+                process(nextBatch());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                // Never let one bad batch kill the worker thread
+                log.error("Analysis worker error: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Block for the first id, then keep collecting until the batch is full
+     * or the linger window closes — whichever comes first.
+     */
+    private List<ObjectId> nextBatch() throws InterruptedException {
+        List<ObjectId> batch = new ArrayList<>(batchMaxSize);
+        batch.add(queue.take());
+        queue.drainTo(batch, batchMaxSize - batch.size());
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(batchLingerMs);
+        while (batch.size() < batchMaxSize) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) break;
+            ObjectId next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) break;
+            batch.add(next);
+            queue.drainTo(batch, batchMaxSize - batch.size());
+        }
+        batch.forEach(queued::remove);
+        return batch;
+    }
+
+    /**
+     * Claim, analyze and update a batch of entries.
+     * Claimed entries are split into Gemini calls by size so one huge entry
+     * cannot blow up the prompt for everyone else.
+     * Package-private so tests can drive it without starting worker threads.
+     */
+    void process(List<ObjectId> entryIds) {
+        List<JournalEntry> claimed = new ArrayList<>(entryIds.size());
+        for (ObjectId entryId : entryIds) {
+            JournalEntry entry = claim(entryId);
+            if (entry == null) {
+                log.debug("Entry {} no longer PENDING — already claimed or removed", entryId);
+            } else {
+                claimed.add(entry);
+            }
+        }
+
+        List<JournalEntry> chunk = new ArrayList<>();
+        int chunkChars = 0;
+        for (JournalEntry entry : claimed) {
+            int chars = entry.getContent() != null ? entry.getContent().length() : 0;
+            if (!chunk.isEmpty() && chunkChars + chars > batchMaxChars) {
+                analyze(chunk);
+                chunk = new ArrayList<>();
+                chunkChars = 0;
+            }
+            chunk.add(entry);
+            chunkChars += chars;
+        }
+        if (!chunk.isEmpty()) {
+            analyze(chunk);
+        }
+    }
+
+    private void analyze(List<JournalEntry> entries) {
+        // Provider is down — keep the work for later rather than saving fallback text
+        if (!geminiService.isAvailable()) {
+            releaseForRetry(entries);
+            return;
+        }
+
+        Map<String, JournalAnalysis> results = Map.of();
+
+        if (entries.size() > 1) {
+            Map<String, String> contentsById = new LinkedHashMap<>();
+            entries.forEach(e -> contentsById.put(e.getId().toHexString(), e.getContent()));
+            try {
+                results = geminiService.analyzeJournalEntries(contentsById);
+                log.info("Batch analysis answered {}/{} entries in one Gemini call",
+                        results.size(), entries.size());
+            } catch (Exception e) {
+                if (e.getCause() instanceof GeminiUnavailableException) {
+                    releaseForRetry(entries);
+                    return;
+                }
+                log.warn("Batch analysis failed, falling back to per-entry calls: {}", e.getMessage());
+            }
+        }
+
+        // Entries the batch did not answer are analyzed individually, all in flight at once
+        List<CompletableFuture<Void>> singles = new ArrayList<>();
+        for (JournalEntry entry : entries) {
+            JournalAnalysis analysis = results.get(entry.getId().toHexString());
+            if (analysis != null) {
+                complete(entry, analysis);
+                continue;
+            }
+            CompletableFuture<JournalAnalysis> single;
+            try {
+                single = geminiService.analyzeJournalEntryAsync(entry.getContent());
+            } catch (Exception e) {
+                single = CompletableFuture.failedFuture(e);
+            }
+            singles.add(single
+                    .thenAccept(result -> complete(entry, result))
+                    .exceptionally(error -> {
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                                ? error.getCause() : error;
+                        if (cause instanceof GeminiUnavailableException) {
+                            // Shed by the guard — retry later rather than record a failure
+                            releaseForRetry(List.of(entry));
+                        } else {
+                            markFailed(entry, cause);
+                        }
+                        return null;
+                    }));
+        }
+        CompletableFuture.allOf(singles.toArray(CompletableFuture[]::new)).join();
+    }
+
+    private void markFailed(JournalEntry entry, Throwable error) {
+        log.error("AI analysis failed for entry {}: {}", entry.getId(), error.getMessage());
+        mongoTemplate.updateFirst(
+                claimedBy(entry),
+                touched().set("analysisStatus", JournalAnalysisStatus.FAILED),
+                JournalEntry.class);
+    }
+
+    /** Hand claimed entries back as PENDING; the recovery sweep retries them later. */
+    private void releaseForRetry(List<JournalEntry> entries) {
+        log.warn("Gemini unavailable — returning {} entr(ies) to PENDING for a later retry", entries.size());
+        for (JournalEntry entry : entries) {
+            mongoTemplate.updateFirst(
+                    claimedBy(entry),
+                    touched().set("analysisStatus", JournalAnalysisStatus.PENDING).unset("analysisClaimedAt"),
+                    JournalEntry.class);
+        }
+    }
+
+    private JournalEntry claim(ObjectId entryId) {
+        Query query = Query.query(Criteria.where("_id").is(entryId)
+                .and("analysisStatus").is(JournalAnalysisStatus.PENDING));
+        Update update = touched()
+                .set("analysisStatus", JournalAnalysisStatus.PROCESSING)
+                .set("analysisClaimedAt", LocalDateTime.now());
+
+        return mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), JournalEntry.class);
+    }
+
+    private void complete(JournalEntry entry, JournalAnalysis analysis) {
+        Update update = touched()
+                .set("mood", analysis.getMood())
+                .set("emotions", analysis.getEmotions())
+                .set("aiSummary", analysis.getSummary())
+                .set("motivationalThought", analysis.getMotivationalThought())
+                .set("sentimentScore", analysis.getSentimentScore())
+                .set("analysisCompleted", true)
+                .set("analysisStatus", JournalAnalysisStatus.COMPLETED);
+
+        // If the entry was edited while Gemini was running, analysisRequestedAt moved on —
+        // drop this (stale) result and let the newer request win.
+        long updated = mongoTemplate.updateFirst(claimedBy(entry), update, JournalEntry.class)
+                .getModifiedCount();
+
+        if (updated == 0) {
+            log.info("Entry {} changed during analysis — discarding stale result", entry.getId());
+        } else {
+            log.info("AI analysis completed for entry {}. Mood: {}, Sentiment: {}",
+                    entry.getId(), analysis.getMood(), analysis.getSentimentScore());
+        }
+    }
+
+    /** Direct updates bypass auditing — bump the ETag version by hand. */
+    private static Update touched() {
+        return new Update().set("lastModifiedAt", LocalDateTime.now());
+    }
+
+    /** Still this worker's claim: not edited since (requestedAt) and not released and re-claimed (claimedAt). */
+    private Query claimedBy(JournalEntry entry) {
+        return Query.query(Criteria.where("_id").is(entry.getId())
+                .and("analysisStatus").is(JournalAnalysisStatus.PROCESSING)
+                .and("analysisRequestedAt").is(entry.getAnalysisRequestedAt())
+                .and("analysisClaimedAt").is(entry.getAnalysisClaimedAt()));
+    }
+
+    // -----------------------------------------------------------------------
+    // Recovery
+    // -----------------------------------------------------------------------
+
+    /**
+     * Re-offer entries that never reached a worker (queue full, restart) and
+     * release entries whose worker died mid-analysis.
+     *
+     * @return number of entries handed back to the queue
+     */
+    public int requeueStalled(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+
+        // Release PROCESSING claims that have been held for too long — measured from the
+        // claim, not the request, so time spent waiting in PENDING does not count
+        LocalDateTime claimCutoff = now.minusNanos(processingTimeoutMs * 1_000_000);
+        mongoTemplate.updateMulti(
+                Query.query(Criteria.where("analysisStatus").is(JournalAnalysisStatus.PROCESSING)
+                        .orOperator(
+                                Criteria.where("analysisClaimedAt").lt(claimCutoff),
+                                // claims taken before analysisClaimedAt existed
+                                Criteria.where("analysisClaimedAt").exists(false)
+                                        .and("analysisRequestedAt").lt(claimCutoff))),
+                touched().set("analysisStatus", JournalAnalysisStatus.PENDING).unset("analysisClaimedAt"),
+                JournalEntry.class);
+
+        int capacity = Math.min(limit, queue.remainingCapacity());
+        if (capacity <= 0) {
+            return 0;
+        }
+
+        Query pending = Query.query(Criteria.where("analysisStatus").is(JournalAnalysisStatus.PENDING)
+                        .and("analysisRequestedAt").lt(now.minusNanos(pendingGraceMs * 1_000_000))
+                        .and("_id").nin(List.copyOf(queued)))   // still waiting for a worker
+                .limit(capacity);
+        pending.fields().include("_id");
+
+        List<JournalEntry> stalled = mongoTemplate.find(pending, JournalEntry.class);
+        int requeued = 0;
+        for (JournalEntry entry : stalled) {
+            if (!offer(entry.getId())) break;
+            requeued++;
+        }
+        return requeued;
+    }
+}
@@ -1,95 +1,105 @@
 package com.example.service;
 
+import com.example.dto.CursorPage;
 import com.example.dto.JournalAnalysis;
 import com.example.dto.JournalEntryDTO;
+import com.example.dto.JournalEntryListItemDTO;
+import com.example.entity.JournalAnalysisStatus;
 import com.example.entity.JournalEntry;
-import com.example.entity.User;
+import com.example.event.JournalEntryCreatedEvent;
+import com.example.event.JournalEntryDeletedEvent;
 import com.example.mapper.JournalEntryMapper;
 import com.example.repository.JournalEntryRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.bson.types.ObjectId;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 @Service   // FIXED: was @Component
 @Slf4j
 public class JournalEntryService {
 
     private final JournalEntryRepository journalEntryRepository;
-    private final UserService userService;
     private final GeminiService geminiService;
     private final UserProgressCommandService userProgressService;
     private final JournalEntryMapper mapper;
-    private final AiEmbeddingService aiEmbeddingService;
+    private final EmbeddingOutbox embeddingOutbox;
+    private final JournalAnalysisQueue journalAnalysisQueue;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MongoTemplate mongoTemplate;
 
     public JournalEntryService(JournalEntryRepository journalEntryRepository,
-                                UserService userService,
                                 GeminiService geminiService,
                                 UserProgressCommandService userProgressService,
                                 JournalEntryMapper mapper,
-                                AiEmbeddingService aiEmbeddingService) {
+                                EmbeddingOutbox embeddingOutbox,
+                                JournalAnalysisQueue journalAnalysisQueue,
+                                ApplicationEventPublisher eventPublisher,
+                                MongoTemplate mongoTemplate) {
         this.journalEntryRepository = journalEntryRepository;
-        this.userService = userService;
         this.geminiService = geminiService;
         this.userProgressService = userProgressService;
         this.mapper = mapper;
-        this.aiEmbeddingService = aiEmbeddingService;
+        this.embeddingOutbox = embeddingOutbox;
+        this.journalAnalysisQueue = journalAnalysisQueue;
+        this.eventPublisher = eventPublisher;
+        this.mongoTemplate = mongoTemplate;
     }
 
     /**
      * Save a new journal entry for the given user.
-     * Performs AI analysis synchronously, falling back gracefully if AI fails.
+     * AI analysis is NOT done here — the entry is saved as PENDING and
+     * JournalAnalysisQueue fills in mood/summary in the background.
      */
     @Transactional
-    public JournalEntry saveEntry(JournalEntry journalEntry, String userName) {
-        User user = userService.findByUserName(userName);
+    public JournalEntry saveEntry(JournalEntry journalEntry, ObjectId userId) {
 
         journalEntry.setDate(LocalDateTime.now());
-        journalEntry.setUserId(user.getId());  // CRITICAL: set ownership
-
-        // AI analysis — best-effort (failure does not block saving)
-        if (journalEntry.getContent() != null && !journalEntry.getContent().trim().isEmpty()) {
-            log.info("Starting AI analysis for new journal entry...");
-            try {
-                JournalAnalysis analysis = geminiService.analyzeJournalEntry(journalEntry.getContent());
-                journalEntry.setMood(analysis.getMood());
-                journalEntry.setEmotions(analysis.getEmotions());
-                journalEntry.setAiSummary(analysis.getSummary());
-                journalEntry.setMotivationalThought(analysis.getMotivationalThought());
-                journalEntry.setSentimentScore(analysis.getSentimentScore());
-                journalEntry.setAnalysisCompleted(true);
-                log.info("AI analysis completed. Mood: {}, Sentiment: {}",
-                        analysis.getMood(), analysis.getSentimentScore());
-            } catch (Exception e) {
-                log.error("AI analysis failed, saving entry without analysis: {}", e.getMessage());
-                journalEntry.setAnalysisCompleted(false);
-            }
+        journalEntry.setUserId(userId);  // CRITICAL: set ownership
+        journalEntry.setAnalysisCompleted(false);
+
+        boolean hasContent = journalEntry.getContent() != null && !journalEntry.getContent().trim().isEmpty();
+        if (hasContent) {
+            journalEntry.setAnalysisStatus(JournalAnalysisStatus.PENDING);
+            journalEntry.setAnalysisRequestedAt(LocalDateTime.now());
         } else {
             log.warn("Journal entry has no content — skipping AI analysis");
-            journalEntry.setAnalysisCompleted(false);
+            journalEntry.setAnalysisStatus(JournalAnalysisStatus.SKIPPED);
         }
 
         JournalEntry saved = journalEntryRepository.save(journalEntry);
 
-        // Add entry ID to user's reference list
-        user.getJournalEntryIds().add(saved.getId());
-        userService.saveUser(user);
+        // Hand off to the background analysis workers (after commit)
+        if (hasContent) {
+            journalAnalysisQueue.enqueue(saved.getId());
+        }
 
         // Update streaks and progress
-        userProgressService.updateProgressOnNewEntry(user.getId());
+        userProgressService.updateProgressOnNewEntry(userId);
+        // Dashboard read model — refreshed by UserDashboardProjector after commit
+        eventPublisher.publishEvent(new JournalEntryCreatedEvent(userId, saved.getId()));
 
-        // ── Embed into ChromaDB for RAG (best-effort — never blocks save) ────────
-        aiEmbeddingService.embedEntry(
-                saved.getId().toHexString(),
-                saved.getContent(),
-                saved.getUserId().toHexString(),
-                saved.getDate()
-        );
+        // ── Embed for RAG — outbox job commits with the entry, dispatched in the background
+        if (hasContent) {
+            embeddingOutbox.enqueue(saved.getId(), userId);
+        }
 
         log.info("Journal entry saved with ID: {}", saved.getId());
         return saved;
@@ -97,7 +107,7 @@ public class JournalEntryService {
 
     /**
      * Update the title and content of an existing entry (ownership verified by controller).
-     * Triggers re-analysis if content changed.
+     * Queues background re-analysis if content changed.
      */
     @Transactional
     public JournalEntry updateEntry(ObjectId entryId, String newTitle, String newContent) {
@@ -108,31 +118,23 @@ public class JournalEntryService {
         entry.setTitle(newTitle);
         entry.setContent(newContent);
 
-        if (contentChanged && newContent != null && !newContent.trim().isEmpty()) {
-            log.info("Content changed — re-running AI analysis on updated entry...");
-            try {
-                JournalAnalysis analysis = geminiService.analyzeJournalEntry(newContent);
-                entry.setMood(analysis.getMood());
-                entry.setEmotions(analysis.getEmotions());
-                entry.setAiSummary(analysis.getSummary());
-                entry.setMotivationalThought(analysis.getMotivationalThought());
-                entry.setSentimentScore(analysis.getSentimentScore());
-                entry.setAnalysisCompleted(true);
-            } catch (Exception e) {
-                log.error("AI re-analysis failed on update: {}", e.getMessage());
-            }
+        // Re-analysis runs in the background; the previous analysis stays visible until then
+        boolean reanalyze = contentChanged && newContent != null && !newContent.trim().isEmpty();
+        if (reanalyze) {
+            log.info("Content changed — queueing AI re-analysis for entry {}", entryId);
+            entry.setAnalysisStatus(JournalAnalysisStatus.PENDING);
+            entry.setAnalysisRequestedAt(LocalDateTime.now());
         }
 
         JournalEntry updated = journalEntryRepository.save(entry);
 
-        // ── Re-embed into ChromaDB if content changed (best-effort) ──────────────
+        if (reanalyze) {
+            journalAnalysisQueue.enqueue(updated.getId());
+        }
+
+        // ── Re-embed if content changed (outbox, committed with the update) ─────
         if (contentChanged) {
-            aiEmbeddingService.embedEntry(
-                    updated.getId().toHexString(),
-                    updated.getContent(),
-                    updated.getUserId().toHexString(),
-                    updated.getDate()
-            );
+            embeddingOutbox.enqueue(updated.getId(), updated.getUserId());
         }
 
         return updated;
@@ -147,6 +149,57 @@ public class JournalEntryService {
                 .map(mapper::toDTO);
     }
 
+    /**
+     * List view of {@link #getEntriesForUser(ObjectId, Pageable)}: projected rows with a
+     * content preview instead of the full documents.
+     */
+    public Page<JournalEntryListItemDTO> getEntryListForUser(ObjectId userId, Pageable pageable) {
+        return journalEntryRepository
+                .findListItemsByUserId(userId, pageable)
+                .map(mapper::toListItemDTO);
+    }
+
+    /**
+     * Keyset pagination: the page after {@code cursor} (null for the first page), newest first.
+     * Each page is a single index seek — no skip over earlier pages and no count query
+     * unless {@code includeTotal} is set.
+     * @throws IllegalArgumentException if {@code cursor} is not a valid token
+     */
+    public CursorPage<JournalEntryDTO> getEntriesForUser(ObjectId userId, String cursor, int size, boolean includeTotal) {
+        return cursorPage(userId, cursor, size, includeTotal, (after, limit) -> after == null
+                ? journalEntryRepository.findByUserIdOrderByDateDescIdDesc(userId, limit)
+                : journalEntryRepository.findByUserIdAfterCursor(userId, after.date(), after.id(), limit),
+                mapper::toDTO);
+    }
+
+    /** List view of {@link #getEntriesForUser(ObjectId, String, int, boolean)}. */
+    public CursorPage<JournalEntryListItemDTO> getEntryListForUser(ObjectId userId, String cursor, int size,
+                                                                   boolean includeTotal) {
+        return cursorPage(userId, cursor, size, includeTotal, (after, limit) -> after == null
+                ? journalEntryRepository.findListItemsByUserIdNewestFirst(userId, limit)
+                : journalEntryRepository.findListItemsByUserIdAfterCursor(userId, after.date(), after.id(), limit),
+                mapper::toListItemDTO);
+    }
+
+    private <T> CursorPage<T> cursorPage(ObjectId userId, String cursor, int size, boolean includeTotal,
+                                         BiFunction<JournalEntryCursor, Pageable, List<JournalEntry>> query,
+                                         Function<JournalEntry, T> toDto) {
+        JournalEntryCursor after = cursor == null || cursor.isBlank() ? null : JournalEntryCursor.decode(cursor);
+        // one extra row tells us whether there is a next page
+        List<JournalEntry> entries = query.apply(after, PageRequest.ofSize(size + 1));
+
+        boolean hasNext = entries.size() > size;
+        List<JournalEntry> page = hasNext ? entries.subList(0, size) : entries;
+        String nextCursor = null;
+        if (hasNext) {
+            JournalEntry last = page.get(page.size() - 1);
+            nextCursor = new JournalEntryCursor(last.getDate(), last.getId()).encode();
+        }
+
+        Long total = includeTotal ? journalEntryRepository.countByUserId(userId) : null;
+        return new CursorPage<>(page.stream().map(toDto).toList(), nextCursor, total);
+    }
+
     /**
      * Find a single entry by ID.
      */
@@ -155,21 +208,29 @@ public class JournalEntryService {
     }
 
     /**
-     * Delete a journal entry (ownership must be verified by the caller / controller).
+     * Find an entry only if it belongs to the given user (empty otherwise).
      */
-    @Transactional
-    public void deleteById(ObjectId entryId, String userName) {
-        User user = userService.findByUserName(userName);
-        boolean owned = user.getJournalEntryIds().contains(entryId);
+    public Optional<JournalEntry> findOwnedEntry(ObjectId entryId, ObjectId userId) {
+        return journalEntryRepository.findByIdAndUserId(entryId, userId);
+    }
+
+    public boolean isOwnedBy(ObjectId entryId, ObjectId userId) {
+        return journalEntryRepository.existsByIdAndUserId(entryId, userId);
+    }
 
-        if (!owned) {
-            log.warn("User {} attempted to delete entry {} which they don't own", userName, entryId);
+    /**
+     * Delete a journal entry — the delete itself is scoped to the owner, so a
+     * foreign or missing ID simply matches nothing.
+     */
+    @Transactional
+    public void deleteById(ObjectId entryId, ObjectId userId) {
+        if (journalEntryRepository.deleteByIdAndUserId(entryId, userId) == 0) {
+            log.warn("User {} attempted to delete entry {} which they don't own", userId, entryId);
             throw new RuntimeException("Entry not found or access denied");
         }
 
-        user.getJournalEntryIds().remove(entryId);
-        userService.saveUser(user);
-        journalEntryRepository.deleteById(entryId);
+        userProgressService.updateProgressOnEntryDeleted(userId);
+        eventPublisher.publishEvent(new JournalEntryDeletedEvent(userId, entryId));
         log.info("Journal entry deleted: {}", entryId);
     }
 
@@ -177,23 +238,62 @@ public class JournalEntryService {
      * Re-run AI analysis on an existing entry.
      */
     public JournalEntry reanalyzeEntry(ObjectId entryId) {
+        JournalEntry entry = findAnalyzable(entryId);
+        return saveAnalysis(entry, geminiService.analyzeJournalEntry(entry.getContent()));
+    }
+
+    /**
+     * Re-run AI analysis, passing generated text to {@code onChunk} as it streams in.
+     * The parsed analysis is saved exactly as in {@link #reanalyzeEntry(ObjectId)}
+     * once generation finishes; the future completes with the current entry.
+     *
+     * @throws RuntimeException immediately if the entry is missing or has no content
+     */
+    public CompletableFuture<JournalEntry> reanalyzeEntryStreaming(ObjectId entryId, Consumer<String> onChunk) {
+        JournalEntry entry = findAnalyzable(entryId);
+        return geminiService.analyzeJournalEntryStreaming(entry.getContent(), onChunk)
+                .thenApply(analysis -> saveAnalysis(entry, analysis));
+    }
+
+    private JournalEntry findAnalyzable(ObjectId entryId) {
         JournalEntry entry = journalEntryRepository.findById(entryId)
                 .orElseThrow(() -> new RuntimeException("Entry not found: " + entryId));
 
         if (entry.getContent() == null || entry.getContent().trim().isEmpty()) {
             throw new RuntimeException("Entry has no content to analyze");
         }
+        return entry;
+    }
 
-        JournalAnalysis analysis = geminiService.analyzeJournalEntry(entry.getContent());
-        entry.setMood(analysis.getMood());
-        entry.setEmotions(analysis.getEmotions());
-        entry.setAiSummary(analysis.getSummary());
-        entry.setMotivationalThought(analysis.getMotivationalThought());
-        entry.setSentimentScore(analysis.getSentimentScore());
-        entry.setAnalysisCompleted(true);
+    /**
+     * Write only the analysis fields, and only if the entry was not edited while
+     * Gemini was running (same content, no newer analysis requested) — otherwise
+     * the result is stale and the re-analysis queued by the edit wins.
+     * Returns the entry as stored either way.
+     */
+    private JournalEntry saveAnalysis(JournalEntry entry, JournalAnalysis analysis) {
+        Query unchanged = Query.query(Criteria.where("_id").is(entry.getId())
+                .and("content").is(entry.getContent())
+                .and("analysisRequestedAt").is(entry.getAnalysisRequestedAt()));
+        // Direct updates bypass auditing — bump the ETag version by hand
+        Update update = new Update()
+                .set("lastModifiedAt", LocalDateTime.now())
+                .set("mood", analysis.getMood())
+                .set("emotions", analysis.getEmotions())
+                .set("aiSummary", analysis.getSummary())
+                .set("motivationalThought", analysis.getMotivationalThought())
+                .set("sentimentScore", analysis.getSentimentScore())
+                .set("analysisCompleted", true)
+                .set("analysisStatus", JournalAnalysisStatus.COMPLETED);
 
-        JournalEntry saved = journalEntryRepository.save(entry);
-        log.info("Entry re-analyzed successfully: {}", entryId);
+        JournalEntry saved = mongoTemplate.findAndModify(unchanged, update,
+                FindAndModifyOptions.options().returnNew(true), JournalEntry.class);
+        if (saved == null) {
+            log.info("Entry {} changed during re-analysis — discarding stale result", entry.getId());
+            return journalEntryRepository.findById(entry.getId())
+                    .orElseThrow(() -> new RuntimeException("Entry not found: " + entry.getId()));
+        }
+        log.info("Entry re-analyzed successfully: {}", entry.getId());
         return saved;
     }
 
@@ -0,0 +1,101 @@
+package com.example.service;
+
+import com.example.dto.UserProgressDTO;
+import com.example.entity.UserDashboard;
+import com.example.event.JournalEntryCreatedEvent;
+import com.example.event.JournalEntryDeletedEvent;
+import com.example.event.WeeklySummarySavedEvent;
+import com.example.repository.UserProgressRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+
+/**
+ * Keeps the materialized UserDashboard in step with the write side.
+ *
+ * Listeners run after the source transaction commits (or straight away when
+ * there is none, as for weekly summaries), so they only ever copy committed
+ * state. Each refresh copies a whole section from its source rather than
+ * applying an increment, so a refresh that fails is repaired by the user's
+ * next write — and a failure never propagates to the request that wrote.
+ */
+@Service
+@Slf4j
+public class UserDashboardProjector {
+
+    private final MongoTemplate mongoTemplate;
+    private final UserProgressRepository userProgressRepository;
+    private final UserProgressReadService userProgressReadService;
+    private final WeeklySummaryDashboardQueryService weeklySummaryDashboardQueryService;
+
+    public UserDashboardProjector(MongoTemplate mongoTemplate,
+                                  UserProgressRepository userProgressRepository,
+                                  UserProgressReadService userProgressReadService,
+                                  WeeklySummaryDashboardQueryService weeklySummaryDashboardQueryService) {
+        this.mongoTemplate = mongoTemplate;
+        this.userProgressRepository = userProgressRepository;
+        this.userProgressReadService = userProgressReadService;
+        this.weeklySummaryDashboardQueryService = weeklySummaryDashboardQueryService;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntryCreated(JournalEntryCreatedEvent event) {
+        refreshProgress(event.userId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntryDeleted(JournalEntryDeletedEvent event) {
+        refreshProgress(event.userId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWeeklySummarySaved(WeeklySummarySavedEvent event) {
+        update(event.userId(), "weeklySummary", weeklySummaryDashboardQueryService.toDTO(event.summary()));
+    }
+
+    /** Re-copy the user's progress — also called after an admin progress rebuild. */
+    public void refreshProgress(ObjectId userId) {
+        update(userId, "progress", progressView(userId));
+    }
+
+    /**
+     * Build the whole document from user_progress and weekly_summaries.
+     * Used on the first read for users who predate the read model.
+     */
+    public UserDashboard rebuild(ObjectId userId) {
+        UserDashboard dashboard = new UserDashboard();
+        dashboard.setUserId(userId);
+        dashboard.setProgress(progressView(userId));
+        dashboard.setWeeklySummary(weeklySummaryDashboardQueryService.getLatestWeeklySummary(userId).orElse(null));
+        return mongoTemplate.save(dashboard);
+    }
+
+    private void update(ObjectId userId, String section, Object view) {
+        try {
+            long matched = mongoTemplate.updateFirst(
+                    Query.query(Criteria.where("_id").is(userId)),
+                    new Update().set(section, view).set("lastModifiedAt", LocalDateTime.now()),
+                    UserDashboard.class).getMatchedCount();
+
+            if (matched == 0) {
+                // Not materialized yet — build it whole instead of upserting half a dashboard
+                rebuild(userId);
+            }
+        } catch (RuntimeException e) {
+            log.error("Dashboard refresh ({}) failed for user {}: {}", section, userId, e.getMessage());
+        }
+    }
+
+    private UserProgressDTO progressView(ObjectId userId) {
+        return userProgressRepository.findByUserId(userId)
+                .map(userProgressReadService::toDTO)
+                .orElseGet(UserProgressDTO::new);
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.service;
+
+import com.example.dto.UserProgressDTO;
+import com.example.entity.UserDashboard;
+import com.example.repository.UserDashboardRepository;
+import org.bson.types.ObjectId;
+import org.springframework.stereotype.Service;
+
+@Service
+public class UserDashboardReadService {
+
+    private final UserDashboardRepository userDashboardRepository;
+    private final UserDashboardProjector userDashboardProjector;
+
+    public UserDashboardReadService(UserDashboardRepository userDashboardRepository,
+                                    UserDashboardProjector userDashboardProjector) {
+        this.userDashboardRepository = userDashboardRepository;
+        this.userDashboardProjector = userDashboardProjector;
+    }
+
+    /**
+     * The user's dashboard in one _id read. A user without a materialized
+     * document (created before the read model) gets it built here, once.
+     * The time-based streak break is applied in memory, as UserProgressReadService does.
+     */
+    public UserDashboard getDashboard(ObjectId userId) {
+        UserDashboard dashboard = userDashboardRepository.findById(userId)
+                .orElseGet(() -> userDashboardProjector.rebuild(userId));
+
+        UserProgressDTO progress = dashboard.getProgress();
+        if (progress == null) {
+            progress = new UserProgressDTO();
+            dashboard.setProgress(progress);
+        }
+        progress.setCurrentStreak(
+                UserProgressReadService.effectiveStreak(progress.getCurrentStreak(), progress.getLastEntryDate()));
+        return dashboard;
+    }
+}
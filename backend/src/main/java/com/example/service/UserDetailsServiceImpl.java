@@ -2,7 +2,8 @@ package com.example.service;
 
 import com.example.entity.User;
 import com.example.repository.UserRepository;
-import org.springframework.beans.factory.annotation.Autowired;
+import com.example.security.JournalUserPrincipal;
+import com.example.security.PrincipalCache;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -12,9 +13,11 @@ import org.springframework.stereotype.Component;
 public class UserDetailsServiceImpl implements UserDetailsService {
 
     private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
 
-    public UserDetailsServiceImpl(UserRepository userRepository) {
+    public UserDetailsServiceImpl(UserRepository userRepository, PrincipalCache principalCache) {
         this.userRepository = userRepository;
+        this.principalCache = principalCache;
     }
 
     @Override
@@ -29,4 +32,24 @@ public class UserDetailsServiceImpl implements UserDetailsService {
         }
         throw new UsernameNotFoundException("User not found with username " + username);
     }
+
+    /**
+     * Resolve the principal for an already-verified JWT — served from PrincipalCache
+     * when possible. Login (password check) keeps using loadUserByUsername, uncached.
+     */
+    public JournalUserPrincipal loadPrincipal(String username) throws UsernameNotFoundException {
+        JournalUserPrincipal cached = principalCache.get(username);
+        if (cached != null) {
+            return cached;
+        }
+
+        User user = userRepository.findByUserName(username);
+        if (user == null) {
+            throw new UsernameNotFoundException("User not found with username " + username);
+        }
+
+        JournalUserPrincipal principal = new JournalUserPrincipal(user.getId(), user.getUserName(), user.getRoles());
+        principalCache.put(principal);
+        return principal;
+    }
 }
@@ -1,36 +1,112 @@
 package com.example.service;
 
+import com.example.entity.JournalEntry;
 import com.example.entity.UserProgress;
+import com.example.repository.JournalEntryRepository;
 import com.example.repository.UserProgressRepository;
+import lombok.extern.slf4j.Slf4j;
 import org.bson.types.ObjectId;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDate;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.function.Supplier;
 
 @Service
+@Slf4j
 public class UserProgressCommandService {
 
+    private static final ZoneId USER_ZONE = ZoneId.of("Asia/Kolkata");
+    private static final int WEEKLY_WINDOW_DAYS = 7;
+    private static final int MAX_ATTEMPTS = 3;
+
     private final UserProgressRepository userProgressRepository;
-    private final com.example.repository.JournalEntryRepository journalEntryRepository;
-    private static final Logger log = LoggerFactory.getLogger(UserProgressCommandService.class);
+    private final JournalEntryRepository journalEntryRepository;
 
     public UserProgressCommandService(UserProgressRepository userProgressRepository,
-            com.example.repository.JournalEntryRepository journalEntryRepository) {
+                                      JournalEntryRepository journalEntryRepository) {
         this.userProgressRepository = userProgressRepository;
         this.journalEntryRepository = journalEntryRepository;
     }
 
     /**
      * Called every time the user saves a new journal entry.
-     * Updates current streak, longest streak, weekly count, and total count
-     * by perfectly rebuilding the streak from past entry timestamps in the user's
-     * timezone.
+     *
+     * Incremental: the new streak, weekly count and total are derived from the
+     * stored UserProgress plus today's date — no entry history is read. Progress
+     * documents that predate incremental tracking are rebuilt once instead.
+     * The save is version-checked, so concurrent entries cannot lose an increment.
      */
     public void updateProgressOnNewEntry(ObjectId userId) {
-        java.time.ZoneId userZone = java.time.ZoneId.of("Asia/Kolkata");
-        LocalDate today = LocalDate.now(userZone);
+        withOptimisticRetry(() -> {
+            applyNewEntry(userId);
+            return null;
+        });
+    }
+
+    private void applyNewEntry(ObjectId userId) {
+        UserProgress progress = userProgressRepository.findByUserId(userId).orElse(null);
+        if (progress == null || progress.getRecentEntryDates() == null) {
+            recount(userId);
+            return;
+        }
+
+        LocalDate today = LocalDate.now(USER_ZONE);
+        LocalDate lastDay = progress.getLastEntryDate();
+
+        int streak;
+        if (lastDay == null || progress.getCurrentStreak() <= 0) {
+            streak = 1;
+        } else if (lastDay.isEqual(today)) {
+            streak = progress.getCurrentStreak();          // same day — no change
+        } else if (lastDay.isEqual(today.minusDays(1))) {
+            streak = progress.getCurrentStreak() + 1;      // consecutive day
+        } else {
+            streak = 1;                                    // gap — start over
+        }
+
+        progress.setCurrentStreak(streak);
+        progress.setLongestStreak(Math.max(progress.getLongestStreak(), streak));
+        progress.setLastEntryDate(today);
+        progress.setLastEntryAt(LocalDateTime.now());
+        progress.setTotalEntries(progress.getTotalEntries() + 1);
+
+        List<LocalDate> recent = new ArrayList<>(progress.getRecentEntryDates());
+        if (!recent.contains(today)) {
+            recent.add(today);
+        }
+        applyWeeklyWindow(progress, recent, today);
+
+        userProgressRepository.save(progress);
+    }
+
+    /**
+     * A delete can end the streak, empty a day or leave the weekly window, so every
+     * field is recounted from the remaining entry dates (a date-only projection).
+     * Deletes are rare enough that the O(total entries) read is acceptable.
+     */
+    public void updateProgressOnEntryDeleted(ObjectId userId) {
+        rebuildProgress(userId);
+    }
+
+    /**
+     * Repair operation: recompute every progress field from the user's entry dates.
+     * O(total entries) — run for first-time/legacy documents, after deletes, or on admin request.
+     */
+    public UserProgress rebuildProgress(ObjectId userId) {
+        return withOptimisticRetry(() -> recount(userId));
+    }
+
+    private UserProgress recount(ObjectId userId) {
+        LocalDate today = LocalDate.now(USER_ZONE);
 
         UserProgress progress = userProgressRepository
                 .findByUserId(userId)
@@ -40,57 +116,59 @@ public class UserProgressCommandService {
                     return p;
                 });
 
-        java.util.List<com.example.entity.JournalEntry> entries = journalEntryRepository.findByUserId(userId);
-
-        // 2. Extract distinct local dates in the user's timezone, deduplicated and sorted descending
-        java.util.Set<LocalDate> entryDateSet = entries.stream()
-                .filter(e -> e.getDate() != null)
-                .map(e -> {
-                    // Log each raw date for debugging
-                    LocalDate d = e.getDate().toLocalDate();
-                    log.info("STREAK DEBUG - raw entry date: {}", d);
-                    return d;
-                })
-                .collect(java.util.stream.Collectors.toCollection(java.util.TreeSet::new));
-
-        java.util.List<LocalDate> entryDates = new java.util.ArrayList<>(entryDateSet);
-        java.util.Collections.sort(entryDates, java.util.Comparator.reverseOrder());
-        log.info("STREAK DEBUG - after dedup entryDates: {}", entryDates);
-
-        // 3. Recalculate the streak
-        int calculatedStreak = 0;
-        LocalDate expectedDate = today;
-        for (LocalDate date : entryDates) {
-            log.info("STREAK DEBUG - checking date: {} vs expected: {}", date, expectedDate);
-            if (date.isEqual(expectedDate)) {
-                calculatedStreak++;
-                expectedDate = expectedDate.minusDays(1);
-            } else if (date.isBefore(expectedDate)) {
-                break;
-            }
+        List<LocalDateTime> timestamps = journalEntryRepository.findDatesByUserId(userId).stream()
+                .map(JournalEntry::getDate)
+                .filter(Objects::nonNull)
+                .toList();
+
+        // Distinct days, ascending
+        TreeSet<LocalDate> days = new TreeSet<>();
+        timestamps.forEach(t -> days.add(t.toLocalDate()));
+
+        int longest = 0;
+        int run = 0;
+        LocalDate previous = null;
+        for (LocalDate day : days) {
+            run = (previous != null && previous.plusDays(1).isEqual(day)) ? run + 1 : 1;
+            longest = Math.max(longest, run);
+            previous = day;
         }
-        log.info("STREAK DEBUG - final calculatedStreak: {}", calculatedStreak);
-
-        progress.setCurrentStreak(calculatedStreak);
-        progress.setLongestStreak(Math.max(progress.getLongestStreak(), calculatedStreak));
-        progress.setLastEntryDate(today);
 
-        if (!entries.isEmpty()) {
-            java.time.LocalDateTime latestTime = entries.stream()
-                    .map(com.example.entity.JournalEntry::getDate)
-                    .filter(java.util.Objects::nonNull)
-                    .max(java.time.LocalDateTime::compareTo)
-                    .orElse(null);
-            progress.setLastEntryAt(latestTime);
-        }
+        // `run` now holds the streak ending on the most recent entry day
+        progress.setCurrentStreak(run);
+        progress.setLongestStreak(Math.max(progress.getLongestStreak(), longest));
+        progress.setLastEntryDate(days.isEmpty() ? null : days.last());
+        progress.setLastEntryAt(timestamps.stream().max(LocalDateTime::compareTo).orElse(null));
+        progress.setTotalEntries(timestamps.size());
+        applyWeeklyWindow(progress, new ArrayList<>(days.tailSet(today.minusDays(WEEKLY_WINDOW_DAYS), false)), today);
 
-        progress.setTotalEntries(entries.size());
+        log.info("Rebuilt progress for user {}: {} entries, streak {}", userId, timestamps.size(), run);
+        return userProgressRepository.save(progress);
+    }
 
-        // Recalculate weekly entries
-        LocalDate oneWeekAgo = today.minusDays(7);
-        long weeklyCount = entryDates.stream().filter(d -> d.isAfter(oneWeekAgo)).count();
-        progress.setWeeklyEntryCount((int) weeklyCount);
+    /**
+     * Re-read and re-apply on a version conflict (or a concurrent first insert).
+     * Inside a transaction a retry would re-read the same snapshot, so the conflict
+     * is left to abort the caller's transaction instead.
+     */
+    private <T> T withOptimisticRetry(Supplier<T> update) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return update.get();
+            } catch (OptimisticLockingFailureException | DuplicateKeyException e) {
+                if (attempt >= MAX_ATTEMPTS || TransactionSynchronizationManager.isActualTransactionActive()) {
+                    throw e;
+                }
+                log.debug("Concurrent progress update, retrying (attempt {}): {}", attempt, e.getMessage());
+            }
+        }
+    }
 
-        userProgressRepository.save(progress);
+    /** Drop days that fell out of the rolling week and refresh weeklyEntryCount. */
+    private void applyWeeklyWindow(UserProgress progress, List<LocalDate> recent, LocalDate today) {
+        LocalDate windowStart = today.minusDays(WEEKLY_WINDOW_DAYS);
+        recent.removeIf(d -> !d.isAfter(windowStart));
+        progress.setRecentEntryDates(recent);
+        progress.setWeeklyEntryCount(recent.size());
     }
 }
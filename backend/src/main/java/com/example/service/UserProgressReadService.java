@@ -1,14 +1,20 @@
 package com.example.service;
 
+import com.example.dto.UserProgressDTO;
 import com.example.entity.UserProgress;
 import com.example.repository.UserProgressRepository;
 import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
+import java.time.ZoneId;
+
 @Service
 public class UserProgressReadService {
 
+    private static final ZoneId USER_ZONE = ZoneId.of("Asia/Kolkata");
+
     private final UserProgressRepository userProgressRepository;
 
     public UserProgressReadService(UserProgressRepository userProgressRepository) {
@@ -24,21 +30,31 @@ public class UserProgressReadService {
                     return empty;
                 });
 
-        // Dynamic streak calculation based on time passed
-        java.time.ZoneId userZone = java.time.ZoneId.of("Asia/Kolkata");
-        java.time.LocalDate today = java.time.LocalDate.now(userZone);
-        java.time.LocalDate lastEntry = progress.getLastEntryDate();
-
-        if (lastEntry != null) {
-            // If last entry was before yesterday, streak is broken
-            if (lastEntry.isBefore(today.minusDays(1))) {
-                progress.setCurrentStreak(0);
-                progress.setLongestStreak(progress.getLongestStreak()); // keep longest
-            }
-            // If last entry was yesterday or today, streak is valid as saved
-            // Do nothing — use the value saved by updateProgressOnNewEntry
+        progress.setCurrentStreak(effectiveStreak(progress.getCurrentStreak(), progress.getLastEntryDate()));
+        return progress;
+    }
+
+    /**
+     * Dynamic streak calculation based on time passed: the stored streak stays valid
+     * while the last entry was today or yesterday; before that it is broken.
+     * Longest streak is never affected.
+     */
+    public static int effectiveStreak(int storedStreak, LocalDate lastEntryDate) {
+        LocalDate today = LocalDate.now(USER_ZONE);
+        if (lastEntryDate != null && lastEntryDate.isBefore(today.minusDays(1))) {
+            return 0;
         }
+        return storedStreak;
+    }
 
-        return progress;
+    public UserProgressDTO toDTO(UserProgress progress) {
+        UserProgressDTO dto = new UserProgressDTO();
+        dto.setCurrentStreak(progress.getCurrentStreak());
+        dto.setLongestStreak(progress.getLongestStreak());
+        dto.setWeeklyEntryCount(progress.getWeeklyEntryCount());
+        dto.setTotalEntries(progress.getTotalEntries());
+        dto.setLastEntryDate(progress.getLastEntryDate());
+        dto.setLastEntryAt(progress.getLastEntryAt());
+        return dto;
     }
 }
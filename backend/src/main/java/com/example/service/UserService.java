@@ -4,17 +4,22 @@ import com.example.entity.User;
 import com.example.entity.UserPreferences;
 import com.example.exception.UserAlreadyExistsException;
 import com.example.repository.JournalEntryRepository;
+import com.example.repository.UserDashboardRepository;
 import com.example.repository.UserProgressRepository;
 import com.example.repository.UserRepository;
 import com.example.repository.WeeklySummaryRepository;
+import com.example.security.PrincipalCache;
+import com.example.security.TokenRevocationCache;
 import lombok.extern.slf4j.Slf4j;
 import org.bson.types.ObjectId;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Service
 @Slf4j
@@ -25,17 +30,29 @@ public class UserService {
     private final UserProgressRepository userProgressRepository;
     private final WeeklySummaryRepository weeklySummaryRepository;
     private final PasswordEncoder passwordEncoder;   // FIXED: injected Spring bean, not new instance
+    private final PrincipalCache principalCache;
+    private final TokenRevocationCache tokenRevocationCache;
+    private final EmbeddingOutbox embeddingOutbox;
+    private final UserDashboardRepository userDashboardRepository;
 
     public UserService(UserRepository userRepository,
                        JournalEntryRepository journalEntryRepository,
                        UserProgressRepository userProgressRepository,
                        WeeklySummaryRepository weeklySummaryRepository,
-                       PasswordEncoder passwordEncoder) {
+                       PasswordEncoder passwordEncoder,
+                       PrincipalCache principalCache,
+                       TokenRevocationCache tokenRevocationCache,
+                       EmbeddingOutbox embeddingOutbox,
+                       UserDashboardRepository userDashboardRepository) {
         this.userRepository = userRepository;
         this.journalEntryRepository = journalEntryRepository;
         this.userProgressRepository = userProgressRepository;
         this.weeklySummaryRepository = weeklySummaryRepository;
         this.passwordEncoder = passwordEncoder;
+        this.principalCache = principalCache;
+        this.tokenRevocationCache = tokenRevocationCache;
+        this.embeddingOutbox = embeddingOutbox;
+        this.userDashboardRepository = userDashboardRepository;
     }
 
     /**
@@ -83,6 +100,8 @@ public class UserService {
 
     public void deleteById(ObjectId id) {
         userRepository.deleteById(id);
+        principalCache.invalidate(id);
+        tokenRevocationCache.revokeAll(id);
     }
 
     /**
@@ -97,18 +116,34 @@ public class UserService {
 
     /**
      * Update username and password for an existing user.
-     * Re-encodes the new password, preserves existing roles.
+     * Re-encodes the new password, preserves existing roles, and bumps the token
+     * version so every JWT issued before the change stops working.
      */
     public void updateExistingUser(User user, String newPassword) {
         log.debug("Updating user: {}, roles preserved: {}", user.getUserName(), user.getRoles());
         user.setPassword(passwordEncoder.encode(newPassword));
+        user.setTokenVersion(user.getTokenVersion() + 1);
         userRepository.save(user);
+        principalCache.invalidate(user.getId());   // username may have changed
+        tokenRevocationCache.versionChanged(user.getId(), user.getTokenVersion());
         log.debug("User updated successfully: {}", user.getUserName());
     }
 
-    public List<User> findUsersForWeeklySummary(int day) {
-        return userRepository
-                .findByPreferencesWeeklySummaryEnabledTrueAndPreferencesWeeklySummaryDay(day);
+    /**
+     * Streaming variant for the weekly cron — projected, partial users.
+     * Callers must close the stream (it holds a Mongo cursor).
+     */
+    public Stream<User> streamUsersForWeeklySummary(int day) {
+        return userRepository.streamUsersForWeeklySummary(day);
+    }
+
+    /**
+     * Record that today's weekly summary was generated. Partial update, so it is
+     * safe to call with the projected users returned by streamUsersForWeeklySummary.
+     */
+    public void markWeeklySummaryGenerated(User user, LocalDate date) {
+        userRepository.updateLastWeeklySummaryDate(user.getId(), date);
+        user.setLastWeeklySummaryDate(date);
     }
 
     /**
@@ -148,24 +183,34 @@ public class UserService {
     /**
      * Delete a user and ALL associated data (entries, progress, summaries).
      * Runs in a transaction to ensure atomic deletion.
+     *
+     * One deleteMany per collection, so the transaction stays short regardless of
+     * how many entries the user has. The entries' vectors in the AI service are
+     * not deleted here: a vector purge job is written to the EmbeddingOutbox in
+     * this transaction and the outbox dispatcher sends it (with retries) after commit.
      */
     @Transactional
     public void deleteUserAndAllData(ObjectId userId) {
-        // Delete all journal entries
-        journalEntryRepository.findByUserId(userId)
-                .forEach(entry -> journalEntryRepository.deleteById(entry.getId()));
+        // Ids only (projected) — needed for the vector purge once the entries are gone
+        List<String> entryIds = journalEntryRepository.findIdsByUserId(userId).stream()
+                .map(entry -> entry.getId().toHexString())
+                .toList();
 
-        // Delete user progress record
-        userProgressRepository.findByUserId(userId)
-                .ifPresent(progress -> userProgressRepository.deleteById(progress.getId()));
-
-        // Delete all weekly summaries
-        weeklySummaryRepository.findAllByUserId(userId)
-                .forEach(summary -> weeklySummaryRepository.deleteById(summary.getId()));
+        long entries = journalEntryRepository.deleteByUserId(userId);
+        userProgressRepository.deleteByUserId(userId);
+        long summaries = weeklySummaryRepository.deleteByUserId(userId);
+        embeddingOutbox.deleteForUser(userId);
+        userDashboardRepository.deleteById(userId);
 
         // Finally delete the user
         userRepository.deleteById(userId);
+        principalCache.invalidate(userId);
+        tokenRevocationCache.revokeAll(userId);
+
+        // Same transaction: the purge runs only if the deletion commits, and survives restarts
+        embeddingOutbox.enqueuePurge(userId, entryIds);
 
-        log.info("User and all associated data deleted for userId: {}", userId);
+        log.info("User and all associated data deleted for userId: {} ({} entries, {} summaries)",
+                userId, entries, summaries);
     }
 }
@@ -3,12 +3,16 @@ package com.example.service;
 import com.example.dto.WeeklyAiReflection;
 import com.example.dto.WeeklySummaryBaseData;
 import com.example.entity.*;
+import com.example.event.WeeklySummarySavedEvent;
 import com.example.repository.WeeklySummaryRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 @Service
 @Slf4j
@@ -19,25 +23,26 @@ public class WeeklySummaryCommandService {
     private final GeminiService geminiService;
     private final UserService userService;
     private final EmailDeliveryService emailDeliveryService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public WeeklySummaryCommandService(WeeklySummaryQueryService weeklySummaryQueryService,
                                         WeeklySummaryRepository weeklySummaryRepository,
                                         GeminiService geminiService,
                                         UserService userService,
-                                        EmailDeliveryService emailDeliveryService) {
+                                        EmailDeliveryService emailDeliveryService,
+                                        ApplicationEventPublisher eventPublisher) {
         this.weeklySummaryQueryService = weeklySummaryQueryService;
         this.weeklySummaryRepository = weeklySummaryRepository;
         this.geminiService = geminiService;
         this.userService = userService;
         this.emailDeliveryService = emailDeliveryService;
+        this.eventPublisher = eventPublisher;
     }
 
     public void generateWeeklySummary(User user) {
 
         // Step 1: Idempotency check — skip if already generated today
-        if (user.getLastWeeklySummaryDate() != null &&
-                user.getLastWeeklySummaryDate().isEqual(LocalDate.now())) {
-            log.info("Weekly summary already generated today for user: {}", user.getUserName());
+        if (alreadyGeneratedToday(user)) {
             return;
         }
 
@@ -45,23 +50,11 @@ public class WeeklySummaryCommandService {
         WeeklySummaryBaseData base = weeklySummaryQueryService.fetchWeeklyBaseData(user.getId());
 
         // Step 3: Build base summary object
-        WeeklySummary summary = new WeeklySummary();
-        summary.setUserId(user.getId());
-        summary.setWeekStartDate(LocalDate.now().minusDays(7));
-        summary.setWeekEndDate(LocalDate.now());
-        summary.setGeneratedAt(LocalDateTime.now());
-        summary.setDeliveryStatus(WeeklySummaryDeliveryStatus.DASHBOARD_ONLY);
+        WeeklySummary summary = newSummary(user);
 
         // Case A: No entries this week → motivational message
         if (!base.isHasEntries()) {
-            summary.setType(WeeklySummaryType.MOTIVATION);
-            summary.setSummaryText(
-                    "You didn't write anything last week. Even a few lines can help clear your mind. Want to start today?"
-            );
-            summary.setDaysWritten(0);
-            summary.setMood("N/A");
-
-            saveAndDeliver(summary, user);
+            saveMotivation(summary, user);
             return;
         }
 
@@ -71,13 +64,7 @@ public class WeeklySummaryCommandService {
             WeeklyAiReflection aiReflection =
                     geminiService.generateWeeklyReflection(base.getWeeklySignal());
 
-            summary.setType(WeeklySummaryType.AI_REFLECTION);
-            summary.setSummaryText(aiReflection.getReflectionText());
-            summary.setTrend(aiReflection.getTrend());
-            summary.setSuggestion(aiReflection.getSuggestion());
-            summary.setDaysWritten(base.getDaysWritten());
-            summary.setMood(base.getDominantMood());
-
+            applyReflection(summary, base, aiReflection);
             saveAndDeliver(summary, user);
             return;
 
@@ -87,6 +74,82 @@ public class WeeklySummaryCommandService {
         }
 
         // Case C: Deterministic fallback
+        applyFallback(summary, base);
+        saveAndDeliver(summary, user);
+    }
+
+    /**
+     * Same flow as {@link #generateWeeklySummary(User)}, but the AI reflection is
+     * streamed: generated text is passed to {@code onChunk} as it arrives. The
+     * future completes once the summary is saved (immediately when there is
+     * nothing to generate).
+     */
+    public CompletableFuture<Void> generateWeeklySummaryStreaming(User user, Consumer<String> onChunk) {
+        if (alreadyGeneratedToday(user)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        WeeklySummaryBaseData base = weeklySummaryQueryService.fetchWeeklyBaseData(user.getId());
+        WeeklySummary summary = newSummary(user);
+
+        if (!base.isHasEntries()) {
+            saveMotivation(summary, user);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return geminiService.generateWeeklyReflectionStreaming(base.getWeeklySignal(), onChunk)
+                .handle((aiReflection, error) -> {
+                    if (error == null) {
+                        applyReflection(summary, base, aiReflection);
+                    } else {
+                        log.warn("AI weekly reflection failed for user {}, using deterministic fallback: {}",
+                                user.getUserName(), error.getMessage());
+                        applyFallback(summary, base);
+                    }
+                    saveAndDeliver(summary, user);
+                    return null;
+                });
+    }
+
+    private boolean alreadyGeneratedToday(User user) {
+        if (user.getLastWeeklySummaryDate() != null &&
+                user.getLastWeeklySummaryDate().isEqual(LocalDate.now())) {
+            log.info("Weekly summary already generated today for user: {}", user.getUserName());
+            return true;
+        }
+        return false;
+    }
+
+    private WeeklySummary newSummary(User user) {
+        WeeklySummary summary = new WeeklySummary();
+        summary.setUserId(user.getId());
+        summary.setWeekStartDate(LocalDate.now().minusDays(7));
+        summary.setWeekEndDate(LocalDate.now());
+        summary.setGeneratedAt(LocalDateTime.now());
+        summary.setDeliveryStatus(WeeklySummaryDeliveryStatus.DASHBOARD_ONLY);
+        return summary;
+    }
+
+    private void saveMotivation(WeeklySummary summary, User user) {
+        summary.setType(WeeklySummaryType.MOTIVATION);
+        summary.setSummaryText(
+                "You didn't write anything last week. Even a few lines can help clear your mind. Want to start today?"
+        );
+        summary.setDaysWritten(0);
+        summary.setMood("N/A");
+
+        saveAndDeliver(summary, user);
+    }
+
+    private void applyReflection(WeeklySummary summary, WeeklySummaryBaseData base, WeeklyAiReflection aiReflection) {
+        summary.setType(WeeklySummaryType.AI_REFLECTION);
+        summary.setSummaryText(aiReflection.getReflectionText());
+        summary.setTrend(aiReflection.getTrend());
+        summary.setSuggestion(aiReflection.getSuggestion());
+        summary.setDaysWritten(base.getDaysWritten());
+        summary.setMood(base.getDominantMood());
+    }
+
+    private void applyFallback(WeeklySummary summary, WeeklySummaryBaseData base) {
         summary.setType(WeeklySummaryType.SUMMARY);
         summary.setSummaryText(
                 String.format("You wrote on %d day(s) this week. Your overall mood was mostly %s.",
@@ -94,17 +157,17 @@ public class WeeklySummaryCommandService {
         );
         summary.setDaysWritten(base.getDaysWritten());
         summary.setMood(base.getDominantMood());
-
-        saveAndDeliver(summary, user);
     }
 
     /**
      * Save the summary, stamp the user's lastWeeklySummaryDate, and optionally email.
+     * The saved summary is published so the materialized dashboard picks it up.
      */
     private void saveAndDeliver(WeeklySummary summary, User user) {
         weeklySummaryRepository.save(summary);
-        user.setLastWeeklySummaryDate(LocalDate.now());
-        userService.saveUser(user);
+        eventPublisher.publishEvent(new WeeklySummarySavedEvent(user.getId(), summary));
+        // Partial update — the cron passes projected users that must not be saved whole
+        userService.markWeeklySummaryGenerated(user, LocalDate.now());
         emailDeliveryService.deliverIfEligible(user, summary);
         log.info("Weekly summary saved for user: {}", user.getUserName());
     }
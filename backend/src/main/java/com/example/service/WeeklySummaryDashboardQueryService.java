@@ -18,18 +18,23 @@ public class WeeklySummaryDashboardQueryService {
     }
 
     public Optional<WeeklySummaryDashboardDTO> getLatestWeeklySummary(ObjectId userId) {
-        return weeklySummaryRepository
-                .findTopByUserIdOrderByGeneratedAtDesc(userId)
-                .map(summary -> {
-                    WeeklySummaryDashboardDTO dto = new WeeklySummaryDashboardDTO();
-                    dto.setSummaryText(summary.getSummaryText());
-                    dto.setType(summary.getType().name());
-                    dto.setDaysWritten(summary.getDaysWritten());
-                    dto.setMood(summary.getMood());
-                    dto.setWeekStartDate(summary.getWeekStartDate());
-                    dto.setWeekEndDate(summary.getWeekEndDate());
-                    dto.setGeneratedAt(summary.getGeneratedAt());
-                    return dto;
-                });
+        return findLatest(userId).map(this::toDTO);
+    }
+
+    /** The latest summary document — lets callers check its version before mapping. */
+    public Optional<WeeklySummary> findLatest(ObjectId userId) {
+        return weeklySummaryRepository.findTopByUserIdOrderByGeneratedAtDesc(userId);
+    }
+
+    public WeeklySummaryDashboardDTO toDTO(WeeklySummary summary) {
+        WeeklySummaryDashboardDTO dto = new WeeklySummaryDashboardDTO();
+        dto.setSummaryText(summary.getSummaryText());
+        dto.setType(summary.getType().name());
+        dto.setDaysWritten(summary.getDaysWritten());
+        dto.setMood(summary.getMood());
+        dto.setWeekStartDate(summary.getWeekStartDate());
+        dto.setWeekEndDate(summary.getWeekEndDate());
+        dto.setGeneratedAt(summary.getGeneratedAt());
+        return dto;
     }
 }
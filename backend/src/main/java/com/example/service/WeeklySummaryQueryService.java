@@ -2,16 +2,22 @@ package com.example.service;
 
 import com.example.dto.WeeklySummaryBaseData;
 import com.example.entity.JournalEntry;
+import org.bson.Document;
 import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.ArrayOperators;
+import org.springframework.data.mongodb.core.aggregation.DateOperators;
 import org.springframework.data.mongodb.core.query.Criteria;
-import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.*;
-import java.util.stream.Collectors;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.*;
 
 @Service
 public class WeeklySummaryQueryService {
@@ -24,22 +30,57 @@ public class WeeklySummaryQueryService {
 
     /**
      * Fetch all data needed to generate a weekly summary for the given user.
-     * Now that JournalEntry has userId, this query works correctly.
+     *
+     * Runs as one $facet aggregation so Mongo returns only the aggregates — entry
+     * count, distinct days, mood histogram and the analyzed fields the weekly
+     * signal needs. Entry content never leaves the database.
      */
     public WeeklySummaryBaseData fetchWeeklyBaseData(ObjectId userId) {
 
         LocalDateTime now = LocalDateTime.now();
         LocalDateTime weekAgo = now.minusDays(7);
 
-        // FIXED: Now correctly queries by userId field (was broken before migration)
-        Criteria criteria = Criteria.where("userId").is(userId)
-                .and("date").gte(weekAgo).lte(now);
-
-        List<JournalEntry> entries = mongoTemplate.find(new Query(criteria), JournalEntry.class);
+        // LocalDateTime is persisted via the JVM zone, so group days in that zone too
+        ZoneId zone = ZoneId.systemDefault();
+
+        Aggregation aggregation = newAggregation(
+                match(Criteria.where("userId").is(userId).and("date").gte(weekAgo).lte(now)),
+                facet(
+                        group().count().as("entryCount")
+                                .addToSet(DateOperators.dateOf("date")
+                                        .withTimezone(DateOperators.Timezone.valueOf(zone.getId()))
+                                        .toString("%Y-%m-%d"))
+                                .as("days"),
+                        project("entryCount").and(ArrayOperators.Size.lengthOfArray("days")).as("daysWritten")
+                ).as("totals")
+                .and(
+                        match(Criteria.where("mood").nin(null, "")),
+                        group("mood").count().as("count"),
+                        sort(Sort.Direction.DESC, "count")
+                ).as("moods")
+                .and(
+                        match(new Criteria().orOperator(
+                                Criteria.where("analysisCompleted").is(true),
+                                Criteria.where("aiSummary").nin(null, ""))),
+                        sort(Sort.Direction.ASC, "date"),
+                        project("date", "mood", "sentimentScore", "aiSummary", "analysisCompleted")
+                ).as("analyzed")
+        );
+
+        Document result = mongoTemplate
+                .aggregate(aggregation, JournalEntry.class, Document.class)
+                .getUniqueMappedResult();
+
+        return toBaseData(result, zone);
+    }
 
+    WeeklySummaryBaseData toBaseData(Document result, ZoneId zone) {
         WeeklySummaryBaseData base = new WeeklySummaryBaseData();
 
-        if (entries.isEmpty()) {
+        List<Document> totals = result == null ? List.of() : result.getList("totals", Document.class, List.of());
+        int entryCount = totals.isEmpty() ? 0 : totals.get(0).get("entryCount", Number.class).intValue();
+
+        if (entryCount == 0) {
             base.setHasEntries(false);
             base.setDaysWritten(0);
             base.setDailyAiSummaries(Collections.emptyList());
@@ -49,64 +90,55 @@ public class WeeklySummaryQueryService {
         }
 
         base.setHasEntries(true);
+        base.setDaysWritten(totals.get(0).get("daysWritten", Number.class).intValue());
 
-        // Count unique days
-        Set<LocalDate> days = entries.stream()
-                .map(e -> e.getDate().toLocalDate())
-                .collect(Collectors.toSet());
-        base.setDaysWritten(days.size());
+        List<Document> analyzed = result.getList("analyzed", Document.class, List.of());
 
-        // Collect AI summaries (non-null only)
-        List<String> summaries = entries.stream()
-                .map(JournalEntry::getAiSummary)
+        // Collect AI summaries (non-blank only)
+        List<String> summaries = analyzed.stream()
+                .map(d -> d.getString("aiSummary"))
                 .filter(s -> s != null && !s.isBlank())
                 .toList();
         base.setDailyAiSummaries(summaries);
 
-        // Dominant mood
-        String dominantMood = entries.stream()
-                .map(JournalEntry::getMood)
+        // Dominant mood — histogram is already sorted by count, descending
+        List<Document> moods = result.getList("moods", Document.class, List.of());
+        String dominantMood = moods.stream()
+                .map(d -> d.getString("_id"))
                 .filter(m -> m != null && !m.isBlank())
-                .collect(Collectors.groupingBy(m -> m, Collectors.counting()))
-                .entrySet()
-                .stream()
-                .max(Map.Entry.comparingByValue())
-                .map(Map.Entry::getKey)
+                .findFirst()
                 .orElse("Neutral");
         base.setDominantMood(dominantMood);
 
-        // Build weeklySignal here (removes layer violation from command service)
-        // FIXED: Filter out entries with incomplete AI analysis to avoid "null" in Gemini prompt
-        String weeklySignal = buildWeeklySignal(entries);
-        base.setWeeklySignal(weeklySignal);
-
+        base.setWeeklySignal(buildWeeklySignal(entryCount, analyzed, zone));
         return base;
     }
 
     /**
-     * Build a text signal from journal entries for the Gemini weekly reflection prompt.
-     * FIXED: Skips entries where AI analysis did not complete (avoids "Mood=null" in prompt).
+     * Build a text signal from the analyzed entries for the Gemini weekly reflection prompt.
+     * Skips entries where AI analysis did not complete (avoids "Mood=null" in prompt).
      */
-    private String buildWeeklySignal(List<JournalEntry> entries) {
+    private String buildWeeklySignal(int entryCount, List<Document> analyzedDocs, ZoneId zone) {
         StringBuilder sb = new StringBuilder();
 
-        List<JournalEntry> analyzed = entries.stream()
-                .filter(e -> Boolean.TRUE.equals(e.getAnalysisCompleted()))
+        List<Document> analyzed = analyzedDocs.stream()
+                .filter(d -> Boolean.TRUE.equals(d.getBoolean("analysisCompleted")))
                 .toList();
 
-        sb.append("User wrote ").append(entries.size()).append(" entries last week");
+        sb.append("User wrote ").append(entryCount).append(" entries last week");
 
-        if (analyzed.size() < entries.size()) {
+        if (analyzed.size() < entryCount) {
             sb.append(" (").append(analyzed.size()).append(" with AI analysis)");
         }
         sb.append(".\n");
 
-        for (JournalEntry entry : analyzed) {
+        for (Document entry : analyzed) {
+            LocalDate day = entry.getDate("date").toInstant().atZone(zone).toLocalDate();
             sb.append("- ")
-                    .append(entry.getDate().toLocalDate())
-                    .append(": Mood=").append(entry.getMood())
-                    .append(", Sentiment=").append(entry.getSentimentScore())
-                    .append(", Summary=\"").append(entry.getAiSummary()).append("\"\n");
+                    .append(day)
+                    .append(": Mood=").append(entry.getString("mood"))
+                    .append(", Sentiment=").append(entry.get("sentimentScore"))
+                    .append(", Summary=\"").append(entry.getString("aiSummary")).append("\"\n");
         }
 
         return sb.toString();
@@ -0,0 +1,83 @@
+package com.example.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("TtlLruCache Tests")
+class TtlLruCacheTest {
+
+    /** Clock the test can move forward. */
+    private static class MutableClock extends Clock {
+        private Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+        void advance(Duration d) { now = now.plus(d); }
+
+        @Override public ZoneId getZone() { return ZoneId.of("UTC"); }
+        @Override public Clock withZone(ZoneId zone) { return this; }
+        @Override public Instant instant() { return now; }
+    }
+
+    private MutableClock clock;
+    private TtlLruCache<String, String> cache;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock();
+        cache = new TtlLruCache<>(2, Duration.ofMinutes(5), clock);
+    }
+
+    @Test
+    @DisplayName("get - returns cached value and counts hits/misses")
+    void get_hitAndMiss() {
+        cache.put("a", "1");
+
+        assertThat(cache.get("a")).isEqualTo("1");
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.hitCount()).isEqualTo(1);
+        assertThat(cache.missCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("get - expired entries are treated as misses")
+    void get_expired_returnsNull() {
+        cache.put("a", "1");
+        clock.advance(Duration.ofMinutes(6));
+
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("put - evicts the least recently used entry when full")
+    void put_full_evictsLru() {
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.get("a");          // "b" is now least recently used
+        cache.put("c", "3");
+
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("a")).isEqualTo("1");
+        assertThat(cache.get("c")).isEqualTo("3");
+        assertThat(cache.evictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("invalidateIf - removes every entry whose value matches")
+    void invalidateIf_removesMatching() {
+        cache.put("a", "user-1");
+        cache.put("b", "user-2");
+
+        cache.invalidateIf("user-1"::equals);
+
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.get("b")).isEqualTo("user-2");
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.client;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("NonBlockingAiHttpClient Tests")
+class NonBlockingAiHttpClientTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private HttpServer server;
+    private NonBlockingAiHttpClient client;
+    private String baseUrl;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/ok", exchange -> {
+            byte[] body = "{\"status\":\"ok\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        // Headers arrive at once, then the body stalls until the test ends
+        server.createContext("/stall", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write("data: first\n\n".getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        // 5s for headers, 300ms total, 500ms for streams
+        client = new NonBlockingAiHttpClient(1_000, 5_000, 300, 500, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        client.stop();
+        server.stop(0);
+    }
+
+    @Test
+    @DisplayName("postJson - completes normally within the total budget")
+    void postJson_success() {
+        Map<?, ?> response = client.postJson(baseUrl + "/ok", Map.of(), Map.of("a", 1), Map.class).join();
+
+        assertThat(response.get("status")).isEqualTo("ok");
+    }
+
+    @Test
+    @DisplayName("postJson - a body that stalls after the headers fails once the total budget is spent")
+    void postJson_stalledBody_timesOut() {
+        assertThatThrownBy(() -> client.postJson(baseUrl + "/stall", Map.of(), Map.of(), Map.class).join())
+                .hasCauseInstanceOf(ResourceAccessException.class)
+                .hasMessageContaining("not complete in time");
+    }
+
+    @Test
+    @DisplayName("postJsonStream - a stalled stream fails after the stream budget, keeping events already delivered")
+    void postJsonStream_stalled_timesOut() {
+        List<String> events = new CopyOnWriteArrayList<>();
+
+        assertThatThrownBy(() -> client.postJsonStream(baseUrl + "/stall", Map.of(), Map.of(), events::add).join())
+                .hasCauseInstanceOf(ResourceAccessException.class);
+        assertThat(events).containsExactly("first");
+    }
+}
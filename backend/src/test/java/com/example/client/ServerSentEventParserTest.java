@@ -0,0 +1,58 @@
+package com.example.client;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("ServerSentEventParser Tests")
+class ServerSentEventParserTest {
+
+    private List<String> events;
+    private ServerSentEventParser parser;
+
+    @BeforeEach
+    void setUp() {
+        events = new ArrayList<>();
+        parser = new ServerSentEventParser(events::add);
+    }
+
+    @Test
+    @DisplayName("dispatches each event's data on the blank line that ends it")
+    void blankLine_dispatchesEvent() {
+        parser.line("data: {\"a\":1}");
+        assertThat(events).isEmpty();
+
+        parser.line("");
+        parser.line("data: {\"a\":2}");
+        parser.line("");
+
+        assertThat(events).containsExactly("{\"a\":1}", "{\"a\":2}");
+    }
+
+    @Test
+    @DisplayName("joins multi-line data and ignores comments and other fields")
+    void multiLineData_joined() {
+        parser.line(": keep-alive");
+        parser.line("event: message");
+        parser.line("data:first");
+        parser.line("data: second");
+        parser.line("");
+
+        assertThat(events).containsExactly("first\nsecond");
+    }
+
+    @Test
+    @DisplayName("finish - flushes a last event without a trailing blank line")
+    void finish_flushesPendingEvent() {
+        parser.line("data: tail");
+        parser.finish();
+        parser.finish();
+
+        assertThat(events).containsExactly("tail");
+    }
+}
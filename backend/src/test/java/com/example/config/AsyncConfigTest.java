@@ -0,0 +1,65 @@
+package com.example.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("AsyncConfig Tests")
+class AsyncConfigTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AsyncConfig config = new AsyncConfig(meterRegistry, false);
+
+    @Test
+    @DisplayName("boundedExecutor - rejects once threads and queue are full, and counts it")
+    void boundedExecutor_rejectsWhenFull() throws Exception {
+        ThreadPoolTaskExecutor executor = config.boundedExecutor("testExecutor", "test-", 1, 1, 1);
+        executor.initialize();
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            executor.execute(() -> await(release));   // occupies the only thread
+            executor.execute(() -> await(release));   // fills the queue
+
+            assertThatThrownBy(() -> executor.execute(() -> { }))
+                    .isInstanceOf(TaskRejectedException.class);
+            assertThat(meterRegistry.counter("async.task.rejected", "executor", "testExecutor").count())
+                    .isEqualTo(1);
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("boundedExecutor - records queue wait and run time per task")
+    void boundedExecutor_recordsTimers() throws Exception {
+        ThreadPoolTaskExecutor executor = config.boundedExecutor("testExecutor", "test-", 1, 1, 10);
+        executor.initialize();
+        CountDownLatch done = new CountDownLatch(1);
+        try {
+            executor.execute(done::countDown);
+            assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            executor.shutdown();
+            executor.getThreadPoolExecutor().awaitTermination(5, TimeUnit.SECONDS);
+        }
+
+        assertThat(meterRegistry.timer("async.task.wait", "executor", "testExecutor").count()).isEqualTo(1);
+        assertThat(meterRegistry.timer("async.task.duration", "executor", "testExecutor").count()).isEqualTo(1);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,14 +1,16 @@
 package com.example.controller;
 
+import com.example.dto.CursorPage;
 import com.example.dto.JournalEntryDTO;
+import com.example.dto.JournalEntryListItemDTO;
 import com.example.entity.JournalEntry;
-import com.example.entity.User;
 import com.example.exception.GlobalExceptionHandler;
 import com.example.mapper.JournalEntryMapper;
+import com.example.security.JournalUserPrincipal;
 import com.example.service.JournalEntryService;
-import com.example.service.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -16,17 +18,20 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.MediaType;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.method.annotation.AuthenticationPrincipalArgumentResolver;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
+import static org.hamcrest.Matchers.startsWith;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -44,9 +49,7 @@ class JournalEntryControllerTest {
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     @Mock private JournalEntryService journalEntryService;
-    @Mock private UserService userService;
 
-    private User testUser;
     private ObjectId userId;
     private ObjectId entryId;
     private JournalEntryMapper mapper;
@@ -54,27 +57,29 @@ class JournalEntryControllerTest {
     @BeforeEach
     void setUp() {
         mapper = new JournalEntryMapper();
-        JournalEntryController controller = new JournalEntryController(journalEntryService, userService);
+        JournalEntryController controller = new JournalEntryController(journalEntryService);
         mockMvc = MockMvcBuilders
                 .standaloneSetup(controller)
                 .setControllerAdvice(new GlobalExceptionHandler())
+                .setCustomArgumentResolvers(new AuthenticationPrincipalArgumentResolver())
                 .build();
 
         userId = new ObjectId();
         entryId = new ObjectId();
 
-        testUser = new User();
-        testUser.setId(userId);
-        testUser.setUserName("testuser");
-        testUser.setJournalEntryIds(new ArrayList<>(List.of(entryId)));
+        // @AuthenticationPrincipal is resolved from the SecurityContext, not the request principal
+        SecurityContextHolder.getContext().setAuthentication(principal());
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
     }
 
     /** Helper to create an authenticated principal */
     private UsernamePasswordAuthenticationToken principal() {
-        org.springframework.security.core.userdetails.User ud =
-                new org.springframework.security.core.userdetails.User(
-                        "testuser", "", List.of());
-        return new UsernamePasswordAuthenticationToken(ud, null, ud.getAuthorities());
+        JournalUserPrincipal principal = new JournalUserPrincipal(userId, "testuser", List.of("USER"));
+        return new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
     }
 
     @Test
@@ -85,9 +90,8 @@ class JournalEntryControllerTest {
         dto.setTitle("Test Entry");
         dto.setDate(LocalDateTime.now());
 
-        when(userService.findByUserName("testuser")).thenReturn(testUser);
         when(journalEntryService.getEntriesForUser(eq(userId), any(Pageable.class)))
-                .thenReturn(new PageImpl<>(List.of(dto)));
+                .thenReturn(new PageImpl<>(List.of(dto), PageRequest.of(0, 20), 1));
 
         mockMvc.perform(get("/journal").principal(principal()))
                 .andExpect(status().isOk())
@@ -95,6 +99,53 @@ class JournalEntryControllerTest {
                 .andExpect(jsonPath("$.content[0].title").value("Test Entry"));
     }
 
+    @Test
+    @DisplayName("GET /journal?cursor= - returns a keyset page without a total")
+    void getAll_cursorMode_returnsCursorPage() throws Exception {
+        JournalEntryDTO dto = new JournalEntryDTO();
+        dto.setId(entryId.toHexString());
+        dto.setTitle("Test Entry");
+
+        when(journalEntryService.getEntriesForUser(userId, "", 20, false))
+                .thenReturn(new CursorPage<>(List.of(dto), "next-token", null));
+
+        mockMvc.perform(get("/journal").param("cursor", "").principal(principal()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].title").value("Test Entry"))
+                .andExpect(jsonPath("$.nextCursor").value("next-token"))
+                .andExpect(jsonPath("$.total").doesNotExist());
+        verify(journalEntryService, never()).getEntriesForUser(any(), any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("GET /journal?view=summary - returns list items without full content")
+    void getAll_summaryView_returnsListItems() throws Exception {
+        JournalEntryListItemDTO item = new JournalEntryListItemDTO();
+        item.setId(entryId.toHexString());
+        item.setTitle("Test Entry");
+        item.setContentPreview("Today was…");
+
+        when(journalEntryService.getEntryListForUser(eq(userId), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(item), PageRequest.of(0, 20), 1));
+
+        mockMvc.perform(get("/journal").param("view", "summary").principal(principal()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].contentPreview").value("Today was…"))
+                .andExpect(jsonPath("$.content[0].content").doesNotExist());
+        verify(journalEntryService, never()).getEntriesForUser(any(), any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("GET /journal?cursor=bad - invalid cursor returns 400")
+    void getAll_invalidCursor_returns400() throws Exception {
+        when(journalEntryService.getEntriesForUser(userId, "bad", 20, false))
+                .thenThrow(new IllegalArgumentException("Malformed cursor"));
+
+        mockMvc.perform(get("/journal").param("cursor", "bad").principal(principal()))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Invalid cursor"));
+    }
+
     @Test
     @DisplayName("POST /journal - creates an entry and returns 201")
     void createEntry_valid_returns201() throws Exception {
@@ -107,7 +158,7 @@ class JournalEntryControllerTest {
 
         JournalEntryDTO dto = mapper.toDTO(saved);
 
-        when(journalEntryService.saveEntry(any(), eq("testuser"))).thenReturn(saved);
+        when(journalEntryService.saveEntry(any(), eq(userId))).thenReturn(saved);
         when(journalEntryService.toDTO(saved)).thenReturn(dto);
 
         String body = "{\"title\":\"New Entry\",\"content\":\"Today was great!\"}";
@@ -142,8 +193,7 @@ class JournalEntryControllerTest {
 
         JournalEntryDTO dto = mapper.toDTO(entry);
 
-        when(userService.findByUserName("testuser")).thenReturn(testUser);
-        when(journalEntryService.findById(entryId)).thenReturn(Optional.of(entry));
+        when(journalEntryService.findOwnedEntry(entryId, userId)).thenReturn(Optional.of(entry));
         when(journalEntryService.toDTO(entry)).thenReturn(dto);
 
         mockMvc.perform(get("/journal/id/" + entryId.toHexString()).principal(principal()))
@@ -151,13 +201,54 @@ class JournalEntryControllerTest {
                 .andExpect(jsonPath("$.title").value("My Entry"));
     }
 
+    @Test
+    @DisplayName("GET /journal/id/{id} - versioned entry sends ETag and Cache-Control")
+    void getById_versionedEntry_sendsETag() throws Exception {
+        JournalEntry entry = new JournalEntry("My Entry");
+        entry.setId(entryId);
+        entry.setLastModifiedAt(LocalDateTime.of(2026, 3, 1, 9, 30));
+
+        when(journalEntryService.findOwnedEntry(entryId, userId)).thenReturn(Optional.of(entry));
+        when(journalEntryService.toDTO(entry)).thenReturn(mapper.toDTO(entry));
+
+        mockMvc.perform(get("/journal/id/" + entryId.toHexString()).principal(principal()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", startsWith("\"" + entryId.toHexString())))
+                .andExpect(header().string("Cache-Control", "no-cache, private"));
+    }
+
+    @Test
+    @DisplayName("GET /journal/id/{id} - matching If-None-Match returns 304 without mapping")
+    void getById_matchingETag_returns304() throws Exception {
+        JournalEntry entry = new JournalEntry("My Entry");
+        entry.setId(entryId);
+        entry.setLastModifiedAt(LocalDateTime.of(2026, 3, 1, 9, 30));
+        when(journalEntryService.findOwnedEntry(entryId, userId)).thenReturn(Optional.of(entry));
+        String etag = ConditionalReads.etag(entryId, entry.getLastModifiedAt());
+
+        mockMvc.perform(get("/journal/id/" + entryId.toHexString())
+                        .header("If-None-Match", "W/" + etag)
+                        .principal(principal()))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag))
+                .andExpect(content().string(""));
+        verify(journalEntryService, never()).toDTO(any());
+
+        // After the entry changes, the old tag no longer matches
+        entry.setLastModifiedAt(entry.getLastModifiedAt().plusSeconds(1));
+        when(journalEntryService.toDTO(entry)).thenReturn(mapper.toDTO(entry));
+        mockMvc.perform(get("/journal/id/" + entryId.toHexString())
+                        .header("If-None-Match", etag)
+                        .principal(principal()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("My Entry"));
+    }
+
     @Test
     @DisplayName("GET /journal/id/{id} - not owned entry returns 404")
     void getById_notOwned_returns404() throws Exception {
-        // User's entry list is empty (doesn't own this entryId)
-        testUser.setJournalEntryIds(new ArrayList<>());
-
-        when(userService.findByUserName("testuser")).thenReturn(testUser);
+        // Ownership-scoped lookup finds nothing for this user
+        when(journalEntryService.findOwnedEntry(entryId, userId)).thenReturn(Optional.empty());
 
         mockMvc.perform(get("/journal/id/" + entryId.toHexString()).principal(principal()))
                 .andExpect(status().isNotFound());
@@ -173,7 +264,7 @@ class JournalEntryControllerTest {
 
         JournalEntryDTO dto = mapper.toDTO(updated);
 
-        when(userService.findByUserName("testuser")).thenReturn(testUser);
+        when(journalEntryService.isOwnedBy(entryId, userId)).thenReturn(true);
         when(journalEntryService.updateEntry(any(), any(), any())).thenReturn(updated);
         when(journalEntryService.toDTO(updated)).thenReturn(dto);
 
@@ -187,10 +278,24 @@ class JournalEntryControllerTest {
                 .andExpect(jsonPath("$.title").value("Updated"));
     }
 
+    @Test
+    @DisplayName("PUT /journal/id/{id} - not owned entry returns 404 without updating")
+    void updateEntry_notOwned_returns404() throws Exception {
+        when(journalEntryService.isOwnedBy(entryId, userId)).thenReturn(false);
+
+        mockMvc.perform(put("/journal/id/" + entryId.toHexString())
+                        .principal(principal())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Updated\",\"content\":\"x\"}"))
+                .andExpect(status().isNotFound());
+
+        verify(journalEntryService, never()).updateEntry(any(), any(), any());
+    }
+
     @Test
     @DisplayName("DELETE /journal/id/{id} - owned entry returns 204")
     void deleteEntry_owned_returns204() throws Exception {
-        doNothing().when(journalEntryService).deleteById(any(), eq("testuser"));
+        doNothing().when(journalEntryService).deleteById(any(), eq(userId));
 
         mockMvc.perform(delete("/journal/id/" + entryId.toHexString()).principal(principal()))
                 .andExpect(status().isNoContent());
@@ -200,7 +305,7 @@ class JournalEntryControllerTest {
     @DisplayName("DELETE /journal/id/{id} - not found returns 404")
     void deleteEntry_notFound_returns404() throws Exception {
         doThrow(new RuntimeException("Entry not found or access denied"))
-                .when(journalEntryService).deleteById(any(), eq("testuser"));
+                .when(journalEntryService).deleteById(any(), eq(userId));
 
         mockMvc.perform(delete("/journal/id/" + entryId.toHexString()).principal(principal()))
                 .andExpect(status().isNotFound());
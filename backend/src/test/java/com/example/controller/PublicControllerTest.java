@@ -2,11 +2,13 @@ package com.example.controller;
 
 import com.example.dto.AuthResponse;
 import com.example.dto.LoginRequest;
+import com.example.entity.User;
 import com.example.exception.GlobalExceptionHandler;
 import com.example.exception.UserAlreadyExistsException;
 import com.example.security.JwtTokenProvider;
 import com.example.service.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bson.types.ObjectId;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -64,8 +66,16 @@ class PublicControllerTest {
         UsernamePasswordAuthenticationToken auth =
                 new UsernamePasswordAuthenticationToken("john", null, List.of());
 
+        User john = new User();
+        john.setId(new ObjectId());
+        john.setUserName("john");
+        john.setRoles(List.of("USER"));
+        john.setTokenVersion(2);
+
         when(authenticationManager.authenticate(any())).thenReturn(auth);
-        when(jwtTokenProvider.generateToken("john")).thenReturn("mocked.jwt.token");
+        when(userService.findByUserName("john")).thenReturn(john);
+        when(jwtTokenProvider.generateToken("john", john.getId(), List.of("USER"), 2L))
+                .thenReturn("mocked.jwt.token");
         when(jwtTokenProvider.getExpiryMs()).thenReturn(86400000L);
 
         mockMvc.perform(post("/public/login")
@@ -31,7 +31,7 @@ public class UserServiceTests {
     @Test
     public void testFindByUserName(){
         User user = userRepository.findByUserName("Muttu");
-        assertTrue(!user.getJournalEntryIds().isEmpty());
+        assertNotNull(user.getId());
     }
     @Disabled
     @ParameterizedTest
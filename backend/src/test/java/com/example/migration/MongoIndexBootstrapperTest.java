@@ -0,0 +1,181 @@
+package com.example.migration;
+
+import com.example.entity.JournalEntry;
+import com.example.entity.UserProgress;
+import com.example.entity.WeeklySummary;
+import com.mongodb.client.AggregateIterable;
+import com.mongodb.client.ListIndexesIterable;
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+import org.assertj.core.api.InstanceOfAssertFactories;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.UncategorizedMongoDbException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver.IndexDefinitionHolder;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("MongoIndexBootstrapper Tests")
+class MongoIndexBootstrapperTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private IndexOperations indexOps;
+
+    @Mock
+    private MongoCollection<Document> collection;
+
+    @Mock
+    private ListIndexesIterable<Document> listIndexes;
+
+    @Mock
+    private AggregateIterable<Document> indexStats;
+
+    private MongoIndexBootstrapper bootstrapper;
+
+    @BeforeEach
+    void setUp() {
+        bootstrapper = new MongoIndexBootstrapper(mongoTemplate, mappingContext(JournalEntry.class), true);
+    }
+
+    @Test
+    @DisplayName("declaredIndexes - resolves the compound and unique indexes from entity annotations")
+    void declaredIndexes_resolvesAnnotations() {
+        Map<String, List<IndexDefinitionHolder>> declared = new MongoIndexBootstrapper(mongoTemplate,
+                mappingContext(JournalEntry.class, WeeklySummary.class, UserProgress.class), true).declaredIndexes();
+
+        assertThat(signatures(declared.get("journal_entries"))).containsExactly("userId_1_date_-1__id_-1");
+        assertThat(signatures(declared.get("weekly_summaries")))
+                .containsExactlyInAnyOrder("userId_1_generatedAt_-1", "deliveryStatus_1_generatedAt_1");
+        assertThat(declared.get("user_progress")).singleElement()
+                .satisfies(index -> assertThat(index.getIndexOptions().getBoolean("unique")).isTrue());
+    }
+
+    @Test
+    @DisplayName("ensureIndexes - creates every declared index and verifies against listIndexes")
+    void ensureIndexes_createsAndVerifies() {
+        when(mongoTemplate.indexOps("journal_entries")).thenReturn(indexOps);
+        existingIndexes(index("_id_", new Document("_id", 1)),
+                index("userId_date_id", new Document("userId", 1).append("date", -1).append("_id", -1)));
+
+        bootstrapper.ensureIndexes();
+
+        verify(indexOps).ensureIndex(argThat(definition -> "userId_1_date_-1__id_-1".equals(signature(definition))));
+        assertThat(bootstrapper.failures("journal_entries")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("ensureIndexes - a failing index is recorded instead of failing startup")
+    void ensureIndexes_failure_isRecorded() {
+        when(mongoTemplate.indexOps("journal_entries")).thenReturn(indexOps);
+        when(indexOps.ensureIndex(any())).thenThrow(new UncategorizedMongoDbException("E11000 duplicate key", null));
+        existingIndexes(index("_id_", new Document("_id", 1)));
+
+        assertThatCode(bootstrapper::ensureIndexes).doesNotThrowAnyException();
+
+        assertThat(bootstrapper.failures("journal_entries"))
+                .containsEntry("userId_1_date_-1__id_-1", "E11000 duplicate key");
+    }
+
+    @Test
+    @DisplayName("ensureIndexes - disabled does not touch the database")
+    void ensureIndexes_disabled_noop() {
+        new MongoIndexBootstrapper(mongoTemplate, mappingContext(JournalEntry.class), false).ensureIndexes();
+
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    @DisplayName("endpoint - reports missing declared, undeclared and unused indexes")
+    void endpoint_reportsMissingUndeclaredAndUnused() {
+        existingIndexes(index("_id_", new Document("_id", 1)),
+                index("userId", new Document("userId", 1)));
+        when(collection.aggregate(anyList())).thenReturn(indexStats);
+        when(indexStats.into(any())).thenAnswer(invocation -> {
+            Collection<Document> target = invocation.getArgument(0);
+            target.add(stats("_id_", 0));
+            target.add(stats("userId", 0));
+            return target;
+        });
+
+        Map<String, Object> report = new MongoIndexEndpoint(bootstrapper, mongoTemplate).report();
+
+        assertThat(report).containsEntry("missing", 1).containsEntry("unused", 1);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> journal = (Map<String, Object>) ((Map<String, Object>) report.get("collections"))
+                .get("journal_entries");
+        assertThat(journal.get("declared")).asInstanceOf(InstanceOfAssertFactories.LIST).singleElement()
+                .isEqualTo(Map.of("key", "userId_1_date_-1__id_-1", "status", "MISSING"));
+        assertThat(journal.get("undeclared")).isEqualTo(List.of("userId"));
+        assertThat(journal.get("unused")).isEqualTo(List.of("userId"));
+    }
+
+    @Test
+    @DisplayName("signature - follows MongoDB's default index naming and ignores number types")
+    void signature_normalizesDirections() {
+        assertThat(MongoIndexBootstrapper.signature(new Document("userId", 1.0).append("date", -1L)))
+                .isEqualTo("userId_1_date_-1");
+        assertThat(MongoIndexBootstrapper.signature(new Document("content", "text")))
+                .isEqualTo("content_text");
+    }
+
+    // --- helpers ---
+
+    /** Mapping context set up the way Spring Boot builds it. */
+    private static MongoMappingContext mappingContext(Class<?>... entities) {
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(new MongoCustomConversions(List.of()).getSimpleTypeHolder());
+        mappingContext.setInitialEntitySet(Set.of(entities));
+        mappingContext.afterPropertiesSet();
+        return mappingContext;
+    }
+
+    private void existingIndexes(Document... indexes) {
+        when(mongoTemplate.getCollection("journal_entries")).thenReturn(collection);
+        when(collection.listIndexes()).thenReturn(listIndexes);
+        when(listIndexes.into(any())).thenAnswer(invocation -> {
+            Collection<Document> target = invocation.getArgument(0);
+            target.addAll(List.of(indexes));
+            return target;
+        });
+    }
+
+    private static Document index(String name, Document key) {
+        return new Document("v", 2).append("key", key).append("name", name);
+    }
+
+    private static Document stats(String name, long ops) {
+        return new Document("name", name)
+                .append("accesses", new Document("ops", ops).append("since", new Date()));
+    }
+
+    private static String signature(IndexDefinition definition) {
+        return MongoIndexBootstrapper.signature(definition.getIndexKeys());
+    }
+
+    private static List<String> signatures(List<IndexDefinitionHolder> indexes) {
+        return indexes.stream().map(MongoIndexBootstrapperTest::signature).toList();
+    }
+}
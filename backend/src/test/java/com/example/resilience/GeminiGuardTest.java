@@ -0,0 +1,98 @@
+package com.example.resilience;
+
+import com.example.exception.GeminiUnavailableException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("GeminiGuard Tests")
+class GeminiGuardTest {
+
+    /** failureThreshold, concurrency limit fixed at {@code limit}, generous rate limit. */
+    private GeminiGuard guard(int failureThreshold, int limit) {
+        return new GeminiGuard(failureThreshold, 30_000, limit, limit, limit, 10_000, 6_000, 100, 1_000);
+    }
+
+    @Test
+    @DisplayName("executeAsync - holds the concurrency slot until the returned future completes")
+    void executeAsync_holdsSlotUntilCompletion() {
+        GeminiGuard guard = guard(5, 1);
+        CompletableFuture<String> response = new CompletableFuture<>();
+
+        CompletableFuture<String> first = guard.executeAsync(() -> response);
+        assertThat(guard.getLimiter().getInFlight()).isEqualTo(1);
+
+        CompletableFuture<String> second = guard.executeAsync(() -> CompletableFuture.completedFuture("x"));
+        assertThatThrownBy(second::join).hasCauseInstanceOf(GeminiUnavailableException.class);
+
+        response.complete("ok");
+        assertThat(first.join()).isEqualTo("ok");
+        assertThat(guard.getLimiter().getInFlight()).isZero();
+    }
+
+    @Test
+    @DisplayName("executeAsync - a call the concurrency limit rejects hands its rate-limit slot back")
+    void executeAsync_limiterRejection_refundsRateSlot() {
+        // 1 call/s, burst 2, no waiting: a third slot is only there if the rejected one came back
+        GeminiGuard guard = new GeminiGuard(5, 30_000, 1, 1, 1, 10_000, 60, 2, 0);
+        CompletableFuture<String> response = new CompletableFuture<>();
+
+        CompletableFuture<String> first = guard.executeAsync(() -> response);
+        CompletableFuture<String> rejected = guard.executeAsync(() -> CompletableFuture.completedFuture("x"));
+        assertThatThrownBy(rejected::join).hasMessageContaining("concurrency limit");
+
+        response.complete("ok");
+        first.join();
+        CompletableFuture<String> third = guard.executeAsync(() -> CompletableFuture.completedFuture("y"));
+        assertThat(third.join()).isEqualTo("y");
+    }
+
+    @Test
+    @DisplayName("executeAsync - failed futures count against the circuit breaker")
+    void executeAsync_failureTripsBreaker() {
+        GeminiGuard guard = guard(1, 5);
+
+        CompletableFuture<String> failed = guard.executeAsync(
+                () -> CompletableFuture.failedFuture(new IllegalStateException("500")));
+
+        assertThatThrownBy(failed::join).isInstanceOf(CompletionException.class);
+        assertThat(guard.getCircuitBreaker().getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(guard.getLimiter().getInFlight()).isZero();
+    }
+
+    @Test
+    @DisplayName("executeAsync - open breaker rejects without invoking the call")
+    void executeAsync_breakerOpen_rejectsWithoutCall() {
+        GeminiGuard guard = guard(1, 5);
+        guard.getCircuitBreaker().tryAcquirePermission();
+        guard.getCircuitBreaker().onFailure();
+        AtomicInteger calls = new AtomicInteger();
+
+        CompletableFuture<String> result = guard.executeAsync(() -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture("x");
+        });
+
+        assertThatThrownBy(result::join).hasCauseInstanceOf(GeminiUnavailableException.class);
+        assertThat(calls).hasValue(0);
+    }
+
+    @Test
+    @DisplayName("executeAsync - a call that throws before returning a future releases its permits")
+    void executeAsync_supplierThrows_releases() {
+        GeminiGuard guard = guard(5, 1);
+
+        CompletableFuture<String> result = guard.executeAsync(() -> {
+            throw new IllegalArgumentException("bad url");
+        });
+
+        assertThatThrownBy(result::join).hasCauseInstanceOf(IllegalArgumentException.class);
+        assertThat(guard.getLimiter().getInFlight()).isZero();
+        assertThat(guard.getCircuitBreaker().getConsecutiveFailures()).isEqualTo(1);
+    }
+}
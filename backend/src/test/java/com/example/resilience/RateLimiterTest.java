@@ -0,0 +1,66 @@
+package com.example.resilience;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("RateLimiter Tests")
+class RateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    @DisplayName("burst permits are immediate, the next one waits one interval")
+    void burstThenSpaced() {
+        AtomicLong now = new AtomicLong(0);
+        RateLimiter limiter = new RateLimiter(2.0, 3, now::get);   // 2/s → 500ms interval
+
+        assertThat(limiter.reserve(SECOND)).isZero();
+        assertThat(limiter.reserve(SECOND)).isZero();
+        assertThat(limiter.reserve(SECOND)).isZero();
+        assertThat(limiter.reserve(SECOND)).isEqualTo(SECOND / 2);
+        assertThat(limiter.reserve(SECOND)).isEqualTo(SECOND);
+    }
+
+    @Test
+    @DisplayName("a refunded permit is available to the next caller")
+    void refund_returnsPermit() {
+        AtomicLong now = new AtomicLong(0);
+        RateLimiter limiter = new RateLimiter(1.0, 1, now::get);
+
+        assertThat(limiter.reserve(0)).isZero();
+        limiter.refund();
+        assertThat(limiter.reserve(0)).isZero();
+        assertThat(limiter.reserve(SECOND)).isEqualTo(SECOND);
+    }
+
+    @Test
+    @DisplayName("rejects without consuming when the wait would exceed maxWait")
+    void overMaxWait_rejects() {
+        AtomicLong now = new AtomicLong(0);
+        RateLimiter limiter = new RateLimiter(1.0, 1, now::get);
+
+        assertThat(limiter.reserve(0)).isZero();
+        assertThat(limiter.reserve(SECOND / 2)).isEqualTo(-1);
+        assertThat(limiter.reserve(SECOND)).isEqualTo(SECOND);
+    }
+
+    @Test
+    @DisplayName("idle time refills the bucket only up to the burst size")
+    void idle_refillsUpToBurst() {
+        AtomicLong now = new AtomicLong(0);
+        RateLimiter limiter = new RateLimiter(1.0, 2, now::get);
+        limiter.reserve(0);
+        limiter.reserve(SECOND);
+
+        now.addAndGet(60 * SECOND);
+
+        assertThat(limiter.reserve(0)).isZero();
+        assertThat(limiter.reserve(0)).isZero();
+        assertThat(limiter.reserve(0)).isEqualTo(-1);
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.scheduler;
+
+import com.example.entity.EmbeddingJob;
+import com.example.entity.EmbeddingJobStatus;
+import com.example.entity.JournalEntry;
+import com.example.entity.VectorPurgeJob;
+import com.example.repository.JournalEntryRepository;
+import com.example.service.AiEmbeddingService;
+import com.example.service.EmbeddingOutbox;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("EmbeddingOutboxDispatcher Tests")
+class EmbeddingOutboxDispatcherTest {
+
+    @Mock private EmbeddingOutbox outbox;
+    @Mock private JournalEntryRepository journalEntryRepository;
+    @Mock private AiEmbeddingService aiEmbeddingService;
+
+    private static final Duration LINGER = Duration.ofSeconds(4);
+
+    private SimpleMeterRegistry meterRegistry;
+    private EmbeddingOutboxDispatcher dispatcher;
+
+    private final ObjectId userId = new ObjectId();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        dispatcher = new EmbeddingOutboxDispatcher(outbox, journalEntryRepository, aiEmbeddingService,
+                meterRegistry, 20, 10, LINGER.toMillis());
+    }
+
+    private JournalEntry entry(String content) {
+        JournalEntry entry = new JournalEntry("title");
+        entry.setId(new ObjectId());
+        entry.setUserId(userId);
+        entry.setContent(content);
+        return entry;
+    }
+
+    private EmbeddingJob jobFor(ObjectId entryId) {
+        EmbeddingJob job = new EmbeddingJob();
+        job.setId(new ObjectId());
+        job.setEntryId(entryId);
+        job.setUserId(userId);
+        job.setStatus(EmbeddingJobStatus.PROCESSING);
+        return job;
+    }
+
+    private VectorPurgeJob purgeJob(List<String> entryIds) {
+        VectorPurgeJob job = new VectorPurgeJob();
+        job.setId(new ObjectId());
+        job.setUserId(userId);
+        job.setEntryIds(entryIds);
+        job.setStatus(EmbeddingJobStatus.PROCESSING);
+        return job;
+    }
+
+    private double jobs(String outcome) {
+        return meterRegistry.counter("embedding.outbox.jobs", "outcome", outcome).count();
+    }
+
+    @Test
+    @DisplayName("process - whole batch goes out in one request and completes every job")
+    void process_success_oneBatchRequest() {
+        JournalEntry first = entry("Today was calm.");
+        JournalEntry second = entry("Long walk after work.");
+        EmbeddingJob firstJob = jobFor(first.getId());
+        EmbeddingJob secondJob = jobFor(second.getId());
+        when(journalEntryRepository.findAllById(any())).thenReturn(List.of(first, second));
+        when(aiEmbeddingService.embedEntriesAsync(List.of(first, second)))
+                .thenReturn(CompletableFuture.completedFuture(
+                        Set.of(first.getId().toHexString(), second.getId().toHexString())));
+
+        dispatcher.process(List.of(firstJob, secondJob)).join();
+
+        verify(aiEmbeddingService, times(1)).embedEntriesAsync(any());
+        verify(outbox).complete(firstJob);
+        verify(outbox).complete(secondJob);
+        assertThat(jobs("success")).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("process - entries missing from the batch response are rescheduled")
+    void process_partialBatch_reschedulesMissing() {
+        JournalEntry done = entry("first");
+        JournalEntry missed = entry("second");
+        EmbeddingJob doneJob = jobFor(done.getId());
+        EmbeddingJob missedJob = jobFor(missed.getId());
+        when(journalEntryRepository.findAllById(any())).thenReturn(List.of(done, missed));
+        when(aiEmbeddingService.embedEntriesAsync(any()))
+                .thenReturn(CompletableFuture.completedFuture(Set.of(done.getId().toHexString())));
+        when(outbox.fail(eq(missedJob), anyString())).thenReturn(false);
+
+        dispatcher.process(List.of(doneJob, missedJob)).join();
+
+        verify(outbox).complete(doneJob);
+        verify(outbox).fail(eq(missedJob), anyString());
+        assertThat(jobs("retry")).isEqualTo(1);
+        assertThat(jobs("success")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("process - failed batch request reschedules every job, exhausted ones are dead-lettered")
+    void process_requestFails_allRescheduled() {
+        JournalEntry first = entry("first");
+        JournalEntry second = entry("second");
+        EmbeddingJob firstJob = jobFor(first.getId());
+        EmbeddingJob secondJob = jobFor(second.getId());
+        when(journalEntryRepository.findAllById(any())).thenReturn(List.of(first, second));
+        when(aiEmbeddingService.embedEntriesAsync(any()))
+                .thenReturn(CompletableFuture.failedFuture(new ResourceAccessException("timeout")));
+        when(outbox.fail(firstJob, "timeout")).thenReturn(false);
+        when(outbox.fail(secondJob, "timeout")).thenReturn(true);
+
+        dispatcher.process(List.of(firstJob, secondJob)).join();
+
+        verify(outbox, never()).complete(any(EmbeddingJob.class));
+        assertThat(jobs("retry")).isEqualTo(1);
+        assertThat(jobs("dead")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("process - job for a deleted entry is completed without calling the AI service")
+    void process_entryGone_completedWithoutCall() {
+        EmbeddingJob job = jobFor(new ObjectId());
+        when(journalEntryRepository.findAllById(any())).thenReturn(List.of());
+
+        dispatcher.process(List.of(job)).join();
+
+        verifyNoInteractions(aiEmbeddingService);
+        verify(outbox).complete(job);
+    }
+
+    @Test
+    @DisplayName("dispatch - drains batches until none are due and refreshes backlog gauges")
+    void dispatch_drainsAndUpdatesGauges() {
+        JournalEntry entry = entry("content");
+        EmbeddingJob job = jobFor(entry.getId());
+        when(outbox.claimDue(20, LINGER)).thenReturn(List.of(job)).thenReturn(List.of());
+        when(journalEntryRepository.findAllById(any())).thenReturn(List.of(entry));
+        when(aiEmbeddingService.embedEntriesAsync(any()))
+                .thenReturn(CompletableFuture.completedFuture(Set.of(entry.getId().toHexString())));
+        when(outbox.count(EmbeddingJobStatus.PENDING)).thenReturn(7L);
+        when(outbox.count(EmbeddingJobStatus.DEAD)).thenReturn(2L);
+
+        dispatcher.dispatch();
+
+        verify(outbox, times(2)).claimDue(20, LINGER);
+        assertThat(meterRegistry.get("embedding.outbox.backlog").gauge().value()).isEqualTo(7);
+        assertThat(meterRegistry.get("embedding.outbox.dead").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("dispatch - claimed batches are all in flight before any response arrives")
+    void dispatch_sendsBatchesConcurrently() {
+        JournalEntry first = entry("first");
+        JournalEntry second = entry("second");
+        EmbeddingJob firstJob = jobFor(first.getId());
+        EmbeddingJob secondJob = jobFor(second.getId());
+        when(outbox.claimDue(20, LINGER))
+                .thenReturn(List.of(firstJob))
+                .thenReturn(List.of(secondJob))
+                .thenReturn(List.of());
+        when(journalEntryRepository.findAllById(any())).thenReturn(List.of(first)).thenReturn(List.of(second));
+
+        CompletableFuture<Set<String>> firstResponse = new CompletableFuture<>();
+        CompletableFuture<Set<String>> secondResponse = new CompletableFuture<>();
+        when(aiEmbeddingService.embedEntriesAsync(List.of(first))).thenReturn(firstResponse);
+        when(aiEmbeddingService.embedEntriesAsync(List.of(second))).thenAnswer(invocation -> {
+            // The first batch is still waiting when the second one is sent
+            firstResponse.complete(Set.of(first.getId().toHexString()));
+            secondResponse.complete(Set.of(second.getId().toHexString()));
+            return secondResponse;
+        });
+
+        dispatcher.dispatch();
+
+        verify(outbox).complete(firstJob);
+        verify(outbox).complete(secondJob);
+        assertThat(jobs("success")).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("purge - successful delete request completes the purge job")
+    void purge_success_completesJob() {
+        VectorPurgeJob job = purgeJob(List.of("a", "b"));
+        when(aiEmbeddingService.purgeVectorsAsync(userId.toHexString(), List.of("a", "b")))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        dispatcher.purge(job).join();
+
+        verify(outbox).complete(job);
+        assertThat(jobs("success")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("purge - failed delete request is rescheduled through the outbox, not dropped")
+    void purge_requestFails_rescheduled() {
+        VectorPurgeJob job = purgeJob(List.of("a"));
+        when(aiEmbeddingService.purgeVectorsAsync(any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new ResourceAccessException("timeout")));
+        when(outbox.fail(job, "timeout")).thenReturn(false);
+
+        dispatcher.purge(job).join();
+
+        verify(outbox, never()).complete(any(VectorPurgeJob.class));
+        verify(outbox).fail(job, "timeout");
+        assertThat(jobs("retry")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("dispatch - due purge jobs are sent in the same tick")
+    void dispatch_sendsDuePurges() {
+        VectorPurgeJob job = purgeJob(List.of("a"));
+        when(outbox.claimDue(20, LINGER)).thenReturn(List.of());
+        when(outbox.claimDuePurges(10)).thenReturn(List.of(job));
+        when(aiEmbeddingService.purgeVectorsAsync(any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        dispatcher.dispatch();
+
+        verify(outbox).complete(job);
+    }
+}
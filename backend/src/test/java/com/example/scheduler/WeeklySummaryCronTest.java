@@ -0,0 +1,86 @@
+package com.example.scheduler;
+
+import com.example.entity.User;
+import com.example.service.UserService;
+import com.example.service.WeeklySummaryCommandService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("WeeklySummaryCron Tests")
+class WeeklySummaryCronTest {
+
+    @Mock private UserService userService;
+    @Mock private WeeklySummaryCommandService commandService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ThreadPoolTaskExecutor executor;
+    private WeeklySummaryCron cron;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.setQueueCapacity(4);
+        executor.initialize();
+        cron = new WeeklySummaryCron(userService, commandService, meterRegistry, executor, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    private User user(String name) {
+        User user = new User();
+        user.setUserName(name);
+        return user;
+    }
+
+    @Test
+    @DisplayName("processAll - every user is attempted even when one fails")
+    void processAll_failureIsIsolated() {
+        List<User> users = IntStream.range(0, 20).mapToObj(i -> user("user" + i)).toList();
+        doAnswer(inv -> {
+            if (inv.getArgument(0) == users.get(3)) {
+                throw new RuntimeException("SMTP down");
+            }
+            return null;
+        }).when(commandService).generateWeeklySummary(any(User.class));
+
+        cron.processAll(users.stream());
+
+        verify(commandService, times(20)).generateWeeklySummary(any(User.class));
+        assertThat(meterRegistry.counter("weekly.summary.users", "outcome", "success").count()).isEqualTo(19);
+        assertThat(meterRegistry.counter("weekly.summary.users", "outcome", "failure").count()).isEqualTo(1);
+        assertThat(meterRegistry.get("weekly.summary.in_flight").gauge().value()).isZero();
+    }
+
+    @Test
+    @DisplayName("processAll - a rejecting executor stops the run without leaking slots or throwing")
+    void processAll_rejectedSubmission_stopsCleanly() {
+        executor.shutdown();
+        List<User> users = IntStream.range(0, 10).mapToObj(i -> user("user" + i)).toList();
+
+        assertThatCode(() -> cron.processAll(users.stream())).doesNotThrowAnyException();
+
+        verifyNoInteractions(commandService);
+        assertThat(meterRegistry.get("weekly.summary.in_flight").gauge().value()).isZero();
+    }
+}
@@ -1,9 +1,12 @@
 package com.example.security;
 
+import org.bson.types.ObjectId;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.*;
 
 @DisplayName("JwtTokenProvider Tests")
@@ -59,4 +62,55 @@ class JwtTokenProviderTest {
         String extracted = jwtTokenProvider.extractUsername(token);
         assertThat(extracted).isEqualTo("john_doe");
     }
+
+    @Test
+    @DisplayName("toClaimsPrincipal - rebuilds id, roles and version from claims")
+    void toClaimsPrincipal_fromClaimsToken() {
+        ObjectId userId = new ObjectId();
+        String token = jwtTokenProvider.generateToken("john_doe", userId, List.of("USER", "ADMIN"), 7);
+
+        JwtTokenProvider.ClaimsPrincipal claims = jwtTokenProvider.toClaimsPrincipal(jwtTokenProvider.verify(token).orElseThrow()).orElseThrow();
+
+        assertThat(claims.tokenVersion()).isEqualTo(7);
+        assertThat(claims.principal().getUserId()).isEqualTo(userId);
+        assertThat(claims.principal().getUsername()).isEqualTo("john_doe");
+        assertThat(claims.principal().getAuthorities())
+                .extracting("authority").containsExactly("ROLE_USER", "ROLE_ADMIN");
+    }
+
+    @Test
+    @DisplayName("toClaimsPrincipal - empty for legacy subject-only tokens")
+    void toClaimsPrincipal_legacyToken_empty() {
+        String token = jwtTokenProvider.generateToken("john_doe");
+        assertThat(jwtTokenProvider.toClaimsPrincipal(jwtTokenProvider.verify(token).orElseThrow())).isEmpty();
+    }
+
+    @Test
+    @DisplayName("verify - repeat verification of the same token is served from the cache")
+    void verify_sameToken_cachedClaimsReturned() {
+        String token = jwtTokenProvider.generateToken("john_doe");
+
+        var first = jwtTokenProvider.verify(token).orElseThrow();
+        var second = jwtTokenProvider.verify(token).orElseThrow();
+
+        assertThat(second).isSameAs(first);
+        assertThat(second.getSubject()).isEqualTo("john_doe");
+    }
+
+    @Test
+    @DisplayName("verify - tampered copy of a cached token is still rejected")
+    void verify_tamperedCopyOfCachedToken_empty() {
+        String token = jwtTokenProvider.generateToken("john_doe");
+        jwtTokenProvider.verify(token);
+
+        assertThat(jwtTokenProvider.verify(token + "tampered")).isEmpty();
+        assertThat(jwtTokenProvider.verify(null)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("extractUsername - throws for an invalid token")
+    void extractUsername_invalidToken_throws() {
+        assertThatThrownBy(() -> jwtTokenProvider.extractUsername("not-a-jwt"))
+                .isInstanceOf(io.jsonwebtoken.JwtException.class);
+    }
 }
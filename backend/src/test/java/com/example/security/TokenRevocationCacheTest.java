@@ -0,0 +1,69 @@
+package com.example.security;
+
+import com.example.entity.User;
+import com.example.repository.UserRepository;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TokenRevocationCache Tests")
+class TokenRevocationCacheTest {
+
+    @Mock private UserRepository userRepository;
+
+    private TokenRevocationCache cache;
+    private ObjectId userId;
+
+    @BeforeEach
+    void setUp() {
+        cache = new TokenRevocationCache(userRepository, 100, 60);
+        userId = new ObjectId();
+    }
+
+    private User withVersion(long version) {
+        User user = new User();
+        user.setId(userId);
+        user.setTokenVersion(version);
+        return user;
+    }
+
+    @Test
+    @DisplayName("isCurrent - loads the version once, then answers from cache")
+    void isCurrent_cachesVersion() {
+        when(userRepository.findTokenVersionById(userId)).thenReturn(Optional.of(withVersion(2)));
+
+        assertThat(cache.isCurrent(userId, 2)).isTrue();
+        assertThat(cache.isCurrent(userId, 1)).isFalse();
+        verify(userRepository, times(1)).findTokenVersionById(userId);
+    }
+
+    @Test
+    @DisplayName("versionChanged - older tokens are rejected immediately")
+    void versionChanged_rejectsOldVersion() {
+        when(userRepository.findTokenVersionById(userId)).thenReturn(Optional.of(withVersion(0)));
+        assertThat(cache.isCurrent(userId, 0)).isTrue();
+
+        cache.versionChanged(userId, 1);
+
+        assertThat(cache.isCurrent(userId, 0)).isFalse();
+        assertThat(cache.isCurrent(userId, 1)).isTrue();
+    }
+
+    @Test
+    @DisplayName("isCurrent - deleted users have no valid token version")
+    void isCurrent_missingUser_rejected() {
+        when(userRepository.findTokenVersionById(userId)).thenReturn(Optional.empty());
+
+        assertThat(cache.isCurrent(userId, 0)).isFalse();
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.service;
+
+import com.example.entity.User;
+import com.example.entity.UserPreferences;
+import com.example.entity.WeeklySummary;
+import com.example.entity.WeeklySummaryDeliveryStatus;
+import com.example.repository.UserRepository;
+import com.example.repository.WeeklySummaryRepository;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("EmailDeliveryService Tests")
+class EmailDeliveryServiceTest {
+
+    @Mock private EmailService emailService;
+    @Mock private WeeklySummaryRepository weeklySummaryRepository;
+    @Mock private UserRepository userRepository;
+    @Mock private MongoTemplate mongoTemplate;
+
+    private User user;
+    private WeeklySummary summary;
+
+    // Runs the send inline so assertions see its effect
+    private final TaskExecutor inline = Runnable::run;
+    private final TaskExecutor saturated = task -> { throw new TaskRejectedException("full"); };
+
+    private EmailDeliveryService service(TaskExecutor executor) {
+        return new EmailDeliveryService(emailService, weeklySummaryRepository, userRepository, executor, mongoTemplate);
+    }
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setId(new ObjectId());
+        user.setEmail("john@example.com");
+        user.setPreferences(new UserPreferences());
+        user.getPreferences().setEmailNotificationsEnabled(true);
+
+        summary = new WeeklySummary();
+        summary.setId(new ObjectId());
+        summary.setUserId(user.getId());
+        summary.setSummaryText("A calm week.");
+        summary.setDeliveryStatus(WeeklySummaryDeliveryStatus.DASHBOARD_ONLY);
+    }
+
+    @Test
+    @DisplayName("deliverIfEligible - sends on the executor and marks the summary SENT")
+    void deliverIfEligible_sends() {
+        service(inline)
+                .deliverIfEligible(user, summary);
+
+        verify(emailService).send(eq("john@example.com"), anyString(), eq("A calm week."));
+        assertThat(summary.getDeliveryStatus()).isEqualTo(WeeklySummaryDeliveryStatus.SENT);
+    }
+
+    @Test
+    @DisplayName("deliverIfEligible - saturated executor leaves the summary EMAIL_PENDING")
+    void deliverIfEligible_saturated_staysPending() {
+        service(saturated)
+                .deliverIfEligible(user, summary);
+
+        verifyNoInteractions(emailService);
+        assertThat(summary.getDeliveryStatus()).isEqualTo(WeeklySummaryDeliveryStatus.EMAIL_PENDING);
+        verify(weeklySummaryRepository).save(summary);
+    }
+
+    @Test
+    @DisplayName("deliverIfEligible - SMTP failure leaves the summary EMAIL_PENDING")
+    void deliverIfEligible_smtpFails_staysPending() {
+        doThrow(new RuntimeException("SMTP down")).when(emailService).send(any(), any(), any());
+
+        service(inline)
+                .deliverIfEligible(user, summary);
+
+        assertThat(summary.getDeliveryStatus()).isEqualTo(WeeklySummaryDeliveryStatus.EMAIL_PENDING);
+    }
+
+    @Test
+    @DisplayName("deliverIfEligible - records the first attempt")
+    void deliverIfEligible_recordsAttempt() {
+        service(saturated).deliverIfEligible(user, summary);
+
+        assertThat(summary.getEmailAttempts()).isEqualTo(1);
+        assertThat(summary.getEmailAttemptAt()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("retryPending - claims and re-sends EMAIL_PENDING summaries for eligible users")
+    void retryPending_resends() {
+        summary.setDeliveryStatus(WeeklySummaryDeliveryStatus.EMAIL_PENDING);
+        summary.setEmailAttempts(1);
+        when(mongoTemplate.find(any(Query.class), eq(WeeklySummary.class))).thenReturn(List.of(summary));
+        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(WeeklySummary.class))).thenReturn(summary);
+
+        int submitted = service(inline).retryPending(100);
+
+        assertThat(submitted).isEqualTo(1);
+        assertThat(summary.getDeliveryStatus()).isEqualTo(WeeklySummaryDeliveryStatus.SENT);
+    }
+
+    @Test
+    @DisplayName("retryPending - a summary claimed elsewhere (send still in flight) is not sent again")
+    void retryPending_claimLost_skips() {
+        summary.setDeliveryStatus(WeeklySummaryDeliveryStatus.EMAIL_PENDING);
+        when(mongoTemplate.find(any(Query.class), eq(WeeklySummary.class))).thenReturn(List.of(summary));
+        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(WeeklySummary.class))).thenReturn(null);
+
+        int submitted = service(inline).retryPending(100);
+
+        assertThat(submitted).isZero();
+        verifyNoInteractions(emailService);
+    }
+
+    @Test
+    @DisplayName("retryPending - a summary out of attempts is marked EMAIL_FAILED instead of re-sent")
+    void retryPending_attemptsExhausted_failed() {
+        summary.setDeliveryStatus(WeeklySummaryDeliveryStatus.EMAIL_PENDING);
+        summary.setEmailAttempts(5);
+        when(mongoTemplate.find(any(Query.class), eq(WeeklySummary.class))).thenReturn(List.of(summary));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(WeeklySummary.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        int submitted = service(inline).retryPending(100);
+
+        assertThat(submitted).isZero();
+        verifyNoInteractions(emailService);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), update.capture(), eq(WeeklySummary.class));
+        assertThat(update.getValue().getUpdateObject().get("$set", org.bson.Document.class))
+                .containsEntry("deliveryStatus", WeeklySummaryDeliveryStatus.EMAIL_FAILED);
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.service;
+
+import com.example.dto.JournalAnalysis;
+import com.example.dto.WeeklyAiReflection;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("GeminiOutputParser Tests")
+class GeminiOutputParserTest {
+
+    @Test
+    @DisplayName("parseAnalysis - reads every field from the line format, tolerating CRLF and blank lines")
+    void parseAnalysis_allFields() {
+        String text = "Mood: Reflective\r\n"
+                + "Emotions: Hope, Worry\r\n"
+                + "\r\n"
+                + "Summary:   A long day that ended well.  \r\n"
+                + "Motivational Thought: Small steps count.\r\n"
+                + "Sentiment Score: 0.4";
+
+        JournalAnalysis analysis = GeminiOutputParser.parseAnalysis(text);
+
+        assertThat(analysis.getMood()).isEqualTo("Reflective");
+        assertThat(analysis.getEmotions()).isEqualTo("Hope, Worry");
+        assertThat(analysis.getSummary()).isEqualTo("A long day that ended well.");
+        assertThat(analysis.getMotivationalThought()).isEqualTo("Small steps count.");
+        assertThat(analysis.getSentimentScore()).isEqualTo(0.4);
+    }
+
+    @Test
+    @DisplayName("parseAnalysis - missing fields and an unparsable score stay null, empty value is empty")
+    void parseAnalysis_partialOutput() {
+        JournalAnalysis analysis = GeminiOutputParser.parseAnalysis("Here you go:\nMood:\nSentiment Score: high");
+
+        assertThat(analysis.getMood()).isEmpty();
+        assertThat(analysis.getSummary()).isNull();
+        assertThat(analysis.getSentimentScore()).isNull();
+    }
+
+    @Test
+    @DisplayName("parseWeeklyReflection - strips a markdown fence and ignores unknown fields")
+    void parseWeeklyReflection_fencedJson() throws Exception {
+        String text = "```json\n{\"reflectionText\": \"A steady week.\", \"trend\": \"MIXED\", "
+                + "\"extra\": {\"nested\": [1, 2]}, \"suggestion\": \"Notice the calm days.\"}\n```";
+
+        WeeklyAiReflection reflection = GeminiOutputParser.parseWeeklyReflection(text);
+
+        assertThat(reflection.getReflectionText()).isEqualTo("A steady week.");
+        assertThat(reflection.getTrend()).isEqualTo("MIXED");
+        assertThat(reflection.getSuggestion()).isEqualTo("Notice the calm days.");
+    }
+
+    @Test
+    @DisplayName("parseBatchAnalysis - keeps expected ids only and reads numeric or textual scores")
+    void parseBatchAnalysis_filtersAndParses() throws Exception {
+        String text = """
+                [
+                  {"id": "a", "mood": "Happy", "emotions": "Joy", "summary": "Good", "motivationalThought": "Go", "sentimentScore": 0.8},
+                  {"id": "b", "mood": "  ", "sentimentScore": "-0.5", "emotions": ["not", "text"]},
+                  {"id": "ghost", "mood": "Sad"},
+                  "noise"
+                ]
+                """;
+
+        Map<String, JournalAnalysis> results = GeminiOutputParser.parseBatchAnalysis(text, Set.of("a", "b"));
+
+        assertThat(results).containsOnlyKeys("a", "b");
+        assertThat(results.get("a").getSentimentScore()).isEqualTo(0.8);
+        assertThat(results.get("b").getMood()).isNull();
+        assertThat(results.get("b").getEmotions()).isNull();
+        assertThat(results.get("b").getSentimentScore()).isEqualTo(-0.5);
+    }
+
+    @Test
+    @DisplayName("parseBatchAnalysis - rejects a non-array answer")
+    void parseBatchAnalysis_notArray_throws() {
+        assertThatThrownBy(() -> GeminiOutputParser.parseBatchAnalysis("{\"id\": \"a\"}", Set.of("a")))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    @DisplayName("stripCodeFence - returns the same instance when there is nothing to strip")
+    void stripCodeFence_noFence_noCopy() {
+        String json = "[1,2]";
+        assertThat(GeminiOutputParser.stripCodeFence(json)).isSameAs(json);
+        assertThat(GeminiOutputParser.stripCodeFence("  ```\n[1]\n```  ")).isEqualTo("[1]");
+    }
+
+    @Test
+    @DisplayName("streamStringField - emits only the decoded field text, however the JSON is split")
+    void streamStringField_decodesAcrossFragments() {
+        StringBuilder text = new StringBuilder();
+        Consumer<String> streamer = GeminiOutputParser.streamStringField("reflectionText", text::append);
+
+        List.of("```json\n{\"trend\": \"MIX", "ED\", \"reflec", "tionText\": \"A calm ",
+                        "week, \\\"mostly\\", "\" \\u00e9", "t\\u00E9.\\nEnd\", \"suggestion\": \"Rest\"}\n```")
+                .forEach(streamer);
+
+        assertThat(text.toString()).isEqualTo("A calm week, \"mostly\" \u00e9t\u00e9.\nEnd");
+    }
+
+    @Test
+    @DisplayName("streamStringField - ignores a same-named key inside a nested object")
+    void streamStringField_topLevelOnly() {
+        StringBuilder text = new StringBuilder();
+        Consumer<String> streamer = GeminiOutputParser.streamStringField("reflectionText", text::append);
+
+        streamer.accept("{\"meta\": {\"reflectionText\": \"no\"}, \"reflectionText\": \"yes\"}");
+
+        assertThat(text.toString()).isEqualTo("yes");
+    }
+}
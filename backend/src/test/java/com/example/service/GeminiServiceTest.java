@@ -0,0 +1,135 @@
+package com.example.service;
+
+import com.example.client.AiHttpClient;
+import com.example.dto.GeminiResponse;
+import com.example.dto.JournalAnalysis;
+import com.example.dto.WeeklyAiReflection;
+import com.example.exception.GeminiUnavailableException;
+import com.example.resilience.GeminiGuard;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("GeminiService Tests")
+class GeminiServiceTest {
+
+    private static final String CONTENT = "Today was a great day at work.";
+
+    @Mock private AiHttpClient httpClient;
+    @Mock private GeminiResultCache resultCache;
+    @Mock private GeminiGuard geminiGuard;
+
+    private GeminiService geminiService;
+
+    @BeforeEach
+    void setUp() {
+        geminiService = new GeminiService(httpClient, resultCache, geminiGuard);
+        lenient().when(resultCache.getAnalysis(anyString())).thenReturn(Optional.empty());
+        lenient().when(geminiGuard.executeAsync(any())).thenAnswer(inv -> ((Supplier<?>) inv.getArgument(0)).get());
+    }
+
+    private void geminiAnswers(String text) {
+        GeminiResponse response = new GeminiResponse(List.of(new GeminiResponse.Candidate(
+                new GeminiResponse.Content(List.of(new GeminiResponse.Part(text))), "STOP")));
+        when(httpClient.postJson(anyString(), anyMap(), any(), eq(GeminiResponse.class)))
+                .thenReturn(CompletableFuture.completedFuture(response));
+    }
+
+    @Test
+    @DisplayName("analyze - caches an answer with every field present")
+    void analyze_completeAnswer_isCached() {
+        geminiAnswers("""
+                Mood: Happy
+                Emotions: Joy, Pride
+                Summary: A good day.
+                Motivational Thought: Keep going.
+                Sentiment Score: 0.7""");
+
+        JournalAnalysis analysis = geminiService.analyzeJournalEntry(CONTENT);
+
+        assertThat(analysis.getMood()).isEqualTo("Happy");
+        verify(resultCache).putAnalysis(CONTENT, analysis);
+    }
+
+    @Test
+    @DisplayName("analyze - a partial answer is default-filled but not cached")
+    void analyze_partialAnswer_notCached() {
+        geminiAnswers("Mood: Happy\nSentiment Score: very");
+
+        JournalAnalysis analysis = geminiService.analyzeJournalEntry(CONTENT);
+
+        assertThat(analysis.getMood()).isEqualTo("Happy");
+        assertThat(analysis.getSummary()).isEqualTo("Journal entry recorded.");
+        assertThat(analysis.getSentimentScore()).isEqualTo(0.0);
+        verify(resultCache, never()).putAnalysis(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("batch - only complete items are cached")
+    void analyzeBatch_cachesCompleteItemsOnly() {
+        geminiAnswers("""
+                [
+                  {"id": "a", "mood": "Happy", "emotions": "Joy", "summary": "Good", "motivationalThought": "Go", "sentimentScore": 0.8},
+                  {"id": "b", "mood": "Sad", "sentimentScore": "n/a"}
+                ]""");
+
+        Map<String, JournalAnalysis> results =
+                geminiService.analyzeJournalEntries(Map.of("a", "first entry", "b", "second entry"));
+
+        assertThat(results).containsOnlyKeys("a", "b");
+        assertThat(results.get("b").getSentimentScore()).isEqualTo(0.0);
+        verify(resultCache).putAnalysis("first entry", results.get("a"));
+        verify(resultCache, never()).putAnalysis(eq("second entry"), any());
+    }
+
+    @Test
+    @DisplayName("analyzeAsync - a locally rejected call completes exceptionally; the sync API falls back")
+    void analyze_rejectedByGuard_propagatesFromAsyncOnly() {
+        doReturn(CompletableFuture.failedFuture(new GeminiUnavailableException("circuit breaker open")))
+                .when(geminiGuard).executeAsync(any());
+
+        assertThatThrownBy(() -> geminiService.analyzeJournalEntryAsync(CONTENT).join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(GeminiUnavailableException.class);
+        assertThat(geminiService.analyzeJournalEntry(CONTENT).getEmotions()).isEqualTo("Unable to analyze");
+        verify(resultCache, never()).putAnalysis(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("weekly streaming - chunks carry the decoded reflection text, not JSON fragments")
+    void weeklyStreaming_streamsReflectionTextOnly() {
+        when(resultCache.getWeeklyReflection(anyString())).thenReturn(Optional.empty());
+        when(httpClient.postJsonStream(anyString(), anyMap(), any(), any())).thenAnswer(inv -> {
+            Consumer<String> events = inv.getArgument(3);
+            for (String part : List.of("{\\\"reflectionText\\\": \\\"A steady",
+                    " week.\\\", \\\"trend\\\": \\\"MIXED\\\", \\\"suggestion\\\": \\\"Rest.\\\"}")) {
+                events.accept("{\"candidates\": [{\"content\": {\"parts\": [{\"text\": \"" + part + "\"}]}}]}");
+            }
+            return CompletableFuture.completedFuture(null);
+        });
+        List<String> chunks = new ArrayList<>();
+
+        WeeklyAiReflection reflection = geminiService.generateWeeklyReflectionStreaming("signal", chunks::add).join();
+
+        assertThat(chunks).containsExactly("A steady", " week.");
+        assertThat(reflection.getTrend()).isEqualTo("MIXED");
+        verify(resultCache).putWeeklyReflection("signal", reflection);
+    }
+}
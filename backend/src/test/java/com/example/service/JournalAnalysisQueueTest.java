@@ -0,0 +1,225 @@
+package com.example.service;
+
+import com.example.dto.JournalAnalysis;
+import com.example.entity.JournalAnalysisStatus;
+import com.example.entity.JournalEntry;
+import com.example.exception.GeminiUnavailableException;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("JournalAnalysisQueue Tests")
+class JournalAnalysisQueueTest {
+
+    @Mock private MongoTemplate mongoTemplate;
+    @Mock private GeminiService geminiService;
+
+    private JournalAnalysisQueue queue;
+    private ObjectId entryId;
+
+    @BeforeEach
+    void setUp() {
+        queue = new JournalAnalysisQueue(mongoTemplate, geminiService, 2, 1);
+        entryId = new ObjectId();
+        lenient().when(geminiService.isAvailable()).thenReturn(true);
+    }
+
+    private JournalEntry claimedEntry() {
+        return claimedEntry(entryId, "Today was a great day at work.");
+    }
+
+    private JournalEntry claimedEntry(ObjectId id, String content) {
+        JournalEntry entry = new JournalEntry("Claimed");
+        entry.setId(id);
+        entry.setContent(content);
+        entry.setAnalysisStatus(JournalAnalysisStatus.PROCESSING);
+        entry.setAnalysisRequestedAt(LocalDateTime.now());
+        entry.setAnalysisClaimedAt(LocalDateTime.now());
+        return entry;
+    }
+
+    @Test
+    @DisplayName("process - claims entry, calls Gemini and writes analysis fields")
+    void process_claimedEntry_writesAnalysis() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(JournalEntry.class))).thenReturn(claimedEntry());
+        when(geminiService.analyzeJournalEntryAsync("Today was a great day at work."))
+                .thenReturn(CompletableFuture.completedFuture(
+                        new JournalAnalysis("Happy", "Joy, Pride", "Great day", "Keep it up!", 0.9)));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(JournalEntry.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        queue.process(List.of(entryId));
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), update.capture(), eq(JournalEntry.class));
+        assertThat(update.getValue().getUpdateObject().get("$set", org.bson.Document.class))
+                .containsEntry("mood", "Happy")
+                .containsEntry("analysisCompleted", true)
+                .containsEntry("analysisStatus", JournalAnalysisStatus.COMPLETED);
+    }
+
+    @Test
+    @DisplayName("process - skips when entry is no longer PENDING")
+    void process_notClaimed_skips() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(JournalEntry.class))).thenReturn(null);
+
+        queue.process(List.of(entryId));
+
+        verifyNoInteractions(geminiService);
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(JournalEntry.class));
+    }
+
+    @Test
+    @DisplayName("process - marks entry FAILED when analysis throws")
+    void process_geminiThrows_marksFailed() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(JournalEntry.class))).thenReturn(claimedEntry());
+        when(geminiService.analyzeJournalEntryAsync(anyString()))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("AI timeout")));
+
+        assertThatNoException().isThrownBy(() -> queue.process(List.of(entryId)));
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), update.capture(), eq(JournalEntry.class));
+        assertThat(update.getValue().getUpdateObject().get("$set", org.bson.Document.class))
+                .containsEntry("analysisStatus", JournalAnalysisStatus.FAILED);
+    }
+
+    @Test
+    @DisplayName("process - analyzes several entries with a single batch call, falls back for missing ids")
+    void process_batch_singleGeminiCallWithFallback() {
+        ObjectId otherId = new ObjectId();
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(JournalEntry.class)))
+                .thenReturn(claimedEntry(entryId, "Great day"), claimedEntry(otherId, "Rough day"));
+        when(geminiService.analyzeJournalEntries(anyMap())).thenReturn(Map.of(
+                entryId.toHexString(), new JournalAnalysis("Happy", "Joy", "Great day", "Keep it up!", 0.9)));
+        when(geminiService.analyzeJournalEntryAsync("Rough day"))
+                .thenReturn(CompletableFuture.completedFuture(
+                        new JournalAnalysis("Sad", "Worry", "Rough day", "Tomorrow is new", -0.4)));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(JournalEntry.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        queue.process(List.of(entryId, otherId));
+
+        verify(geminiService, times(1)).analyzeJournalEntries(anyMap());
+        verify(geminiService, never()).analyzeJournalEntryAsync("Great day");
+        verify(geminiService).analyzeJournalEntryAsync("Rough day");
+        verify(mongoTemplate, times(2)).updateFirst(any(Query.class), any(Update.class), eq(JournalEntry.class));
+    }
+
+    @Test
+    @DisplayName("process - Gemini circuit open: releases entries to PENDING without calling Gemini")
+    void process_geminiUnavailable_releasesToPending() {
+        when(geminiService.isAvailable()).thenReturn(false);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(JournalEntry.class))).thenReturn(claimedEntry());
+
+        queue.process(List.of(entryId));
+
+        verify(geminiService, never()).analyzeJournalEntryAsync(anyString());
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), update.capture(), eq(JournalEntry.class));
+        assertThat(update.getValue().getUpdateObject().get("$set", org.bson.Document.class))
+                .containsEntry("analysisStatus", JournalAnalysisStatus.PENDING);
+    }
+
+    @Test
+    @DisplayName("process - single call shed by the guard: releases the entry to PENDING, no fallback saved")
+    void process_singleCallRejected_releasesToPending() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(JournalEntry.class))).thenReturn(claimedEntry());
+        when(geminiService.analyzeJournalEntryAsync(anyString()))
+                .thenReturn(CompletableFuture.failedFuture(new GeminiUnavailableException("concurrency limit 1 reached")));
+
+        queue.process(List.of(entryId));
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), update.capture(), eq(JournalEntry.class));
+        assertThat(update.getValue().getUpdateObject().get("$set", org.bson.Document.class))
+                .containsEntry("analysisStatus", JournalAnalysisStatus.PENDING)
+                .doesNotContainKey("mood");
+    }
+
+    @Test
+    @DisplayName("enqueue - bounded: overflow is dropped and left for the recovery sweep")
+    void enqueue_overCapacity_dropsOverflow() {
+        queue.enqueue(new ObjectId());
+        queue.enqueue(new ObjectId());
+        queue.enqueue(new ObjectId());
+
+        assertThat(queue.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("process - the claim stamps analysisClaimedAt and completion is conditional on it")
+    void process_claimStampsClaimedAt() {
+        JournalEntry entry = claimedEntry();
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(JournalEntry.class))).thenReturn(entry);
+        when(geminiService.analyzeJournalEntryAsync(anyString()))
+                .thenReturn(CompletableFuture.completedFuture(
+                        new JournalAnalysis("Happy", "Joy", "Great day", "Keep it up!", 0.9)));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(JournalEntry.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        queue.process(List.of(entryId));
+
+        ArgumentCaptor<Update> claim = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(any(Query.class), claim.capture(),
+                any(FindAndModifyOptions.class), eq(JournalEntry.class));
+        assertThat(claim.getValue().getUpdateObject().get("$set", org.bson.Document.class))
+                .containsKey("analysisClaimedAt");
+        ArgumentCaptor<Query> completion = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).updateFirst(completion.capture(), any(Update.class), eq(JournalEntry.class));
+        assertThat(completion.getValue().getQueryObject())
+                .containsEntry("analysisClaimedAt", entry.getAnalysisClaimedAt());
+    }
+
+    @Test
+    @DisplayName("requeueStalled - stuck claims are timed from the claim, queued ids are not offered again")
+    void requeueStalled_timesClaimsAndSkipsQueuedIds() {
+        ObjectId waiting = new ObjectId();
+        queue.enqueue(waiting);
+        ObjectId stalled = new ObjectId();
+        JournalEntry stalledEntry = new JournalEntry("Stalled");
+        stalledEntry.setId(stalled);
+        when(mongoTemplate.find(any(Query.class), eq(JournalEntry.class))).thenReturn(List.of(stalledEntry));
+
+        int requeued = queue.requeueStalled(10);
+
+        assertThat(requeued).isEqualTo(1);
+        assertThat(queue.size()).isEqualTo(2);
+
+        ArgumentCaptor<Query> release = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).updateMulti(release.capture(), any(Update.class), eq(JournalEntry.class));
+        assertThat(String.valueOf(release.getValue().getQueryObject().get("$or"))).contains("analysisClaimedAt");
+
+        ArgumentCaptor<Query> pending = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(pending.capture(), eq(JournalEntry.class));
+        assertThat(pending.getValue().getQueryObject().get("_id", org.bson.Document.class).get("$nin"))
+                .isEqualTo(List.of(waiting));
+    }
+}
@@ -1,8 +1,13 @@
 package com.example.service;
 
+import com.example.dto.CursorPage;
 import com.example.dto.JournalAnalysis;
+import com.example.dto.JournalEntryDTO;
+import com.example.dto.JournalEntryListItemDTO;
+import com.example.entity.JournalAnalysisStatus;
 import com.example.entity.JournalEntry;
-import com.example.entity.User;
+import com.example.event.JournalEntryCreatedEvent;
+import com.example.event.JournalEntryDeletedEvent;
 import com.example.mapper.JournalEntryMapper;
 import com.example.repository.JournalEntryRepository;
 import org.bson.types.ObjectId;
@@ -10,12 +15,23 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -26,76 +42,68 @@ import static org.mockito.Mockito.*;
 class JournalEntryServiceTest {
 
     @Mock private JournalEntryRepository journalEntryRepository;
-    @Mock private UserService userService;
     @Mock private GeminiService geminiService;
     @Mock private UserProgressCommandService userProgressService;
-    @Mock private AiEmbeddingService aiEmbeddingService;
+    @Mock private EmbeddingOutbox embeddingOutbox;
+    @Mock private JournalAnalysisQueue journalAnalysisQueue;
+    @Mock private ApplicationEventPublisher eventPublisher;
+    @Mock private MongoTemplate mongoTemplate;
 
     private JournalEntryMapper mapper;
     private JournalEntryService journalEntryService;
 
-    private User testUser;
     private ObjectId userId;
 
     @BeforeEach
     void setUp() {
         mapper = new JournalEntryMapper();
         journalEntryService = new JournalEntryService(
-                journalEntryRepository, userService, geminiService, userProgressService, mapper, aiEmbeddingService);
+                journalEntryRepository, geminiService, userProgressService, mapper, embeddingOutbox, journalAnalysisQueue,
+                eventPublisher, mongoTemplate);
 
         userId = new ObjectId();
-        testUser = new User();
-        testUser.setId(userId);
-        testUser.setUserName("testuser");
-        testUser.setJournalEntryIds(new ArrayList<>());
     }
 
     @Test
-    @DisplayName("saveEntry - sets userId and runs AI analysis when content present")
-    void saveEntry_withContent_runsAiAnalysis() {
+    @DisplayName("saveEntry - sets userId and queues AI analysis when content present")
+    void saveEntry_withContent_queuesAiAnalysis() {
         JournalEntry entry = new JournalEntry("Test Entry");
         entry.setContent("Today was a great day at work.");
+        ObjectId savedId = new ObjectId();
 
-        JournalAnalysis mockAnalysis = new JournalAnalysis("Happy", "Joy, Pride", "Great day summary", "Keep it up!", 0.9);
-
-        when(userService.findByUserName("testuser")).thenReturn(testUser);
-        when(geminiService.analyzeJournalEntry(anyString())).thenReturn(mockAnalysis);
         when(journalEntryRepository.save(any())).thenAnswer(inv -> {
             JournalEntry saved = inv.getArgument(0);
-            saved.setId(new ObjectId());
+            saved.setId(savedId);
             return saved;
         });
 
-        journalEntryService.saveEntry(entry, "testuser");
+        journalEntryService.saveEntry(entry, userId);
 
         assertThat(entry.getUserId()).isEqualTo(userId);
-        assertThat(entry.getMood()).isEqualTo("Happy");
-        assertThat(entry.getSentimentScore()).isEqualTo(0.9);
-        assertThat(entry.getAnalysisCompleted()).isTrue();
-        verify(geminiService).analyzeJournalEntry("Today was a great day at work.");
+        assertThat(entry.getAnalysisCompleted()).isFalse();
+        assertThat(entry.getAnalysisStatus()).isEqualTo(JournalAnalysisStatus.PENDING);
+        assertThat(entry.getAnalysisRequestedAt()).isNotNull();
+        verify(journalAnalysisQueue).enqueue(savedId);
         verify(userProgressService).updateProgressOnNewEntry(userId);
+        verify(embeddingOutbox).enqueue(savedId, userId);
+        verify(eventPublisher).publishEvent(new JournalEntryCreatedEvent(userId, savedId));
     }
 
     @Test
-    @DisplayName("saveEntry - saves without analysis when AI fails")
-    void saveEntry_aiFailure_savesWithoutAnalysis() {
+    @DisplayName("saveEntry - never calls Gemini on the request thread")
+    void saveEntry_doesNotCallGeminiSynchronously() {
         JournalEntry entry = new JournalEntry("Test");
         entry.setContent("Some content");
 
-        when(userService.findByUserName("testuser")).thenReturn(testUser);
-        when(geminiService.analyzeJournalEntry(anyString()))
-                .thenThrow(new RuntimeException("AI timeout"));
         when(journalEntryRepository.save(any())).thenAnswer(inv -> {
             JournalEntry e = inv.getArgument(0);
             e.setId(new ObjectId());
             return e;
         });
 
-        // Should not throw
-        assertThatNoException().isThrownBy(() ->
-                journalEntryService.saveEntry(entry, "testuser"));
+        journalEntryService.saveEntry(entry, userId);
 
-        assertThat(entry.getAnalysisCompleted()).isFalse();
+        verifyNoInteractions(geminiService);
     }
 
     @Test
@@ -104,46 +112,49 @@ class JournalEntryServiceTest {
         JournalEntry entry = new JournalEntry("Empty Entry");
         entry.setContent("   "); // blank
 
-        when(userService.findByUserName("testuser")).thenReturn(testUser);
         when(journalEntryRepository.save(any())).thenAnswer(inv -> {
             JournalEntry e = inv.getArgument(0);
             e.setId(new ObjectId());
             return e;
         });
 
-        journalEntryService.saveEntry(entry, "testuser");
+        journalEntryService.saveEntry(entry, userId);
 
         verify(geminiService, never()).analyzeJournalEntry(anyString());
+        verify(journalAnalysisQueue, never()).enqueue(any());
         assertThat(entry.getAnalysisCompleted()).isFalse();
+        assertThat(entry.getAnalysisStatus()).isEqualTo(JournalAnalysisStatus.SKIPPED);
     }
 
     @Test
     @DisplayName("deleteById - succeeds when user owns the entry")
     void deleteById_ownershipCheck_passes() {
         ObjectId entryId = new ObjectId();
-        testUser.getJournalEntryIds().add(entryId);
 
-        when(userService.findByUserName("testuser")).thenReturn(testUser);
+        when(journalEntryRepository.deleteByIdAndUserId(entryId, userId)).thenReturn(1L);
 
-        journalEntryService.deleteById(entryId, "testuser");
+        journalEntryService.deleteById(entryId, userId);
 
-        verify(journalEntryRepository).deleteById(entryId);
-        assertThat(testUser.getJournalEntryIds()).doesNotContain(entryId);
+        verify(journalEntryRepository).deleteByIdAndUserId(entryId, userId);
+        verify(userProgressService).updateProgressOnEntryDeleted(userId);
+        verify(eventPublisher).publishEvent(new JournalEntryDeletedEvent(userId, entryId));
     }
 
     @Test
     @DisplayName("deleteById - throws when user does not own the entry")
     void deleteById_notOwned_throws() {
         ObjectId entryId = new ObjectId();
-        // Don't add entryId to user's list → not owned
+        // Owner-scoped delete matches nothing → not owned
 
-        when(userService.findByUserName("testuser")).thenReturn(testUser);
+        when(journalEntryRepository.deleteByIdAndUserId(entryId, userId)).thenReturn(0L);
 
-        assertThatThrownBy(() -> journalEntryService.deleteById(entryId, "testuser"))
+        assertThatThrownBy(() -> journalEntryService.deleteById(entryId, userId))
                 .isInstanceOf(RuntimeException.class)
                 .hasMessageContaining("not found or access denied");
 
         verify(journalEntryRepository, never()).deleteById(any());
+        verify(userProgressService, never()).updateProgressOnEntryDeleted(any());
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
@@ -158,12 +169,68 @@ class JournalEntryServiceTest {
 
         when(journalEntryRepository.findById(entryId)).thenReturn(Optional.of(entry));
         when(geminiService.analyzeJournalEntry("I felt lost today.")).thenReturn(analysis);
-        when(journalEntryRepository.save(any())).thenReturn(entry);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(JournalEntry.class))).thenAnswer(inv -> applied(entry, inv.getArgument(1)));
 
         JournalEntry result = journalEntryService.reanalyzeEntry(entryId);
 
         assertThat(result.getMood()).isEqualTo("Sad");
         assertThat(result.getAnalysisCompleted()).isTrue();
+        verify(journalEntryRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("reanalyzeEntry - writes only analysis fields, conditioned on the entry being unchanged")
+    void reanalyzeEntry_conditionalUpdate() {
+        ObjectId entryId = new ObjectId();
+        LocalDateTime requestedAt = LocalDateTime.now().minusMinutes(5);
+        JournalEntry entry = new JournalEntry("Existing Entry");
+        entry.setId(entryId);
+        entry.setContent("I felt lost today.");
+        entry.setAnalysisRequestedAt(requestedAt);
+
+        when(journalEntryRepository.findById(entryId)).thenReturn(Optional.of(entry));
+        when(geminiService.analyzeJournalEntry("I felt lost today."))
+                .thenReturn(new JournalAnalysis("Sad", "Worry", "Felt lost", "Tomorrow is a new day", -0.3));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(JournalEntry.class))).thenReturn(entry);
+
+        journalEntryService.reanalyzeEntry(entryId);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(query.capture(), update.capture(), any(FindAndModifyOptions.class),
+                eq(JournalEntry.class));
+        assertThat(query.getValue().getQueryObject().get("content")).isEqualTo("I felt lost today.");
+        assertThat(query.getValue().getQueryObject().get("analysisRequestedAt")).isEqualTo(requestedAt);
+        org.bson.Document set = update.getValue().getUpdateObject().get("$set", org.bson.Document.class);
+        assertThat(set).containsKeys("mood", "aiSummary", "analysisStatus", "lastModifiedAt")
+                .doesNotContainKeys("title", "content", "analysisRequestedAt");
+    }
+
+    @Test
+    @DisplayName("reanalyzeEntry - entry edited during analysis: stale result dropped, current entry returned")
+    void reanalyzeEntry_editedMeanwhile_discardsResult() {
+        ObjectId entryId = new ObjectId();
+        JournalEntry entry = new JournalEntry("Existing Entry");
+        entry.setId(entryId);
+        entry.setContent("I felt lost today.");
+        JournalEntry edited = new JournalEntry("Edited");
+        edited.setId(entryId);
+        edited.setContent("Actually it got better.");
+        edited.setAnalysisStatus(JournalAnalysisStatus.PENDING);
+
+        when(journalEntryRepository.findById(entryId)).thenReturn(Optional.of(entry)).thenReturn(Optional.of(edited));
+        when(geminiService.analyzeJournalEntry("I felt lost today."))
+                .thenReturn(new JournalAnalysis("Sad", "Worry", "Felt lost", "Tomorrow is a new day", -0.3));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(JournalEntry.class))).thenReturn(null);
+
+        JournalEntry result = journalEntryService.reanalyzeEntry(entryId);
+
+        assertThat(result).isSameAs(edited);
+        assertThat(result.getMood()).isNull();
+        verify(journalEntryRepository, never()).save(any());
     }
 
     @Test
@@ -176,4 +243,136 @@ class JournalEntryServiceTest {
                 .isInstanceOf(RuntimeException.class)
                 .hasMessageContaining("not found");
     }
+
+    @Test
+    @DisplayName("reanalyzeEntryStreaming - forwards chunks and saves the parsed analysis")
+    void reanalyzeEntryStreaming_forwardsChunksAndSaves() {
+        ObjectId entryId = new ObjectId();
+        JournalEntry entry = new JournalEntry("Existing Entry");
+        entry.setId(entryId);
+        entry.setContent("I felt lost today.");
+
+        JournalAnalysis analysis = new JournalAnalysis("Sad", "Worry", "Felt lost", "Tomorrow is a new day", -0.3);
+        when(journalEntryRepository.findById(entryId)).thenReturn(Optional.of(entry));
+        when(geminiService.analyzeJournalEntryStreaming(eq("I felt lost today."), any()))
+                .thenAnswer(inv -> {
+                    Consumer<String> onChunk = inv.getArgument(1);
+                    onChunk.accept("Mood: Sad\n");
+                    onChunk.accept("Summary: Felt lost");
+                    return CompletableFuture.completedFuture(analysis);
+                });
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(JournalEntry.class))).thenAnswer(inv -> applied(entry, inv.getArgument(1)));
+
+        List<String> chunks = new ArrayList<>();
+        JournalEntry result = journalEntryService.reanalyzeEntryStreaming(entryId, chunks::add).join();
+
+        assertThat(chunks).containsExactly("Mood: Sad\n", "Summary: Felt lost");
+        assertThat(result.getMood()).isEqualTo("Sad");
+        assertThat(result.getAnalysisStatus()).isEqualTo(JournalAnalysisStatus.COMPLETED);
+        verify(journalEntryRepository, never()).save(any());
+    }
+
+    /** What findAndModify(returnNew) would give back: the entry with the $set fields applied. */
+    private static JournalEntry applied(JournalEntry entry, Update update) {
+        org.bson.Document set = update.getUpdateObject().get("$set", org.bson.Document.class);
+        entry.setMood((String) set.get("mood"));
+        entry.setAnalysisCompleted((Boolean) set.get("analysisCompleted"));
+        entry.setAnalysisStatus((JournalAnalysisStatus) set.get("analysisStatus"));
+        return entry;
+    }
+
+    @Test
+    @DisplayName("getEntriesForUser(cursor) - first page fetches size + 1 and returns a cursor to the last item")
+    void getEntriesForUser_firstPage_returnsNextCursor() {
+        List<JournalEntry> entries = entries(3);
+        when(journalEntryRepository.findByUserIdOrderByDateDescIdDesc(eq(userId), any())).thenReturn(entries);
+
+        CursorPage<JournalEntryDTO> page = journalEntryService.getEntriesForUser(userId, "", 2, false);
+
+        assertThat(page.getItems()).hasSize(2);
+        assertThat(page.getTotal()).isNull();
+        JournalEntryCursor next = JournalEntryCursor.decode(page.getNextCursor());
+        assertThat(next.id()).isEqualTo(entries.get(1).getId());
+        assertThat(next.date()).isEqualTo(entries.get(1).getDate());
+        verify(journalEntryRepository).findByUserIdOrderByDateDescIdDesc(userId, PageRequest.ofSize(3));
+        verify(journalEntryRepository, never()).countByUserId(any());
+    }
+
+    @Test
+    @DisplayName("getEntriesForUser(cursor) - continues after the cursor; last page has no next cursor")
+    void getEntriesForUser_afterCursor_lastPage() {
+        LocalDateTime date = LocalDateTime.of(2026, 3, 1, 9, 30, 15, 123_000_000);
+        ObjectId lastId = new ObjectId();
+        String cursor = new JournalEntryCursor(date, lastId).encode();
+        when(journalEntryRepository.findByUserIdAfterCursor(eq(userId), eq(date), eq(lastId), any()))
+                .thenReturn(entries(1));
+        when(journalEntryRepository.countByUserId(userId)).thenReturn(41L);
+
+        CursorPage<JournalEntryDTO> page = journalEntryService.getEntriesForUser(userId, cursor, 20, true);
+
+        assertThat(page.getItems()).hasSize(1);
+        assertThat(page.getNextCursor()).isNull();
+        assertThat(page.getTotal()).isEqualTo(41L);
+    }
+
+    @Test
+    @DisplayName("getEntriesForUser(cursor) - rejects a token it did not issue")
+    void getEntriesForUser_invalidCursor_throws() {
+        assertThatThrownBy(() -> journalEntryService.getEntriesForUser(userId, "not-a-cursor", 20, false))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(journalEntryRepository);
+    }
+
+    @Test
+    @DisplayName("getEntryListForUser - maps projected rows to list items with a code-point-safe preview")
+    void getEntryListForUser_mapsPreview() {
+        JournalEntry longEntry = entries(1).get(0);
+        // 201 code points as projected: 199 letters + a surrogate pair at the limit + one extra
+        longEntry.setContent("a".repeat(199) + "😀" + "b");
+        longEntry.setMood("Calm");
+        longEntry.setAiSummary("not part of the list view");
+        JournalEntry shortEntry = entries(1).get(0);
+        shortEntry.setContent("Short day.");
+        when(journalEntryRepository.findListItemsByUserId(eq(userId), any()))
+                .thenReturn(new PageImpl<>(List.of(longEntry, shortEntry)));
+
+        List<JournalEntryListItemDTO> items =
+                journalEntryService.getEntryListForUser(userId, PageRequest.of(0, 20)).getContent();
+
+        assertThat(items.get(0).getContentPreview()).isEqualTo("a".repeat(199) + "😀…");
+        assertThat(items.get(0).getMood()).isEqualTo("Calm");
+        assertThat(items.get(1).getContentPreview()).isEqualTo("Short day.");
+        verify(journalEntryRepository, never()).findByUserIdOrderByDateDesc(any(), any());
+    }
+
+    @Test
+    @DisplayName("getEntryListForUser(cursor) - pages through the projected keyset queries")
+    void getEntryListForUser_cursor_usesListQueries() {
+        LocalDateTime date = LocalDateTime.of(2026, 3, 1, 9, 30);
+        ObjectId lastId = new ObjectId();
+        when(journalEntryRepository.findListItemsByUserIdAfterCursor(eq(userId), eq(date), eq(lastId), any()))
+                .thenReturn(entries(3));
+
+        CursorPage<JournalEntryListItemDTO> page = journalEntryService.getEntryListForUser(
+                userId, new JournalEntryCursor(date, lastId).encode(), 2, false);
+
+        assertThat(page.getItems()).hasSize(2);
+        assertThat(page.getNextCursor()).isNotNull();
+        verify(journalEntryRepository, never()).findByUserIdAfterCursor(any(), any(), any(), any());
+    }
+
+    /** {@code count} entries in newest-first order. */
+    private List<JournalEntry> entries(int count) {
+        List<JournalEntry> entries = new ArrayList<>();
+        LocalDateTime date = LocalDateTime.of(2026, 3, 10, 12, 0);
+        for (int i = 0; i < count; i++) {
+            JournalEntry entry = new JournalEntry("Entry " + i);
+            entry.setId(new ObjectId());
+            entry.setUserId(userId);
+            entry.setDate(date.minusDays(i));
+            entries.add(entry);
+        }
+        return entries;
+    }
 }
@@ -0,0 +1,143 @@
+package com.example.service;
+
+import com.example.dto.WeeklySummaryDashboardDTO;
+import com.example.entity.UserDashboard;
+import com.example.entity.UserProgress;
+import com.example.entity.WeeklySummary;
+import com.example.event.JournalEntryCreatedEvent;
+import com.example.event.WeeklySummarySavedEvent;
+import com.example.repository.UserDashboardRepository;
+import com.example.repository.UserProgressRepository;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("UserDashboardProjector Tests")
+class UserDashboardProjectorTest {
+
+    @Mock private MongoTemplate mongoTemplate;
+    @Mock private UserProgressRepository userProgressRepository;
+    @Mock private WeeklySummaryDashboardQueryService weeklySummaryDashboardQueryService;
+    @Mock private UserDashboardRepository userDashboardRepository;
+
+    private UserDashboardProjector projector;
+    private ObjectId userId;
+
+    @BeforeEach
+    void setUp() {
+        projector = new UserDashboardProjector(mongoTemplate, userProgressRepository,
+                new UserProgressReadService(userProgressRepository), weeklySummaryDashboardQueryService);
+        userId = new ObjectId();
+    }
+
+    @Test
+    @DisplayName("entry created - copies the stored progress into the existing dashboard")
+    void onEntryCreated_updatesProgressSection() {
+        UserProgress progress = progress(4, LocalDate.now());
+        when(userProgressRepository.findByUserId(userId)).thenReturn(Optional.of(progress));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(UserDashboard.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        projector.onEntryCreated(new JournalEntryCreatedEvent(userId, new ObjectId()));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(query.capture(), update.capture(), eq(UserDashboard.class));
+        assertThat(query.getValue().getQueryObject()).isEqualTo(new Document("_id", userId));
+        Document set = update.getValue().getUpdateObject().get("$set", Document.class);
+        assertThat(set).containsKeys("progress", "lastModifiedAt");
+        assertThat(set.get("progress")).hasFieldOrPropertyWithValue("currentStreak", 4)
+                .hasFieldOrPropertyWithValue("totalEntries", 10);
+        verify(mongoTemplate, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("summary saved - sets the weekly summary section from the event")
+    void onWeeklySummarySaved_updatesSummarySection() {
+        WeeklySummary summary = new WeeklySummary();
+        WeeklySummaryDashboardDTO dto = new WeeklySummaryDashboardDTO();
+        when(weeklySummaryDashboardQueryService.toDTO(summary)).thenReturn(dto);
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(UserDashboard.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        projector.onWeeklySummarySaved(new WeeklySummarySavedEvent(userId, summary));
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), update.capture(), eq(UserDashboard.class));
+        assertThat(update.getValue().getUpdateObject().get("$set", Document.class).get("weeklySummary")).isSameAs(dto);
+        verifyNoInteractions(userProgressRepository);
+    }
+
+    @Test
+    @DisplayName("no dashboard yet - builds the whole document instead of a partial one")
+    void update_missingDocument_rebuilds() {
+        WeeklySummaryDashboardDTO latest = new WeeklySummaryDashboardDTO();
+        when(userProgressRepository.findByUserId(userId)).thenReturn(Optional.empty());
+        when(weeklySummaryDashboardQueryService.getLatestWeeklySummary(userId)).thenReturn(Optional.of(latest));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(UserDashboard.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+        when(mongoTemplate.save(any(UserDashboard.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        projector.refreshProgress(userId);
+
+        ArgumentCaptor<UserDashboard> saved = ArgumentCaptor.forClass(UserDashboard.class);
+        verify(mongoTemplate).save(saved.capture());
+        assertThat(saved.getValue().getUserId()).isEqualTo(userId);
+        assertThat(saved.getValue().getProgress().getTotalEntries()).isZero();
+        assertThat(saved.getValue().getWeeklySummary()).isSameAs(latest);
+    }
+
+    @Test
+    @DisplayName("refresh failure - is logged, never thrown back to the writer")
+    void update_failure_isSwallowed() {
+        when(userProgressRepository.findByUserId(userId)).thenReturn(Optional.of(progress(1, LocalDate.now())));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(UserDashboard.class)))
+                .thenThrow(new IllegalStateException("connection reset"));
+
+        assertThatCode(() -> projector.refreshProgress(userId)).doesNotThrowAnyException();
+    }
+
+    @Test
+    @DisplayName("getDashboard - serves the stored document and applies the streak break")
+    void readService_appliesStreakBreak() {
+        UserDashboard stored = new UserDashboard();
+        stored.setUserId(userId);
+        stored.setProgress(new UserProgressReadService(userProgressRepository)
+                .toDTO(progress(6, LocalDate.now().minusDays(5))));
+        when(userDashboardRepository.findById(userId)).thenReturn(Optional.of(stored));
+
+        UserDashboard dashboard = new UserDashboardReadService(userDashboardRepository, projector).getDashboard(userId);
+
+        assertThat(dashboard.getProgress().getCurrentStreak()).isZero();
+        assertThat(dashboard.getProgress().getLongestStreak()).isEqualTo(6);
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    private UserProgress progress(int streak, LocalDate lastEntryDate) {
+        UserProgress progress = new UserProgress();
+        progress.setUserId(userId);
+        progress.setCurrentStreak(streak);
+        progress.setLongestStreak(streak);
+        progress.setTotalEntries(10);
+        progress.setLastEntryDate(lastEntryDate);
+        return progress;
+    }
+}
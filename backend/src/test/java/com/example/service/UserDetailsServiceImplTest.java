@@ -0,0 +1,78 @@
+package com.example.service;
+
+import com.example.entity.User;
+import com.example.repository.UserRepository;
+import com.example.security.JournalUserPrincipal;
+import com.example.security.PrincipalCache;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("UserDetailsServiceImpl Tests")
+class UserDetailsServiceImplTest {
+
+    @Mock private UserRepository userRepository;
+
+    private PrincipalCache principalCache;
+    private UserDetailsServiceImpl userDetailsService;
+
+    @BeforeEach
+    void setUp() {
+        principalCache = new PrincipalCache(100, 60);
+        userDetailsService = new UserDetailsServiceImpl(userRepository, principalCache);
+    }
+
+    @Test
+    @DisplayName("loadPrincipal - second lookup is served from the cache")
+    void loadPrincipal_cachesAfterFirstLookup() {
+        User user = new User();
+        user.setId(new ObjectId());
+        user.setUserName("alice");
+        user.setRoles(List.of("USER"));
+        when(userRepository.findByUserName("alice")).thenReturn(user);
+
+        JournalUserPrincipal first = userDetailsService.loadPrincipal("alice");
+        JournalUserPrincipal second = userDetailsService.loadPrincipal("alice");
+
+        assertThat(second).isSameAs(first);
+        assertThat(first.getUserId()).isEqualTo(user.getId());
+        assertThat(first.getAuthorities()).extracting("authority").containsExactly("ROLE_USER");
+        verify(userRepository, times(1)).findByUserName("alice");
+    }
+
+    @Test
+    @DisplayName("loadPrincipal - invalidation by user id forces a fresh lookup")
+    void loadPrincipal_afterInvalidate_reloads() {
+        User user = new User();
+        user.setId(new ObjectId());
+        user.setUserName("alice");
+        user.setRoles(List.of("USER"));
+        when(userRepository.findByUserName("alice")).thenReturn(user);
+
+        userDetailsService.loadPrincipal("alice");
+        principalCache.invalidate(user.getId());
+        userDetailsService.loadPrincipal("alice");
+
+        verify(userRepository, times(2)).findByUserName("alice");
+    }
+
+    @Test
+    @DisplayName("loadPrincipal - unknown user throws UsernameNotFoundException")
+    void loadPrincipal_unknownUser_throws() {
+        when(userRepository.findByUserName("ghost")).thenReturn(null);
+
+        assertThatThrownBy(() -> userDetailsService.loadPrincipal("ghost"))
+                .isInstanceOf(UsernameNotFoundException.class);
+    }
+}
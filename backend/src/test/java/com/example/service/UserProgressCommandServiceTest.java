@@ -9,12 +9,15 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -46,84 +49,154 @@ class UserProgressCommandServiceTest {
         return entry;
     }
 
-    @Test
-    @DisplayName("First entry ever - sets streak to 1")
-    void firstEntry_setsStreakToOne() {
+    private UserProgress trackedProgress(LocalDate lastEntryDate, int streak, int total) {
         UserProgress progress = new UserProgress();
+        progress.setId(new ObjectId());
         progress.setUserId(userId);
+        progress.setCurrentStreak(streak);
+        progress.setLongestStreak(streak);
+        progress.setLastEntryDate(lastEntryDate);
+        progress.setTotalEntries(total);
+        progress.setRecentEntryDates(lastEntryDate == null ? new ArrayList<>() : new ArrayList<>(List.of(lastEntryDate)));
+        return progress;
+    }
 
-        when(userProgressRepository.findByUserId(userId)).thenReturn(Optional.of(progress));
-        
-        // Mock 1 entry today
-        when(journalEntryRepository.findByUserId(userId)).thenReturn(List.of(
+    @Test
+    @DisplayName("First entry ever - rebuilds and sets streak to 1")
+    void firstEntry_setsStreakToOne() {
+        when(userProgressRepository.findByUserId(userId)).thenReturn(Optional.empty());
+        when(journalEntryRepository.findDatesByUserId(userId)).thenReturn(List.of(
                 createEntry(LocalDateTime.now(userZone))
         ));
+        when(userProgressRepository.save(any(UserProgress.class))).thenAnswer(inv -> inv.getArgument(0));
 
         progressService.updateProgressOnNewEntry(userId);
 
-        assertThat(progress.getCurrentStreak()).isEqualTo(1);
-        assertThat(progress.getTotalEntries()).isEqualTo(1);
-        verify(userProgressRepository).save(progress);
+        ArgumentCaptor<UserProgress> saved = ArgumentCaptor.forClass(UserProgress.class);
+        verify(userProgressRepository).save(saved.capture());
+        assertThat(saved.getValue().getCurrentStreak()).isEqualTo(1);
+        assertThat(saved.getValue().getTotalEntries()).isEqualTo(1);
+        assertThat(saved.getValue().getRecentEntryDates()).hasSize(1);
     }
 
     @Test
-    @DisplayName("Consecutive day - increments streak")
+    @DisplayName("Consecutive day - increments streak without reading entry history")
     void consecutiveDay_incrementsStreak() {
-        UserProgress progress = new UserProgress();
-        progress.setUserId(userId);
-
+        LocalDate today = LocalDate.now(userZone);
+        UserProgress progress = trackedProgress(today.minusDays(1), 1, 1);
         when(userProgressRepository.findByUserId(userId)).thenReturn(Optional.of(progress));
 
-        // Mock entries for today and yesterday
-        when(journalEntryRepository.findByUserId(userId)).thenReturn(List.of(
-                createEntry(LocalDateTime.now(userZone)),
-                createEntry(LocalDateTime.now(userZone).minusDays(1))
-        ));
-
         progressService.updateProgressOnNewEntry(userId);
 
         assertThat(progress.getCurrentStreak()).isEqualTo(2);
+        assertThat(progress.getLongestStreak()).isEqualTo(2);
         assertThat(progress.getTotalEntries()).isEqualTo(2);
+        assertThat(progress.getWeeklyEntryCount()).isEqualTo(2);
+        verifyNoInteractions(journalEntryRepository);
+        verify(userProgressRepository).save(progress);
     }
 
     @Test
     @DisplayName("Same day entry - streak remains 1, count increments")
     void sameDayEntry_noStreakChange() {
-        UserProgress progress = new UserProgress();
-        progress.setUserId(userId);
-
+        UserProgress progress = trackedProgress(LocalDate.now(userZone), 1, 1);
         when(userProgressRepository.findByUserId(userId)).thenReturn(Optional.of(progress));
 
-        // Mock two entries for today
-        when(journalEntryRepository.findByUserId(userId)).thenReturn(List.of(
-                createEntry(LocalDateTime.now(userZone)),
-                createEntry(LocalDateTime.now(userZone).minusHours(1))
-        ));
-
         progressService.updateProgressOnNewEntry(userId);
 
-        assertThat(progress.getCurrentStreak()).isEqualTo(1); 
-        assertThat(progress.getTotalEntries()).isEqualTo(2); 
+        assertThat(progress.getCurrentStreak()).isEqualTo(1);
+        assertThat(progress.getTotalEntries()).isEqualTo(2);
+        assertThat(progress.getWeeklyEntryCount()).isEqualTo(1);
     }
 
     @Test
     @DisplayName("Gap of 2+ days - resets streak to 1")
     void gapInDays_resetsStreak() {
-        UserProgress progress = new UserProgress();
-        progress.setUserId(userId);
+        UserProgress progress = trackedProgress(LocalDate.now(userZone).minusDays(3), 4, 10);
         progress.setLongestStreak(7);
+        when(userProgressRepository.findByUserId(userId)).thenReturn(Optional.of(progress));
 
+        progressService.updateProgressOnNewEntry(userId);
+
+        assertThat(progress.getCurrentStreak()).isEqualTo(1);
+        assertThat(progress.getLongestStreak()).isEqualTo(7); // preserved
+    }
+
+    @Test
+    @DisplayName("Weekly window - days older than 7 days drop out of weeklyEntryCount")
+    void weeklyWindow_prunesOldDays() {
+        LocalDate today = LocalDate.now(userZone);
+        UserProgress progress = trackedProgress(today.minusDays(1), 1, 3);
+        progress.setRecentEntryDates(new ArrayList<>(List.of(today.minusDays(8), today.minusDays(3), today.minusDays(1))));
         when(userProgressRepository.findByUserId(userId)).thenReturn(Optional.of(progress));
 
-        // Mock entry today and 3 days ago
-        when(journalEntryRepository.findByUserId(userId)).thenReturn(List.of(
-                createEntry(LocalDateTime.now(userZone)),
-                createEntry(LocalDateTime.now(userZone).minusDays(3))
+        progressService.updateProgressOnNewEntry(userId);
+
+        assertThat(progress.getRecentEntryDates())
+                .containsExactly(today.minusDays(3), today.minusDays(1), today);
+        assertThat(progress.getWeeklyEntryCount()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("rebuildProgress - recounts current and longest streak from entry dates")
+    void rebuild_recountsFromHistory() {
+        LocalDateTime now = LocalDateTime.now(userZone);
+        UserProgress progress = new UserProgress();
+        progress.setUserId(userId);
+        when(userProgressRepository.findByUserId(userId)).thenReturn(Optional.of(progress));
+        when(journalEntryRepository.findDatesByUserId(userId)).thenReturn(List.of(
+                createEntry(now.minusDays(10)),
+                createEntry(now.minusDays(9)),
+                createEntry(now.minusDays(8)),
+                createEntry(now.minusDays(1)),
+                createEntry(now),
+                createEntry(now.minusHours(1))
         ));
+        when(userProgressRepository.save(progress)).thenReturn(progress);
+
+        progressService.rebuildProgress(userId);
+
+        assertThat(progress.getLongestStreak()).isEqualTo(3);
+        assertThat(progress.getTotalEntries()).isEqualTo(6);
+        assertThat(progress.getLastEntryDate()).isEqualTo(now.toLocalDate());
+    }
+
+    @Test
+    @DisplayName("Entry deleted - recounts streak, weekly window and last entry from the remaining dates")
+    void entryDeleted_recountsEveryField() {
+        LocalDateTime now = LocalDateTime.now(userZone);
+        UserProgress progress = trackedProgress(now.toLocalDate(), 3, 3);
+        progress.setRecentEntryDates(new ArrayList<>(List.of(
+                now.toLocalDate().minusDays(2), now.toLocalDate().minusDays(1), now.toLocalDate())));
+        when(userProgressRepository.findByUserId(userId)).thenReturn(Optional.of(progress));
+        // today's entry was the one deleted
+        when(journalEntryRepository.findDatesByUserId(userId)).thenReturn(List.of(
+                createEntry(now.minusDays(2)),
+                createEntry(now.minusDays(1))
+        ));
+        when(userProgressRepository.save(progress)).thenReturn(progress);
+
+        progressService.updateProgressOnEntryDeleted(userId);
+
+        assertThat(progress.getTotalEntries()).isEqualTo(2);
+        assertThat(progress.getCurrentStreak()).isEqualTo(2);
+        assertThat(progress.getLastEntryDate()).isEqualTo(now.toLocalDate().minusDays(1));
+        assertThat(progress.getWeeklyEntryCount()).isEqualTo(2);
+        assertThat(progress.getRecentEntryDates()).doesNotContain(now.toLocalDate());
+    }
+
+    @Test
+    @DisplayName("Version conflict - re-reads and re-applies instead of losing the increment")
+    void versionConflict_retriesWithFreshState() {
+        LocalDate today = LocalDate.now(userZone);
+        UserProgress stale = trackedProgress(today, 1, 1);
+        UserProgress fresh = trackedProgress(today, 1, 2);   // another entry landed in between
+        when(userProgressRepository.findByUserId(userId)).thenReturn(Optional.of(stale)).thenReturn(Optional.of(fresh));
+        when(userProgressRepository.save(stale)).thenThrow(new OptimisticLockingFailureException("stale version"));
 
         progressService.updateProgressOnNewEntry(userId);
 
-        assertThat(progress.getCurrentStreak()).isEqualTo(1);
-        assertThat(progress.getLongestStreak()).isEqualTo(7); // preserved
+        assertThat(fresh.getTotalEntries()).isEqualTo(3);
+        verify(userProgressRepository).save(fresh);
     }
 }
@@ -1,12 +1,16 @@
 package com.example.service;
 
+import com.example.entity.JournalEntry;
 import com.example.entity.User;
 import com.example.entity.UserPreferences;
 import com.example.exception.UserAlreadyExistsException;
 import com.example.repository.JournalEntryRepository;
+import com.example.repository.UserDashboardRepository;
 import com.example.repository.UserProgressRepository;
 import com.example.repository.UserRepository;
 import com.example.repository.WeeklySummaryRepository;
+import com.example.security.PrincipalCache;
+import com.example.security.TokenRevocationCache;
 import org.bson.types.ObjectId;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -32,6 +36,10 @@ class UserServiceTest {
     @Mock private JournalEntryRepository journalEntryRepository;
     @Mock private UserProgressRepository userProgressRepository;
     @Mock private WeeklySummaryRepository weeklySummaryRepository;
+    @Mock private PrincipalCache principalCache;
+    @Mock private TokenRevocationCache tokenRevocationCache;
+    @Mock private EmbeddingOutbox embeddingOutbox;
+    @Mock private UserDashboardRepository userDashboardRepository;
 
     private PasswordEncoder passwordEncoder;
     private UserService userService;
@@ -44,7 +52,11 @@ class UserServiceTest {
                 journalEntryRepository,
                 userProgressRepository,
                 weeklySummaryRepository,
-                passwordEncoder
+                passwordEncoder,
+                principalCache,
+                tokenRevocationCache,
+                embeddingOutbox,
+                userDashboardRepository
         );
     }
 
@@ -140,4 +152,44 @@ class UserServiceTest {
         assertThat(user.getPreferences().getWeeklySummaryDay()).isEqualTo(1); // unchanged
         verify(userRepository).save(user);
     }
+
+    @Test
+    @DisplayName("updateExistingUser - bumps token version and evicts cached auth state")
+    void updateExistingUser_revokesOldTokens() {
+        User user = new User();
+        user.setId(new ObjectId());
+        user.setUserName("renamed");
+        user.setTokenVersion(3);
+
+        userService.updateExistingUser(user, "newpassword");
+
+        assertThat(user.getTokenVersion()).isEqualTo(4);
+        verify(userRepository).save(user);
+        verify(principalCache).invalidate(user.getId());
+        verify(tokenRevocationCache).versionChanged(user.getId(), 4);
+    }
+
+    @Test
+    @DisplayName("deleteUserAndAllData - one bulk delete per collection, vector purge queued in the outbox")
+    void deleteUserAndAllData_bulkDeletesAndQueuesVectorPurge() {
+        ObjectId userId = new ObjectId();
+        JournalEntry e1 = new JournalEntry("one");
+        e1.setId(new ObjectId());
+        JournalEntry e2 = new JournalEntry("two");
+        e2.setId(new ObjectId());
+        when(journalEntryRepository.findIdsByUserId(userId)).thenReturn(List.of(e1, e2));
+        when(journalEntryRepository.deleteByUserId(userId)).thenReturn(2L);
+
+        userService.deleteUserAndAllData(userId);
+
+        verify(journalEntryRepository).deleteByUserId(userId);
+        verify(userProgressRepository).deleteByUserId(userId);
+        verify(weeklySummaryRepository).deleteByUserId(userId);
+        verify(embeddingOutbox).deleteForUser(userId);
+        verify(userDashboardRepository).deleteById(userId);
+        verify(journalEntryRepository, never()).deleteById(any());
+        verify(userRepository).deleteById(userId);
+        verify(embeddingOutbox).enqueuePurge(userId,
+                List.of(e1.getId().toHexString(), e2.getId().toHexString()));
+    }
 }
@@ -3,6 +3,7 @@ package com.example.service;
 import com.example.dto.WeeklyAiReflection;
 import com.example.dto.WeeklySummaryBaseData;
 import com.example.entity.*;
+import com.example.event.WeeklySummarySavedEvent;
 import com.example.repository.WeeklySummaryRepository;
 import org.bson.types.ObjectId;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,8 +12,13 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -27,6 +33,7 @@ class WeeklySummaryCommandServiceTest {
     @Mock private GeminiService geminiService;
     @Mock private UserService userService;
     @Mock private EmailDeliveryService emailDeliveryService;
+    @Mock private ApplicationEventPublisher eventPublisher;
 
     private WeeklySummaryCommandService commandService;
     private User testUser;
@@ -34,7 +41,7 @@ class WeeklySummaryCommandServiceTest {
     @BeforeEach
     void setUp() {
         commandService = new WeeklySummaryCommandService(
-                queryService, summaryRepository, geminiService, userService, emailDeliveryService);
+                queryService, summaryRepository, geminiService, userService, emailDeliveryService, eventPublisher);
 
         testUser = new User();
         testUser.setId(new ObjectId());
@@ -70,6 +77,9 @@ class WeeklySummaryCommandServiceTest {
                 s.getType() == WeeklySummaryType.MOTIVATION
         ));
         verify(geminiService, never()).generateWeeklyReflection(any());
+        verify(eventPublisher).publishEvent(argThat((Object event) -> event instanceof WeeklySummarySavedEvent saved
+                && saved.userId().equals(testUser.getId())
+                && saved.summary().getType() == WeeklySummaryType.MOTIVATION));
     }
 
     @Test
@@ -118,4 +128,29 @@ class WeeklySummaryCommandServiceTest {
                 s.getType() == WeeklySummaryType.SUMMARY
         ));
     }
+
+    @Test
+    @DisplayName("Streaming - forwards reflection chunks and falls back when the stream fails")
+    void generateWeeklySummaryStreaming_streamFails_savesFallback() {
+        WeeklySummaryBaseData base = new WeeklySummaryBaseData();
+        base.setHasEntries(true);
+        base.setDaysWritten(2);
+        base.setDominantMood("Neutral");
+        base.setWeeklySignal("signal");
+
+        when(queryService.fetchWeeklyBaseData(any())).thenReturn(base);
+        when(geminiService.generateWeeklyReflectionStreaming(eq("signal"), any())).thenAnswer(inv -> {
+            Consumer<String> onChunk = inv.getArgument(1);
+            onChunk.accept("{\"reflectionText\": \"A wee");
+            return CompletableFuture.failedFuture(new RuntimeException("stream reset"));
+        });
+        when(summaryRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+
+        List<String> chunks = new ArrayList<>();
+        commandService.generateWeeklySummaryStreaming(testUser, chunks::add).join();
+
+        assertThat(chunks).hasSize(1);
+        verify(summaryRepository).save(argThat(s -> s.getType() == WeeklySummaryType.SUMMARY));
+        verify(userService).markWeeklySummaryGenerated(eq(testUser), any());
+    }
 }
@@ -0,0 +1,77 @@
+package com.example.service;
+
+import com.example.dto.WeeklySummaryBaseData;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("WeeklySummaryQueryService Tests")
+class WeeklySummaryQueryServiceTest {
+
+    @Mock private MongoTemplate mongoTemplate;
+
+    private WeeklySummaryQueryService queryService;
+    private final ZoneId zone = ZoneId.of("Asia/Kolkata");
+
+    @BeforeEach
+    void setUp() {
+        queryService = new WeeklySummaryQueryService(mongoTemplate);
+    }
+
+    private Date at(String isoDate) {
+        return Date.from(ZonedDateTime.parse(isoDate + "T10:00:00+05:30[Asia/Kolkata]").toInstant());
+    }
+
+    @Test
+    @DisplayName("toBaseData - no totals facet means no entries")
+    void toBaseData_empty_returnsMotivationDefaults() {
+        Document result = new Document("totals", List.of())
+                .append("moods", List.of())
+                .append("analyzed", List.of());
+
+        WeeklySummaryBaseData base = queryService.toBaseData(result, zone);
+
+        assertThat(base.isHasEntries()).isFalse();
+        assertThat(base.getDominantMood()).isEqualTo("N/A");
+        assertThat(base.getWeeklySignal()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("toBaseData - maps facets to days, dominant mood, summaries and weekly signal")
+    void toBaseData_withFacets_buildsSignal() {
+        Document result = new Document("totals", List.of(new Document("entryCount", 3).append("daysWritten", 2)))
+                .append("moods", List.of(
+                        new Document("_id", "Happy").append("count", 2),
+                        new Document("_id", "Sad").append("count", 1)))
+                .append("analyzed", List.of(
+                        new Document("date", at("2025-01-06")).append("mood", "Happy")
+                                .append("sentimentScore", 0.8).append("aiSummary", "Good day")
+                                .append("analysisCompleted", true),
+                        new Document("date", at("2025-01-07")).append("aiSummary", "Half done")
+                                .append("analysisCompleted", false)));
+
+        WeeklySummaryBaseData base = queryService.toBaseData(result, zone);
+
+        assertThat(base.isHasEntries()).isTrue();
+        assertThat(base.getDaysWritten()).isEqualTo(2);
+        assertThat(base.getDominantMood()).isEqualTo("Happy");
+        assertThat(base.getDailyAiSummaries()).containsExactly("Good day", "Half done");
+        assertThat(base.getWeeklySignal())
+                .startsWith("User wrote 3 entries last week (1 with AI analysis).\n")
+                .contains("- 2025-01-06: Mood=Happy, Sentiment=0.8, Summary=\"Good day\"")
+                .doesNotContain("Half done");
+    }
+}